@@ -34,6 +34,7 @@ import io.github.shiruka.shiruka.console.ShirukaConsole;
 import io.github.shiruka.shiruka.console.ShirukaConsoleParser;
 import io.github.shiruka.shiruka.language.Languages;
 import io.github.shiruka.shiruka.misc.JiraExceptionCatcher;
+import io.github.shiruka.shiruka.network.NetTransport;
 import io.github.shiruka.shiruka.network.server.NetServerSocket;
 import io.github.shiruka.shiruka.util.SystemUtils;
 import java.io.File;
@@ -181,6 +182,13 @@ public final class ShirukaMain {
     OpsConfig.init(this.createsServerFile(ShirukaConsoleParser.OPS));
     UserCacheConfig.init(this.createsServerFile(ShirukaConsoleParser.USER_CACHE));
     ServerThreadPool.init();
+    if (System.getProperty(NetTransport.PROPERTY) == null) {
+      ServerConfig.TRANSPORT.getValue().ifPresent(transport ->
+        System.setProperty(NetTransport.PROPERTY, transport));
+    }
+    if (!ServerConfig.USE_NATIVE.getValue().orElse(true)) {
+      System.setProperty("disableNativeEventLoop", "true");
+    }
     final var ip = ServerConfig.ADDRESS_IP.getValue()
       .orElseThrow(() -> new IllegalStateException("\"ip\" not found in the server config!"));
     final var port = ServerConfig.ADDRESS_PORT.getValue()
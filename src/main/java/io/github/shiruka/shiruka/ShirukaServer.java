@@ -45,12 +45,15 @@ import io.github.shiruka.shiruka.command.SimpleCommandManager;
 import io.github.shiruka.shiruka.concurrent.PoolSpec;
 import io.github.shiruka.shiruka.concurrent.ServerThreadPool;
 import io.github.shiruka.shiruka.concurrent.ShirukaTick;
+import io.github.shiruka.shiruka.config.ServerConfig;
 import io.github.shiruka.shiruka.console.ShirukaConsole;
 import io.github.shiruka.shiruka.console.SimpleConsoleCommandSender;
 import io.github.shiruka.shiruka.entity.ShirukaPlayer;
 import io.github.shiruka.shiruka.event.SimpleEventManager;
 import io.github.shiruka.shiruka.language.SimpleLanguageManager;
 import io.github.shiruka.shiruka.misc.JiraExceptionCatcher;
+import io.github.shiruka.shiruka.network.blob.BlobStore;
+import io.github.shiruka.shiruka.network.login.LoginPipeline;
 import io.github.shiruka.shiruka.network.impl.ShirukaServerListener;
 import io.github.shiruka.shiruka.network.server.ServerListener;
 import io.github.shiruka.shiruka.network.server.ServerSocket;
@@ -99,6 +102,12 @@ public final class ShirukaServer implements Server {
    */
   private static final Path PACKS_PATH = Misc.HOME_PATH.resolve("packs");
 
+  /**
+   * the blob store.
+   */
+  private final BlobStore blobStore = new BlobStore(ServerConfig.BLOB_CACHE_SIZE.getValue()
+    .orElse(64 * 1024 * 1024));
+
   /**
    * the console.
    */
@@ -116,6 +125,12 @@ public final class ShirukaServer implements Server {
    */
   private final Map<Class<?>, Object> interfaces = new ConcurrentHashMap<>();
 
+  /**
+   * the login pipeline.
+   */
+  private final LoginPipeline loginPipeline = new LoginPipeline(ServerConfig.LOGIN_QUEUE_SIZE.getValue()
+    .orElse(128));
+
   /**
    * the main thread.
    */
@@ -153,6 +168,7 @@ public final class ShirukaServer implements Server {
   /**
    * the tick.
    */
+  @NotNull
   private final ShirukaTick tick = new ShirukaTick(this);
 
   /**
@@ -286,6 +302,7 @@ public final class ShirukaServer implements Server {
     } catch (final Exception e) {
       e.printStackTrace();
     }
+    this.loginPipeline.close();
     ServerThreadPool.shutdownAll();
     var wait = 50;
     this.schedulerService.shutdown();
@@ -309,6 +326,26 @@ public final class ShirukaServer implements Server {
     this.interfaces.remove(cls);
   }
 
+  /**
+   * obtains the blob store.
+   *
+   * @return blob store.
+   */
+  @NotNull
+  public BlobStore getBlobStore() {
+    return this.blobStore;
+  }
+
+  /**
+   * obtains the login pipeline.
+   *
+   * @return login pipeline.
+   */
+  @NotNull
+  public LoginPipeline getLoginPipeline() {
+    return this.loginPipeline;
+  }
+
   /**
    * obtains the scheduler service.
    *
@@ -319,6 +356,16 @@ public final class ShirukaServer implements Server {
     return this.schedulerService;
   }
 
+  /**
+   * obtains the tick.
+   *
+   * @return tick.
+   */
+  @NotNull
+  public ShirukaTick getTick() {
+    return this.tick;
+  }
+
   /**
    * removes the given player from {@link #players}.
    *
@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.concurrent;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an enum class to determine how {@link ShirukaTick} behaves when a tick takes longer than its interval.
+ */
+public enum CatchUpPolicy {
+  /**
+   * runs the missed ticks back to back until the tick loop is on schedule again.
+   */
+  BURST("burst"),
+  /**
+   * drops the missed ticks and continues from the current time.
+   */
+  SKIP("skip"),
+  /**
+   * spreads the missed time over the next ticks by shortening their intervals.
+   */
+  SMEAR("smear");
+
+  /**
+   * the id.
+   */
+  @NotNull
+  private final String id;
+
+  /**
+   * ctor.
+   *
+   * @param id the id.
+   */
+  CatchUpPolicy(@NotNull final String id) {
+    this.id = id;
+  }
+
+  /**
+   * finds the policy from the given id.
+   *
+   * @param id the id to find.
+   *
+   * @return the policy or {@link Optional#empty()} if there is no policy with the given id.
+   */
+  @NotNull
+  public static Optional<CatchUpPolicy> fromId(@NotNull final String id) {
+    final var lowerCase = id.toLowerCase(Locale.ROOT);
+    return Arrays.stream(CatchUpPolicy.values())
+      .filter(policy -> policy.id.equals(lowerCase))
+      .findFirst();
+  }
+
+  /**
+   * obtains the id.
+   *
+   * @return id.
+   */
+  @NotNull
+  public String getId() {
+    return this.id;
+  }
+}
@@ -49,6 +49,16 @@ public final class PoolSpec implements ThreadFactory, ForkJoinPool.ForkJoinWorke
    */
   public static final PoolSpec ENTITIES = new PoolSpec(false, 3, "Entities");
 
+  /**
+   * the thread factory for login stages.
+   */
+  public static final PoolSpec LOGIN = new PoolSpec(false, -1, "Login");
+
+  /**
+   * the thread for pack reloads.
+   */
+  public static final PoolSpec PACKS = new PoolSpec(false, 1, "Packs");
+
   /**
    * the thread for players.
    */
@@ -64,6 +74,16 @@ public final class PoolSpec implements ThreadFactory, ForkJoinPool.ForkJoinWorke
    */
   public static final PoolSpec SCHEDULER = new PoolSpec(false, -1, "Scheduler");
 
+  /**
+   * the thread that watches the stuck scheduler tasks.
+   */
+  public static final PoolSpec SCHEDULER_WATCHDOG = new PoolSpec(false, 1, "Scheduler Watchdog");
+
+  /**
+   * the thread that watches the slow ticks.
+   */
+  public static final PoolSpec TICK_WATCHER = new PoolSpec(false, 1, "Tick Watcher");
+
   /**
    * a thread factory that does handling for exceptions, piping exception output to the loggers.
    */
@@ -26,27 +26,55 @@
 package io.github.shiruka.shiruka.concurrent;
 
 import io.github.shiruka.api.Server;
-import io.github.shiruka.shiruka.misc.JiraExceptionCatcher;
+import io.github.shiruka.shiruka.config.ServerConfig;
 import io.github.shiruka.shiruka.scheduler.SyncTaskManager;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * a class that represents the server heartbeat pulse called "tick" which occurs every 1/20th of a second.
+ * <p>
+ * the ticks are scheduled with {@link System#nanoTime()}. the main thread parks until shortly before the next tick and
+ * spins for the rest, so the ticks start on time regardless of the sleep granularity of the platform. the ticks that
+ * take longer than their interval are handled with the configured {@link CatchUpPolicy}.
  */
 public final class ShirukaTick implements Runnable {
 
+  /**
+   * the tick count in a second.
+   */
+  public static final int TICKS_PER_SECOND = 20;
+
+  /**
+   * the amount of time taken by a single tick in nanoseconds.
+   */
+  public static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / ShirukaTick.TICKS_PER_SECOND;
+
   /**
    * the logger.
    */
   private static final Logger LOGGER = LogManager.getLogger("ShirukaTick");
 
   /**
-   * the amount of time taken by a single tick
+   * the maximum time to catch up, the tick loop skips the missed ticks when it's further behind.
+   */
+  private static final long MAXIMUM_CATCH_UP_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  /**
+   * the maximum time that a tick interval is shortened while smearing.
+   */
+  private static final long SMEAR_STEP_NANOS = ShirukaTick.TICK_NANOS / 4;
+
+  /**
+   * the time to spin before a tick instead of parking.
    */
-  private static final long TICK_MILLIS = TimeUnit.SECONDS.toMillis(1) / 20;
+  private static final long SPIN_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
 
   /**
    * the server.
@@ -54,6 +82,26 @@ public final class ShirukaTick implements Runnable {
   @NotNull
   private final Server server;
 
+  /**
+   * the slow tick listeners.
+   */
+  private final List<Consumer<SlowTick>> slowTickListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * the stats.
+   */
+  private final TickStats stats = new TickStats();
+
+  /**
+   * the current tick number.
+   */
+  private volatile long currentTick;
+
+  /**
+   * the start time of the running tick, -1 if the main thread is waiting for the next tick.
+   */
+  private volatile long tickStart = -1L;
+
   /**
    * ctor.
    *
@@ -61,6 +109,74 @@ public final class ShirukaTick implements Runnable {
    */
   public ShirukaTick(@NotNull final Server server) {
     this.server = server;
+    this.slowTickListeners.add(ShirukaTick::logSlowTick);
+  }
+
+  /**
+   * logs the given slow tick with the stack trace of the main thread.
+   *
+   * @param slowTick the slow tick to log.
+   */
+  private static void logSlowTick(@NotNull final SlowTick slowTick) {
+    final var builder = new StringBuilder();
+    for (final var element : slowTick.getStackTrace()) {
+      builder.append("\n\tat ").append(element);
+    }
+    ShirukaTick.LOGGER.warn("§cThe tick {} is running for {}ms, the main thread is at:{}",
+      slowTick.getTick(), TimeUnit.NANOSECONDS.toMillis(slowTick.getElapsed()), builder);
+  }
+
+  /**
+   * waits until the given time.
+   *
+   * @param deadline the time to wait.
+   *
+   * @return {@code false} if the thread is interrupted while waiting.
+   */
+  private static boolean waitUntil(final long deadline) {
+    while (true) {
+      final var remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return true;
+      }
+      if (remaining > ShirukaTick.SPIN_NANOS) {
+        LockSupport.parkNanos(remaining - ShirukaTick.SPIN_NANOS);
+      } else {
+        Thread.onSpinWait();
+      }
+      if (Thread.interrupted()) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * adds the given listener that is called from a watcher thread when a tick runs longer than the configured
+   * threshold.
+   *
+   * @param listener the listener to add.
+   */
+  public void addSlowTickListener(@NotNull final Consumer<SlowTick> listener) {
+    this.slowTickListeners.add(listener);
+  }
+
+  /**
+   * obtains the current tick number.
+   *
+   * @return current tick.
+   */
+  public long getCurrentTick() {
+    return this.currentTick;
+  }
+
+  /**
+   * obtains the stats.
+   *
+   * @return stats.
+   */
+  @NotNull
+  public TickStats getStats() {
+    return this.stats;
   }
 
   /**
@@ -68,26 +184,164 @@ public final class ShirukaTick implements Runnable {
    */
   @Override
   public void run() {
-    while (this.server.isRunning()) {
-      final var start = System.currentTimeMillis();
-      SyncTaskManager.update(start);
-      // @todo #1:15m Add more tick operations.
-      final var end = System.currentTimeMillis();
-      final var elapsed = end - start;
-      final var waitTime = ShirukaTick.TICK_MILLIS - elapsed;
-      if (waitTime < 0) {
-        ShirukaTick.LOGGER.debug("Server running behind {}ms, skipped {} ticks",
-          -waitTime, -waitTime / ShirukaTick.TICK_MILLIS);
-        continue;
+    final var configuredPolicy = ServerConfig.TICK_CATCH_UP.getValue().orElse(CatchUpPolicy.SKIP.getId());
+    final var policy = CatchUpPolicy.fromId(configuredPolicy).orElseGet(() -> {
+      ShirukaTick.LOGGER.warn("§cUnknown tick catch up policy {}, using skip.", configuredPolicy);
+      return CatchUpPolicy.SKIP;
+    });
+    final var slowThreshold = TimeUnit.MILLISECONDS.toNanos(
+      ServerConfig.TICK_SLOW_THRESHOLD.getValue().orElse(1000));
+    final var watcher = slowThreshold > 0
+      ? this.startWatcher(Thread.currentThread(), slowThreshold)
+      : null;
+    var nextTick = System.nanoTime();
+    var lastStart = nextTick - ShirukaTick.TICK_NANOS;
+    var debt = 0L;
+    try {
+      while (this.server.isRunning()) {
+        if (!ShirukaTick.waitUntil(nextTick)) {
+          this.server.stopServer();
+          break;
+        }
+        final var start = System.nanoTime();
+        this.currentTick++;
+        this.tickStart = start;
+        SyncTaskManager.update();
+        // @todo #1:15m Add more tick operations.
+        final var end = System.nanoTime();
+        this.tickStart = -1L;
+        this.stats.onTick(end - start, start - lastStart);
+        lastStart = start;
+        final var repay = Math.min(debt, ShirukaTick.SMEAR_STEP_NANOS);
+        debt -= repay;
+        final var scheduled = nextTick + ShirukaTick.TICK_NANOS - repay;
+        final var behind = end - scheduled;
+        if (behind <= 0) {
+          nextTick = scheduled;
+          continue;
+        }
+        if (behind > ShirukaTick.MAXIMUM_CATCH_UP_NANOS) {
+          ShirukaTick.LOGGER.warn("§cCan't keep up! Running {}ms or {} ticks behind, skipping them.",
+            TimeUnit.NANOSECONDS.toMillis(behind), behind / ShirukaTick.TICK_NANOS);
+          nextTick = end;
+          debt = 0L;
+          continue;
+        }
+        switch (policy) {
+          case BURST:
+            nextTick = scheduled;
+            break;
+          case SMEAR:
+            debt = Math.min(debt + behind, ShirukaTick.MAXIMUM_CATCH_UP_NANOS);
+            nextTick = end;
+            break;
+          default:
+            ShirukaTick.LOGGER.debug("Server running behind {}ms, skipped {} ticks",
+              TimeUnit.NANOSECONDS.toMillis(behind), behind / ShirukaTick.TICK_NANOS);
+            nextTick = end;
+        }
       }
-      try {
-        Thread.sleep(waitTime);
-      } catch (final InterruptedException e) {
-        this.server.stopServer();
-      } catch (final Exception e) {
-        JiraExceptionCatcher.serverException(e);
-        break;
+    } finally {
+      if (watcher != null) {
+        watcher.interrupt();
       }
     }
   }
+
+  /**
+   * starts a thread that reports the ticks that run longer than the given threshold.
+   *
+   * @param mainThread the main thread to capture.
+   * @param threshold the threshold in nanoseconds.
+   *
+   * @return the started watcher thread.
+   */
+  @NotNull
+  private Thread startWatcher(@NotNull final Thread mainThread, final long threshold) {
+    final var interval = Math.min(threshold / 4, TimeUnit.MILLISECONDS.toNanos(100));
+    final var watcher = PoolSpec.TICK_WATCHER.newThread(() -> {
+      var reported = -1L;
+      while (!Thread.currentThread().isInterrupted()) {
+        LockSupport.parkNanos(interval);
+        final var tick = this.currentTick;
+        final var start = this.tickStart;
+        if (start == -1L || tick == reported) {
+          continue;
+        }
+        final var elapsed = System.nanoTime() - start;
+        if (elapsed < threshold) {
+          continue;
+        }
+        reported = tick;
+        final var slowTick = new SlowTick(elapsed, mainThread.getStackTrace(), tick);
+        this.slowTickListeners.forEach(listener -> listener.accept(slowTick));
+      }
+    });
+    watcher.setDaemon(true);
+    watcher.start();
+    return watcher;
+  }
+
+  /**
+   * a class that represents a tick that runs longer than the slow tick threshold.
+   */
+  public static final class SlowTick {
+
+    /**
+     * the elapsed time of the tick when it's captured in nanoseconds.
+     */
+    private final long elapsed;
+
+    /**
+     * the stack trace of the main thread.
+     */
+    @NotNull
+    private final StackTraceElement[] stackTrace;
+
+    /**
+     * the tick number.
+     */
+    private final long tick;
+
+    /**
+     * ctor.
+     *
+     * @param elapsed the elapsed time of the tick when it's captured in nanoseconds.
+     * @param stackTrace the stack trace of the main thread.
+     * @param tick the tick number.
+     */
+    private SlowTick(final long elapsed, @NotNull final StackTraceElement[] stackTrace, final long tick) {
+      this.elapsed = elapsed;
+      this.stackTrace = stackTrace;
+      this.tick = tick;
+    }
+
+    /**
+     * obtains the elapsed time of the tick when it's captured in nanoseconds.
+     *
+     * @return elapsed time.
+     */
+    public long getElapsed() {
+      return this.elapsed;
+    }
+
+    /**
+     * obtains the stack trace of the main thread.
+     *
+     * @return stack trace.
+     */
+    @NotNull
+    public StackTraceElement[] getStackTrace() {
+      return this.stackTrace.clone();
+    }
+
+    /**
+     * obtains the tick number.
+     *
+     * @return tick number.
+     */
+    public long getTick() {
+      return this.tick;
+    }
+  }
 }
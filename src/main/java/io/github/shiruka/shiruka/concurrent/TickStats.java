@@ -0,0 +1,291 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.concurrent;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that collects the tick durations and the tick rates of {@link ShirukaTick}.
+ * <p>
+ * the statistics are written by the main thread only and can be read from any thread.
+ */
+public final class TickStats {
+
+  /**
+   * the upper bounds of the histogram buckets in milliseconds, the last bucket has no upper bound.
+   */
+  private static final long[] BUCKET_BOUNDS = {1, 2, 5, 10, 20, 30, 40, 50, 75, 100, 150, 250, 500, 1000};
+
+  /**
+   * the nanoseconds in a millisecond.
+   */
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * the nanoseconds in a second.
+   */
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * the count of the recent ticks to keep, a minute on schedule.
+   */
+  private static final int RECENT_TICKS = 60 * ShirukaTick.TICKS_PER_SECOND;
+
+  /**
+   * the tick counts of the duration buckets.
+   */
+  private final AtomicLongArray histogram = new AtomicLongArray(TickStats.BUCKET_BOUNDS.length + 1);
+
+  /**
+   * the durations of the recent ticks in nanoseconds.
+   */
+  private final AtomicLongArray recent = new AtomicLongArray(TickStats.RECENT_TICKS);
+
+  /**
+   * the tick rate of the last minute.
+   */
+  private final RollingAverage tps1 = new RollingAverage(60);
+
+  /**
+   * the tick rate of the last 15 minutes.
+   */
+  private final RollingAverage tps15 = new RollingAverage(15 * 60);
+
+  /**
+   * the tick rate of the last 5 minutes.
+   */
+  private final RollingAverage tps5 = new RollingAverage(5 * 60);
+
+  /**
+   * the sum of the recent durations.
+   */
+  private volatile long recentSum;
+
+  /**
+   * the tick count.
+   */
+  private volatile long ticks;
+
+  /**
+   * obtains the upper bounds of the histogram buckets in milliseconds.
+   *
+   * @return bucket bounds, the bucket after the last bound has no upper bound.
+   */
+  @NotNull
+  public static long[] getBucketBounds() {
+    return TickStats.BUCKET_BOUNDS.clone();
+  }
+
+  /**
+   * obtains the average tick duration of the last minute.
+   *
+   * @return average mspt.
+   */
+  public double getAverageMspt() {
+    final var count = Math.min(this.ticks, TickStats.RECENT_TICKS);
+    if (count == 0) {
+      return 0.0D;
+    }
+    return this.recentSum / (double) count / TickStats.NANOS_PER_MILLI;
+  }
+
+  /**
+   * obtains the tick counts of the duration buckets since the server started.
+   *
+   * @return histogram that matches {@link #getBucketBounds()}.
+   */
+  @NotNull
+  public long[] getHistogram() {
+    final var histogram = new long[this.histogram.length()];
+    for (var index = 0; index < histogram.length; index++) {
+      histogram[index] = this.histogram.get(index);
+    }
+    return histogram;
+  }
+
+  /**
+   * obtains the longest tick duration of the last minute.
+   *
+   * @return maximum mspt.
+   */
+  public double getMaximumMspt() {
+    final var count = Math.min(this.ticks, TickStats.RECENT_TICKS);
+    var maximum = 0L;
+    for (var index = 0; index < count; index++) {
+      maximum = Math.max(maximum, this.recent.get(index));
+    }
+    return maximum / TickStats.NANOS_PER_MILLI;
+  }
+
+  /**
+   * obtains the tick duration percentile of the last minute.
+   *
+   * @param percentile the percentile to obtain, between 0 and 100.
+   *
+   * @return mspt of the percentile.
+   */
+  public double getMsptPercentile(final double percentile) {
+    final var count = (int) Math.min(this.ticks, TickStats.RECENT_TICKS);
+    if (count == 0) {
+      return 0.0D;
+    }
+    final var durations = new long[count];
+    for (var index = 0; index < count; index++) {
+      durations[index] = this.recent.get(index);
+    }
+    Arrays.sort(durations);
+    final var rank = (int) Math.ceil(Math.min(100.0D, Math.max(0.0D, percentile)) / 100.0D * count);
+    return durations[Math.max(0, rank - 1)] / TickStats.NANOS_PER_MILLI;
+  }
+
+  /**
+   * obtains the tick count.
+   *
+   * @return tick count.
+   */
+  public long getTickCount() {
+    return this.ticks;
+  }
+
+  /**
+   * obtains the tick rate of the last minute.
+   *
+   * @return tps.
+   */
+  public double getTps1() {
+    return this.tps1.getAverage();
+  }
+
+  /**
+   * obtains the tick rate of the last 15 minutes.
+   *
+   * @return tps.
+   */
+  public double getTps15() {
+    return this.tps15.getAverage();
+  }
+
+  /**
+   * obtains the tick rate of the last 5 minutes.
+   *
+   * @return tps.
+   */
+  public double getTps5() {
+    return this.tps5.getAverage();
+  }
+
+  /**
+   * records a tick.
+   *
+   * @param duration the duration of the tick in nanoseconds.
+   * @param interval the time between the starts of the tick and the previous tick in nanoseconds.
+   */
+  void onTick(final long duration, final long interval) {
+    final var index = (int) (this.ticks % TickStats.RECENT_TICKS);
+    this.recentSum += duration - this.recent.getAndSet(index, duration);
+    final var millis = duration / TickStats.NANOS_PER_MILLI;
+    var bucket = 0;
+    while (bucket < TickStats.BUCKET_BOUNDS.length && millis > TickStats.BUCKET_BOUNDS[bucket]) {
+      bucket++;
+    }
+    this.histogram.incrementAndGet(bucket);
+    if (interval > 0) {
+      this.tps1.add(interval);
+      this.tps5.add(interval);
+      this.tps15.add(interval);
+    }
+    this.ticks++;
+  }
+
+  /**
+   * a class that represents the tick rate over a fixed window of elapsed time.
+   * <p>
+   * the intervals older than the window are evicted, so the window covers the same time whatever the tick rate is.
+   */
+  private static final class RollingAverage {
+
+    /**
+     * the intervals of the ticks in the window, oldest first.
+     */
+    private final LongArrayFIFOQueue intervals = new LongArrayFIFOQueue();
+
+    /**
+     * the window size in nanoseconds.
+     */
+    private final long window;
+
+    /**
+     * the current average.
+     */
+    private volatile double average = ShirukaTick.TICKS_PER_SECOND;
+
+    /**
+     * the sum of the intervals.
+     */
+    private long intervalSum;
+
+    /**
+     * ctor.
+     *
+     * @param seconds the window size in seconds.
+     */
+    private RollingAverage(final int seconds) {
+      this.window = TimeUnit.SECONDS.toNanos(seconds);
+      final var size = seconds * ShirukaTick.TICKS_PER_SECOND;
+      for (var index = 0; index < size; index++) {
+        this.intervals.enqueue(ShirukaTick.TICK_NANOS);
+      }
+      this.intervalSum = ShirukaTick.TICK_NANOS * size;
+    }
+
+    /**
+     * obtains the average.
+     *
+     * @return average.
+     */
+    private double getAverage() {
+      return this.average;
+    }
+
+    /**
+     * adds a tick that took the given interval, and evicts the ticks that left the window.
+     *
+     * @param interval the interval of the tick in nanoseconds.
+     */
+    private void add(final long interval) {
+      this.intervals.enqueue(interval);
+      this.intervalSum += interval;
+      while (this.intervals.size() > 1 && this.intervalSum - this.intervals.firstLong() >= this.window) {
+        this.intervalSum -= this.intervals.dequeueLong();
+      }
+      this.average = this.intervals.size() * TickStats.NANOS_PER_SECOND / this.intervalSum;
+    }
+  }
+}
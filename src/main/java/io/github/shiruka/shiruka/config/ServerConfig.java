@@ -29,6 +29,7 @@ import static io.github.shiruka.api.config.Paths.*;
 import io.github.shiruka.api.config.Config;
 import io.github.shiruka.api.config.ConfigPath;
 import io.github.shiruka.api.config.config.PathableConfig;
+import io.github.shiruka.shiruka.network.util.Constants;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
@@ -56,6 +57,13 @@ public final class ServerConfig extends PathableConfig {
     "port", 19132),
     "server's port.");
 
+  /**
+   * the byte capacity of the blobs that are kept for the clients which support the blob cache.
+   */
+  public static final ConfigPath<Integer> BLOB_CACHE_SIZE = commented(integerPath(
+    "blob-cache-size", 64 * 1024 * 1024),
+    "the byte capacity of the blobs that are kept for the clients which support the blob cache.");
+
   /**
    * the amount of bytes before compressing packets.
    * <p>
@@ -93,6 +101,42 @@ public final class ServerConfig extends PathableConfig {
     "loaded-languages", new ArrayList<>()),
     "loaded languages of the Shiru ka. (automatically updated.)");
 
+  /**
+   * the thread count that calls the async login events.
+   */
+  public static final ConfigPath<Integer> LOGIN_EVENT_THREADS = commented(integerPath(
+    "login-event-threads", 2),
+    "the thread count that calls the async login events.");
+
+  /**
+   * the thread count that parses the login chains.
+   */
+  public static final ConfigPath<Integer> LOGIN_PARSE_THREADS = commented(integerPath(
+    "login-parse-threads", 1),
+    "the thread count that parses the login chains.");
+
+  /**
+   * the login count that can wait in each login stage.
+   */
+  public static final ConfigPath<Integer> LOGIN_QUEUE_SIZE = commented(integerPath(
+    "login-queue-size", 128),
+    "the login count that can wait in each login stage.\n" +
+      "the players that join while the first stage is full are told that the server is full.");
+
+  /**
+   * the thread count that decodes the skins of the logins.
+   */
+  public static final ConfigPath<Integer> LOGIN_SKIN_THREADS = commented(integerPath(
+    "login-skin-threads", 1),
+    "the thread count that decodes the skins of the logins.");
+
+  /**
+   * the thread count that verifies the login chains.
+   */
+  public static final ConfigPath<Integer> LOGIN_VERIFY_THREADS = commented(integerPath(
+    "login-verify-threads", 2),
+    "the thread count that verifies the login chains.");
+
   /**
    * the max players that can be online at once.
    */
@@ -114,6 +158,51 @@ public final class ServerConfig extends PathableConfig {
     "online-mode", true),
     "whether to use Mojang auth to check players.");
 
+  /**
+   * the kilobytes per second that all the pack downloads over the game connections can use together.
+   */
+  public static final ConfigPath<Integer> PACK_DOWNLOAD_BANDWIDTH = commented(integerPath(
+    "pack-download-bandwidth", 0),
+    "the kilobytes per second that all the pack downloads over the game connections can use together.\n" +
+      "the bandwidth is shared fairly between the downloading players, use 0 for no limit.");
+
+  /**
+   * if the packs directory is watched to reload the packs without a restart.
+   */
+  public static final ConfigPath<Boolean> PACK_HOT_RELOAD = commented(booleanPath(
+    "pack-hot-reload", false),
+    "if the packs directory is watched to reload the packs without a restart.\n" +
+      "the players that are downloading the packs keep the old packs until they finish.");
+
+  /**
+   * the milliseconds that an async task can run before it's reported as stuck.
+   */
+  public static final ConfigPath<Integer> SCHEDULER_STUCK_THRESHOLD = commented(integerPath(
+    "scheduler-stuck-threshold", 10000),
+    "the milliseconds that an async task can run before it's reported as stuck.");
+
+  /**
+   * the milliseconds between the checks of the stuck async tasks, 0 to disable.
+   */
+  public static final ConfigPath<Integer> SCHEDULER_WATCHDOG_PERIOD = commented(integerPath(
+    "scheduler-watchdog-period", 1000),
+    "the milliseconds between the checks of the stuck async tasks, 0 to disable.");
+
+  /**
+   * the byte budget of the packets that wait to be sent to a player.
+   */
+  public static final ConfigPath<Integer> SEND_QUEUE_BUDGET = commented(integerPath(
+    "send-queue-budget", Constants.SEND_QUEUE_BUDGET),
+    "the byte budget of the packets that wait to be sent to a player.\n" +
+      "unreliable packets are dropped while a player is over the budget.");
+
+  /**
+   * the milliseconds that a player can stay over the send queue budget before getting disconnected.
+   */
+  public static final ConfigPath<Integer> SEND_QUEUE_EVICTION_TIME = commented(integerPath(
+    "send-queue-eviction-time", (int) Constants.SEND_QUEUE_EVICTION_MS),
+    "the milliseconds that a player can stay over the send queue budget before getting disconnected.");
+
   /**
    * the server language.
    */
@@ -121,6 +210,29 @@ public final class ServerConfig extends PathableConfig {
     "server-language", Locale.ROOT),
     "language of the Shiru ka.");
 
+  /**
+   * the way to catch up the missed ticks when the server falls behind.
+   */
+  public static final ConfigPath<String> TICK_CATCH_UP = commented(stringPath(
+    "tick-catch-up", "skip"),
+    "the way to catch up the missed ticks when the server falls behind. (burst, skip or smear)\n" +
+      "burst runs the missed ticks back to back, skip drops them and smear runs the next ticks faster.");
+
+  /**
+   * the milliseconds that a tick can run before the main thread's stack trace is logged, 0 to disable.
+   */
+  public static final ConfigPath<Integer> TICK_SLOW_THRESHOLD = commented(integerPath(
+    "tick-slow-threshold", 1000),
+    "the milliseconds that a tick can run before the main thread's stack trace is logged, 0 to disable.");
+
+  /**
+   * the datagram transport of the server.
+   */
+  public static final ConfigPath<String> TRANSPORT = commented(stringPath(
+    "transport", "auto"),
+    "the datagram transport of the server. (auto, io_uring, epoll, kqueue or nio)\n" +
+      "io_uring needs the netty io_uring incubator module in the class path.");
+
   /**
    * "true" to use linux natives when available.
    */
@@ -31,16 +31,18 @@ import com.eclipsesource.json.JsonValue;
 import com.google.common.base.Preconditions;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSObject;
-import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
 import io.github.shiruka.api.events.LoginDataEvent;
 import io.github.shiruka.api.geometry.AnimatedTextureType;
 import io.github.shiruka.api.geometry.AnimationData;
 import io.github.shiruka.api.geometry.ImageData;
 import io.github.shiruka.api.geometry.Skin;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.text.ParseException;
@@ -74,6 +76,17 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
    */
   private static final String IMAGE_WIDTH = "ImageWidth";
 
+  /**
+   * the key factories.
+   */
+  private static final ThreadLocal<KeyFactory> KEY_FACTORY = ThreadLocal.withInitial(() -> {
+    try {
+      return KeyFactory.getInstance("EC");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  });
+
   /**
    * the Mojang public key.
    */
@@ -85,6 +98,22 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
   private static final String MOJANG_PUBLIC_KEY_BASE64 =
     "MHYwEAYHKoZIzj0CAQYFK4EEACIDYgAE8ELkixyLcwlZryUQcu1TvPOmI2B7vX83ndnWRUaXm74wFfa5f/lwQNTfrLVHa2PmenpGI6JhIMUJaWZrjmMj90NoKNFSNBuKdm8rYiXsfaz3K36x/1U26HpG0ZxK/V1V";
 
+  /**
+   * the Mojang public key verifier.
+   */
+  private static final JWSVerifier MOJANG_VERIFIER;
+
+  /**
+   * the maximum count of the verified tokens to keep.
+   */
+  private static final int VERIFIED_TOKEN_CAPACITY = 1024;
+
+  /**
+   * the verified tokens.
+   */
+  private static final VerifiedTokenCache VERIFIED_TOKENS =
+    new VerifiedTokenCache(SimpleChainData.VERIFIED_TOKEN_CAPACITY);
+
   /**
    * the chain data itself.
    */
@@ -92,10 +121,10 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
   private final String chainData;
 
   /**
-   * the skin data itself.
+   * the chain tokens.
    */
   @NotNull
-  private final String skinData;
+  private List<String> chains = Collections.emptyList();
 
   /**
    * the current input mode.
@@ -163,6 +192,12 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
   @Nullable
   private Skin skin;
 
+  /**
+   * the skin data itself, dropped after the skin is decoded.
+   */
+  @Nullable
+  private CharSequence skinData;
+
   /**
    * the ui profile.
    */
@@ -194,7 +229,8 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
   static {
     try {
       MOJANG_PUBLIC_KEY = SimpleChainData.generateKey(SimpleChainData.MOJANG_PUBLIC_KEY_BASE64);
-    } catch (final InvalidKeySpecException | NoSuchAlgorithmException e) {
+      MOJANG_VERIFIER = new ECDSAVerifier((ECPublicKey) SimpleChainData.MOJANG_PUBLIC_KEY);
+    } catch (final InvalidKeySpecException | NoSuchAlgorithmException | JOSEException e) {
       throw new AssertionError(e);
     }
   }
@@ -205,13 +241,13 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
    * @param chainData the chain data.
    * @param skinData the skin data.
    */
-  private SimpleChainData(@NotNull final String chainData, @NotNull final String skinData) {
+  private SimpleChainData(@NotNull final String chainData, @NotNull final CharSequence skinData) {
     this.chainData = chainData;
     this.skinData = skinData;
   }
 
   /**
-   * creates a new instance of {@code this} then use {@link #initialize()} method to initiate the chain data.
+   * creates a new instance of {@code this} then verifies the chain and decodes the skin.
    *
    * @param chainData the chain data to create.
    * @param skinData the skin data to create.
@@ -220,29 +256,28 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
    */
   @NotNull
   public static LoginDataEvent.ChainData create(@NotNull final String chainData,
-                                                @NotNull final String skinData) {
-    final var data = new SimpleChainData(chainData, skinData);
-    data.initialize();
+                                                @NotNull final CharSequence skinData) {
+    final var data = SimpleChainData.parse(chainData, skinData);
+    data.verify();
+    data.decodeSkin();
     return data;
   }
 
   /**
-   * decodes the token.
+   * creates a new instance of {@code this} and decodes the claims of the chain without verifying it.
+   * <p>
+   * {@link #verify()} and {@link #decodeSkin()} must be called before the chain data is used.
    *
-   * @param token the token to decode.
+   * @param chainData the chain data to parse.
+   * @param skinData the skin data to parse.
    *
-   * @return decoded token.
+   * @return a new instance of {@code this}.
    */
   @NotNull
-  private static JsonObject decodeToken(@NotNull final String token) {
-    final var base = token.split("\\.");
-    Preconditions.checkArgument(base.length >= 2, "Invalid token length");
-    try {
-      final var json = new String(Base64.getDecoder().decode(base[1]), StandardCharsets.UTF_8);
-      return Json.parse(json).asObject();
-    } catch (final Exception e) {
-      throw new IllegalArgumentException("Invalid token JSON", e);
-    }
+  public static SimpleChainData parse(@NotNull final String chainData, @NotNull final CharSequence skinData) {
+    final var data = new SimpleChainData(chainData, skinData);
+    data.decodeChainData();
+    return data;
   }
 
   /**
@@ -262,7 +297,7 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
   @NotNull
   private static PublicKey generateKey(@NotNull final String base64) throws NoSuchAlgorithmException,
     InvalidKeySpecException {
-    return KeyFactory.getInstance("EC")
+    return SimpleChainData.KEY_FACTORY.get()
       .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64)));
   }
 
@@ -278,115 +313,73 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
    */
   @NotNull
   private static <V> V get(@Nullable final V value) {
-    return Objects.requireNonNull(value, "Please run #initialize() method before get SimpleChainData values!");
+    return Objects.requireNonNull(value, "Please decode the chain and skin before get SimpleChainData values!");
   }
 
   /**
-   * gives an {@link AnimationData} instance from the given json.
+   * reads an {@link AnimationData} instance from the given reader.
    *
-   * @param json the json to convert.
+   * @param reader the reader to read.
    *
    * @return a new instance of {@link AnimationData}.
    */
   @NotNull
-  private static AnimationData getAnimation(@NotNull final JsonObject json) {
-    final var frames = json.get("Frames").asFloat();
-    final var type = AnimatedTextureType.values()[json.get("Type").asInt()];
-    final var data = Base64.getDecoder().decode(json.get("Image").asString());
-    final var width = json.get(SimpleChainData.IMAGE_WIDTH).asInt();
-    final var height = json.get(SimpleChainData.IMAGE_HEIGHT).asInt();
-    return new AnimationData(frames, ImageData.of(width, height, data), type);
-  }
-
-  /**
-   * gives an {@link ImageData} instance from the given json and name.
-   *
-   * @param json the json to convert.
-   * @param name the name to convert.
-   *
-   * @return a new instance of {@link ImageData}.
-   */
-  @NotNull
-  private static ImageData getImage(@NotNull final JsonObject json, @NotNull final String name) {
-    final var keys = json.names();
-    if (!keys.contains(name + "Data")) {
-      return ImageData.empty();
-    }
-    final var skinImage = Base64.getDecoder().decode(json.get(name + "Data").asString());
-    if (!keys.contains(name + SimpleChainData.IMAGE_HEIGHT) ||
-      !keys.contains(name + SimpleChainData.IMAGE_WIDTH)) {
-      return ImageData.of(skinImage);
+  private static AnimationData getAnimation(@NotNull final TokenReader reader) {
+    var frames = 0.0f;
+    AnimatedTextureType type = null;
+    var width = -1;
+    var height = -1;
+    ByteBuffer image = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "Frames":
+          frames = reader.nextFloat();
+          break;
+        case "Type":
+          type = AnimatedTextureType.values()[reader.nextInt()];
+          break;
+        case SimpleChainData.IMAGE_WIDTH:
+          width = reader.nextInt();
+          break;
+        case SimpleChainData.IMAGE_HEIGHT:
+          height = reader.nextInt();
+          break;
+        case "Image":
+          image = reader.nextBytes();
+          break;
+        default:
+          reader.skipValue();
+      }
     }
-    final var width = json.get(name + SimpleChainData.IMAGE_WIDTH).asInt();
-    final var height = json.get(name + SimpleChainData.IMAGE_HEIGHT).asInt();
-    return ImageData.of(width, height, skinImage);
+    reader.endObject();
+    Preconditions.checkArgument(image != null && type != null, "Invalid animation");
+    return new AnimationData(frames, SkinCache.image(image, width, height), type);
   }
 
   /**
-   * creates a new {@link Skin} from the given skin token.
+   * gives an {@link ImageData} instance from the given raw base64 data.
    *
-   * @param json the json to create.
+   * @param data the data to convert.
+   * @param width the width to convert, -1 if it's not known.
+   * @param height the height to convert, -1 if it's not known.
    *
-   * @return a new instance of {@link Skin}.
+   * @return a shared instance of {@link ImageData}.
    */
   @NotNull
-  private static Skin getSkin(@NotNull final JsonObject json) {
-    final var skinBuilder = Skin.builder();
-    final var keys = json.names();
-    if (keys.contains("SkinId")) {
-      skinBuilder.skinId(json.get("SkinId").asString());
-    }
-    if (keys.contains("CapeId")) {
-      skinBuilder.capeId(json.get("CapeId").asString());
-    }
-    skinBuilder.skinData(SimpleChainData.getImage(json, "Skin"));
-    skinBuilder.capeData(SimpleChainData.getImage(json, "Cape"));
-    if (keys.contains("PremiumSkin")) {
-      skinBuilder.premium(json.get("PremiumSkin").asBoolean());
-    }
-    if (keys.contains("PersonaSkin")) {
-      skinBuilder.persona(json.get("PersonaSkin").asBoolean());
-    }
-    if (keys.contains("CapeOnClassicSkin")) {
-      skinBuilder.capeOnClassic(json.get("CapeOnClassicSkin").asBoolean());
-    }
-    if (keys.contains("SkinResourcePatch")) {
-      skinBuilder.skinResourcePatch(new String(Base64.getDecoder().decode(json.get("SkinResourcePatch").asString()), StandardCharsets.UTF_8));
-    }
-    if (keys.contains("SkinGeometryData")) {
-      skinBuilder.geometryData(new String(Base64.getDecoder().decode(json.get("SkinGeometryData").asString()), StandardCharsets.UTF_8));
-    }
-    if (keys.contains("SkinAnimationData")) {
-      skinBuilder.animationData(new String(Base64.getDecoder().decode(json.get("SkinAnimationData").asString()), StandardCharsets.UTF_8));
-    }
-    if (!keys.contains("AnimatedImageData")) {
-      return skinBuilder.build();
+  private static ImageData getImage(@Nullable final ByteBuffer data, final int width, final int height) {
+    if (data == null) {
+      return ImageData.empty();
     }
-    final var animations = new ArrayList<AnimationData>();
-    final var jsonArray = json.get("AnimatedImageData").asArray();
-    jsonArray.forEach(jsonValue ->
-      animations.add(SimpleChainData.getAnimation(jsonValue.asObject())));
-    skinBuilder.animations(animations);
-    return skinBuilder.build();
-  }
-
-  /**
-   * verifies the given key and object.
-   *
-   * @param key the key to verify.
-   * @param object the object to verify.
-   *
-   * @return {@code true} if the key and object verified.
-   *
-   * @throws JOSEException if something went wrong when verifying the given key and object.
-   */
-  private static boolean verify(@NotNull final PublicKey key, @NotNull final JWSObject object) throws JOSEException {
-    final var verifier = new DefaultJWSVerifierFactory().createJWSVerifier(object.getHeader(), key);
-    return object.verify(verifier);
+    return SkinCache.image(data, width, height);
   }
 
   /**
    * verifies the given chains.
+   * <p>
+   * the intermediate tokens are kept in {@link #VERIFIED_TOKENS} after their signatures are verified by the previous
+   * token's key, so only the player's own tokens are verified again in the next logins. the first token is signed by
+   * itself and unique to each login, so it's neither hashed nor cached.
    *
    * @param chains the chains to verify.
    *
@@ -395,23 +388,151 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
   private static boolean verifyChain(@NotNull final List<String> chains) throws ParseException, JOSEException,
     NoSuchAlgorithmException, InvalidKeySpecException {
     PublicKey lastKey = null;
+    JWSVerifier lastVerifier = null;
     var mojangKeyVerified = false;
-    for (final var chain : chains) {
-      final var jws = JWSObject.parse(chain);
-      if (!mojangKeyVerified) {
-        mojangKeyVerified = SimpleChainData.verify(SimpleChainData.MOJANG_PUBLIC_KEY, jws);
+    for (var index = 0; index < chains.size(); index++) {
+      final var chain = chains.get(index);
+      final var id = index == 0 || index == chains.size() - 1 ? null : VerifiedTokenCache.hash(chain);
+      final var verified = id == null ? null : SimpleChainData.VERIFIED_TOKENS.get(id, lastKey);
+      if (verified != null) {
+        mojangKeyVerified |= verified.isMojangSigned();
+        lastKey = verified.getKey();
+        lastVerifier = verified.getVerifier();
+        continue;
       }
-      if (lastKey != null && !SimpleChainData.verify(lastKey, jws)) {
+      final var jws = JWSObject.parse(chain);
+      final var mojangSigned = (id != null || !mojangKeyVerified) && jws.verify(SimpleChainData.MOJANG_VERIFIER);
+      mojangKeyVerified |= mojangSigned;
+      if (lastVerifier != null && !jws.verify(lastVerifier)) {
         throw new JOSEException("Unable to verify key in chain.");
       }
       final var payload = jws.getPayload().toJSONObject();
       final var base64key = payload.get(SimpleChainData.IDENTITY_PUBLIC_KEY);
       Preconditions.checkState(base64key instanceof String, "No key found");
-      lastKey = SimpleChainData.generateKey((String) base64key);
+      final var key = SimpleChainData.generateKey((String) base64key);
+      final var verifier = new ECDSAVerifier((ECPublicKey) key);
+      if (id != null && lastVerifier != null) {
+        SimpleChainData.VERIFIED_TOKENS.put(id, new VerifiedTokenCache.Token(key, mojangSigned, lastKey, verifier));
+      }
+      lastKey = key;
+      lastVerifier = verifier;
     }
     return mojangKeyVerified;
   }
 
+  /**
+   * decodes and sets the skin data to {@link this#skin}.
+   * <p>
+   * the images and the texts of the skin are decoded from the raw token bytes, so they are never kept as strings.
+   */
+  public void decodeSkin() {
+    Preconditions.checkState(this.skinData != null, "The skin is decoded already!");
+    final var reader = TokenReader.of(this.skinData);
+    this.skinData = null;
+    final var skinBuilder = Skin.builder();
+    ByteBuffer skinImage = null;
+    var skinWidth = -1;
+    var skinHeight = -1;
+    ByteBuffer capeImage = null;
+    var capeWidth = -1;
+    var capeHeight = -1;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "ClientRandomId":
+          this.id = reader.nextLong();
+          break;
+        case "ServerAddress":
+          this.serverAddress = reader.nextString();
+          break;
+        case "DeviceModel":
+          this.deviceModel = reader.nextString();
+          break;
+        case "DeviceOS":
+          this.deviceOS = reader.nextInt();
+          break;
+        case "DeviceId":
+          this.deviceId = reader.nextString();
+          break;
+        case "GameVersion":
+          this.gameVersion = reader.nextString();
+          break;
+        case "GuiScale":
+          this.guiScale = reader.nextInt();
+          break;
+        case "LanguageCode":
+          this.languageCode = reader.nextString();
+          break;
+        case "CurrentInputMode":
+          this.currentInputMode = reader.nextInt();
+          break;
+        case "DefaultInputMode":
+          this.defaultInputMode = reader.nextInt();
+          break;
+        case "UIProfile":
+          this.uiProfile = reader.nextInt();
+          break;
+        case "SkinId":
+          skinBuilder.skinId(reader.nextString());
+          break;
+        case "CapeId":
+          skinBuilder.capeId(reader.nextString());
+          break;
+        case "SkinData":
+          skinImage = reader.nextBytes();
+          break;
+        case "Skin" + SimpleChainData.IMAGE_WIDTH:
+          skinWidth = reader.nextInt();
+          break;
+        case "Skin" + SimpleChainData.IMAGE_HEIGHT:
+          skinHeight = reader.nextInt();
+          break;
+        case "CapeData":
+          capeImage = reader.nextBytes();
+          break;
+        case "Cape" + SimpleChainData.IMAGE_WIDTH:
+          capeWidth = reader.nextInt();
+          break;
+        case "Cape" + SimpleChainData.IMAGE_HEIGHT:
+          capeHeight = reader.nextInt();
+          break;
+        case "PremiumSkin":
+          skinBuilder.premium(reader.nextBoolean());
+          break;
+        case "PersonaSkin":
+          skinBuilder.persona(reader.nextBoolean());
+          break;
+        case "CapeOnClassicSkin":
+          skinBuilder.capeOnClassic(reader.nextBoolean());
+          break;
+        case "SkinResourcePatch":
+          skinBuilder.skinResourcePatch(SkinCache.text(reader.nextBytes()));
+          break;
+        case "SkinGeometryData":
+          skinBuilder.geometryData(SkinCache.text(reader.nextBytes()));
+          break;
+        case "SkinAnimationData":
+          skinBuilder.animationData(SkinCache.text(reader.nextBytes()));
+          break;
+        case "AnimatedImageData":
+          final var animations = new ArrayList<AnimationData>();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            animations.add(SimpleChainData.getAnimation(reader));
+          }
+          reader.endArray();
+          skinBuilder.animations(animations);
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    skinBuilder.skinData(SimpleChainData.getImage(skinImage, skinWidth, skinHeight));
+    skinBuilder.capeData(SimpleChainData.getImage(capeImage, capeWidth, capeHeight));
+    this.skin = skinBuilder.build();
+  }
+
   @Override
   public int currentInputMode() {
     return this.currentInputMode;
@@ -496,6 +617,20 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
     return SimpleChainData.get(this.username);
   }
 
+  /**
+   * verifies the chain and clears the xbox id if the chain is not signed by Mojang.
+   */
+  public void verify() {
+    try {
+      this.xboxAuthed = !this.chains.isEmpty() && SimpleChainData.verifyChain(this.chains);
+    } catch (final Exception e) {
+      this.xboxAuthed = false;
+    }
+    if (!this.xboxAuthed) {
+      this.xuid = null;
+    }
+  }
+
   @Override
   public boolean xboxAuthed() {
     return this.xboxAuthed;
@@ -521,89 +656,48 @@ public final class SimpleChainData implements LoginDataEvent.ChainData {
       parsed.get(SimpleChainData.CHAIN).asArray().isEmpty()) {
       return;
     }
-    final var chains = parsed.get(SimpleChainData.CHAIN).asArray().values().stream()
+    this.chains = parsed.get(SimpleChainData.CHAIN).asArray().values().stream()
       .map(JsonValue::asString)
       .collect(Collectors.toList());
-    try {
-      this.xboxAuthed = SimpleChainData.verifyChain(chains);
-    } catch (final Exception e) {
-      this.xboxAuthed = false;
-    }
-    chains.stream()
-      .map(SimpleChainData::decodeToken)
-      .forEach(chainMap -> {
-        final var keys = chainMap.names();
-        if (!keys.contains("extraData") &&
-          keys.contains(SimpleChainData.IDENTITY_PUBLIC_KEY)) {
-          this.publicKey = chainMap.get(SimpleChainData.IDENTITY_PUBLIC_KEY).asString();
-          return;
-        }
-        final var extra = chainMap.get("extraData").asObject();
-        final var extrasKeys = extra.names();
-        if (extrasKeys.contains("displayName")) {
-          this.username = extra.get("displayName").asString();
-        }
-        if (extrasKeys.contains("identity")) {
-          this.uniqueId = UUID.fromString(extra.get("identity").asString());
-        }
-        if (extrasKeys.contains("XUID")) {
-          this.xuid = extra.get("XUID").asString();
-        }
-        if (keys.contains(SimpleChainData.IDENTITY_PUBLIC_KEY)) {
-          this.publicKey = chainMap.get(SimpleChainData.IDENTITY_PUBLIC_KEY).asString();
-        }
-      });
-    if (!this.xboxAuthed) {
-      this.xuid = null;
-    }
+    this.chains.forEach(this::decodeChain);
   }
 
   /**
-   * decodes and sets the skin data to {@link this#skin}.
-   */
-  private void decodeSkinData() {
-    final var skinToken = SimpleChainData.decodeToken(this.skinData);
-    if (skinToken.names().contains("ClientRandomId")) {
-      this.id = skinToken.get("ClientRandomId").asLong();
-    }
-    if (skinToken.names().contains("ServerAddress")) {
-      this.serverAddress = skinToken.get("ServerAddress").asString();
-    }
-    if (skinToken.names().contains("DeviceModel")) {
-      this.deviceModel = skinToken.get("DeviceModel").asString();
-    }
-    if (skinToken.names().contains("DeviceOS")) {
-      this.deviceOS = skinToken.get("DeviceOS").asInt();
-    }
-    if (skinToken.names().contains("DeviceId")) {
-      this.deviceId = skinToken.get("DeviceId").asString();
-    }
-    if (skinToken.names().contains("GameVersion")) {
-      this.gameVersion = skinToken.get("GameVersion").asString();
-    }
-    if (skinToken.names().contains("GuiScale")) {
-      this.guiScale = skinToken.get("GuiScale").asInt();
-    }
-    if (skinToken.names().contains("LanguageCode")) {
-      this.languageCode = skinToken.get("LanguageCode").asString();
-    }
-    if (skinToken.names().contains("CurrentInputMode")) {
-      this.currentInputMode = skinToken.get("CurrentInputMode").asInt();
-    }
-    if (skinToken.names().contains("DefaultInputMode")) {
-      this.defaultInputMode = skinToken.get("DefaultInputMode").asInt();
-    }
-    if (skinToken.names().contains("UIProfile")) {
-      this.uiProfile = skinToken.get("UIProfile").asInt();
+   * decodes the identity fields of the given chain token.
+   *
+   * @param chain the chain to decode.
+   */
+  private void decodeChain(@NotNull final String chain) {
+    final var reader = TokenReader.of(chain);
+    reader.beginObject();
+    while (reader.hasNext()) {
+      final var name = reader.nextName();
+      if (name.equals(SimpleChainData.IDENTITY_PUBLIC_KEY)) {
+        this.publicKey = reader.nextString();
+        continue;
+      }
+      if (!name.equals("extraData")) {
+        reader.skipValue();
+        continue;
+      }
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "displayName":
+            this.username = reader.nextString();
+            break;
+          case "identity":
+            this.uniqueId = UUID.fromString(reader.nextString());
+            break;
+          case "XUID":
+            this.xuid = reader.nextString();
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
     }
-    this.skin = SimpleChainData.getSkin(skinToken);
-  }
-
-  /**
-   * initiates the chain data.
-   */
-  private void initialize() {
-    this.decodeChainData();
-    this.decodeSkinData();
+    reader.endObject();
   }
 }
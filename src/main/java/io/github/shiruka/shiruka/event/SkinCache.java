@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.event;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.github.shiruka.api.geometry.ImageData;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that shares the decoded skin components between the players that use the same skins.
+ * <p>
+ * the components are identified by the hashes of their encoded forms, so a component that is in use already is
+ * neither decoded nor stored again. the components are weakly referenced and dropped after the last player that
+ * uses them is gone.
+ */
+final class SkinCache {
+
+  /**
+   * the hash function to identify components.
+   */
+  private static final HashFunction HASH = Hashing.sha256();
+
+  /**
+   * the decoded images.
+   */
+  private static final Map<HashCode, ImageData> IMAGES = CacheBuilder.newBuilder()
+    .weakValues()
+    .<HashCode, ImageData>build()
+    .asMap();
+
+  /**
+   * the decoded texts.
+   */
+  private static final Map<HashCode, String> TEXTS = CacheBuilder.newBuilder()
+    .weakValues()
+    .<HashCode, String>build()
+    .asMap();
+
+  /**
+   * ctor.
+   */
+  private SkinCache() {
+  }
+
+  /**
+   * obtains the decoded image of the given base64 data.
+   *
+   * @param base64 the raw base64 data to decode.
+   * @param width the width of the image, -1 if it's not known.
+   * @param height the height of the image, -1 if it's not known.
+   *
+   * @return a shared image data instance.
+   */
+  @NotNull
+  static ImageData image(@NotNull final ByteBuffer base64, final int width, final int height) {
+    final var key = SkinCache.HASH.newHasher()
+      .putBytes(base64.duplicate())
+      .putInt(width)
+      .putInt(height)
+      .hash();
+    return SkinCache.IMAGES.computeIfAbsent(key, hash -> {
+      final var data = SkinCache.decode(base64);
+      return width == -1 || height == -1 ? ImageData.of(data) : ImageData.of(width, height, data);
+    });
+  }
+
+  /**
+   * obtains the decoded text of the given base64 data.
+   *
+   * @param base64 the raw base64 data to decode.
+   *
+   * @return a shared string instance.
+   */
+  @NotNull
+  static String text(@NotNull final ByteBuffer base64) {
+    final var key = SkinCache.HASH.hashBytes(base64.duplicate());
+    return SkinCache.TEXTS.computeIfAbsent(key, hash ->
+      new String(SkinCache.decode(base64), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * decodes the given base64 data.
+   *
+   * @param base64 the base64 data to decode.
+   *
+   * @return decoded bytes.
+   */
+  @NotNull
+  private static byte[] decode(@NotNull final ByteBuffer base64) {
+    final var decoded = Base64.getDecoder().decode(base64.duplicate());
+    final var bytes = new byte[decoded.remaining()];
+    decoded.get(bytes);
+    return bytes;
+  }
+}
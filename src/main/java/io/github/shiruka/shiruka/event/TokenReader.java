@@ -0,0 +1,394 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.event;
+
+import com.google.common.base.Preconditions;
+import io.netty.util.AsciiString;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that reads the json payload of a login token field by field.
+ * <p>
+ * the payload is decoded once into a byte array and the reader walks over it without building a tree, so the fields
+ * that are not needed are skipped without creating any object. the large string values can be obtained as views of the
+ * raw payload bytes with {@link #nextBytes()} instead of as strings.
+ */
+final class TokenReader {
+
+  /**
+   * the decoded payload.
+   */
+  @NotNull
+  private final byte[] data;
+
+  /**
+   * the current position.
+   */
+  private int position;
+
+  /**
+   * ctor.
+   *
+   * @param data the decoded payload.
+   */
+  private TokenReader(@NotNull final byte[] data) {
+    this.data = data;
+  }
+
+  /**
+   * creates a new reader for the payload of the given token.
+   *
+   * @param token the token to create.
+   *
+   * @return a new token reader instance.
+   *
+   * @throws IllegalArgumentException if the token is not valid.
+   */
+  @NotNull
+  static TokenReader of(@NotNull final CharSequence token) {
+    final var ascii = token instanceof AsciiString
+      ? (AsciiString) token
+      : new AsciiString(token);
+    final var bytes = ascii.array();
+    final var offset = ascii.arrayOffset();
+    final var end = offset + ascii.length();
+    var start = -1;
+    var finish = -1;
+    for (var index = offset; index < end; index++) {
+      if (bytes[index] != '.') {
+        continue;
+      }
+      if (start == -1) {
+        start = index + 1;
+      } else {
+        finish = index;
+        break;
+      }
+    }
+    Preconditions.checkArgument(start != -1, "Invalid token length");
+    if (finish == -1) {
+      finish = end;
+    }
+    final var decoded = Base64.getDecoder().decode(ByteBuffer.wrap(bytes, start, finish - start));
+    final var data = new byte[decoded.remaining()];
+    decoded.get(data);
+    return new TokenReader(data);
+  }
+
+  /**
+   * consumes the beginning of an array.
+   */
+  void beginArray() {
+    this.consume('[');
+  }
+
+  /**
+   * consumes the beginning of an object.
+   */
+  void beginObject() {
+    this.consume('{');
+  }
+
+  /**
+   * consumes the end of an array.
+   */
+  void endArray() {
+    this.consume(']');
+  }
+
+  /**
+   * consumes the end of an object.
+   */
+  void endObject() {
+    this.consume('}');
+  }
+
+  /**
+   * checks if the current array or object has more elements.
+   *
+   * @return {@code true} if there is a next element.
+   */
+  boolean hasNext() {
+    var next = this.peek();
+    if (next == ',') {
+      this.position++;
+      next = this.peek();
+    }
+    return next != ']' && next != '}';
+  }
+
+  /**
+   * reads the next boolean value.
+   *
+   * @return the next boolean.
+   */
+  boolean nextBoolean() {
+    final var literal = this.nextLiteral();
+    if (literal.equals("true")) {
+      return true;
+    }
+    Preconditions.checkArgument(literal.equals("false"), "Expected a boolean but was %s", literal);
+    return false;
+  }
+
+  /**
+   * reads the next string value as a view of the payload without decoding it.
+   * <p>
+   * the returned buffer must not be modified.
+   *
+   * @return the raw bytes of the next string.
+   */
+  @NotNull
+  ByteBuffer nextBytes() {
+    this.consume('"');
+    final var start = this.position;
+    final var end = this.stringEnd();
+    if (end != -1) {
+      this.position = end + 1;
+      return ByteBuffer.wrap(this.data, start, end - start).slice();
+    }
+    this.position = start - 1;
+    return ByteBuffer.wrap(this.nextString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * reads the next float value.
+   *
+   * @return the next float.
+   */
+  float nextFloat() {
+    return Float.parseFloat(this.nextLiteral());
+  }
+
+  /**
+   * reads the next int value.
+   *
+   * @return the next int.
+   */
+  int nextInt() {
+    return Integer.parseInt(this.nextLiteral());
+  }
+
+  /**
+   * reads the next long value.
+   *
+   * @return the next long.
+   */
+  long nextLong() {
+    return Long.parseLong(this.nextLiteral());
+  }
+
+  /**
+   * reads the next name of the current object.
+   *
+   * @return the next name.
+   */
+  @NotNull
+  String nextName() {
+    final var name = this.nextString();
+    this.consume(':');
+    return name;
+  }
+
+  /**
+   * reads the next string value.
+   *
+   * @return the next string.
+   */
+  @NotNull
+  String nextString() {
+    this.consume('"');
+    final var start = this.position;
+    final var end = this.stringEnd();
+    if (end != -1) {
+      this.position = end + 1;
+      return new String(this.data, start, end - start, StandardCharsets.UTF_8);
+    }
+    final var builder = new StringBuilder();
+    var segment = start;
+    while (true) {
+      final var current = this.read();
+      if (current == '"') {
+        builder.append(new String(this.data, segment, this.position - 1 - segment, StandardCharsets.UTF_8));
+        return builder.toString();
+      }
+      if (current != '\\') {
+        continue;
+      }
+      builder.append(new String(this.data, segment, this.position - 1 - segment, StandardCharsets.UTF_8));
+      final var escaped = this.read();
+      switch (escaped) {
+        case 'b':
+          builder.append('\b');
+          break;
+        case 'f':
+          builder.append('\f');
+          break;
+        case 'n':
+          builder.append('\n');
+          break;
+        case 'r':
+          builder.append('\r');
+          break;
+        case 't':
+          builder.append('\t');
+          break;
+        case 'u':
+          Preconditions.checkArgument(this.position + 4 <= this.data.length, "Unterminated escape");
+          builder.append((char) Integer.parseInt(
+            new String(this.data, this.position, 4, StandardCharsets.US_ASCII), 16));
+          this.position += 4;
+          break;
+        default:
+          builder.append((char) escaped);
+      }
+      segment = this.position;
+    }
+  }
+
+  /**
+   * skips the next value including its children.
+   */
+  void skipValue() {
+    var depth = 0;
+    do {
+      final var next = this.peek();
+      switch (next) {
+        case '{':
+        case '[':
+          this.position++;
+          depth++;
+          break;
+        case '}':
+        case ']':
+          this.position++;
+          depth--;
+          break;
+        case ',':
+        case ':':
+          this.position++;
+          break;
+        case '"':
+          this.skipString();
+          break;
+        default:
+          this.nextLiteral();
+      }
+    } while (depth > 0);
+  }
+
+  /**
+   * consumes the given character.
+   *
+   * @param expected the expected character.
+   */
+  private void consume(final char expected) {
+    final var next = this.peek();
+    Preconditions.checkArgument(next == expected, "Expected %s but was %s at %s",
+      expected, (char) next, this.position);
+    this.position++;
+  }
+
+  /**
+   * reads the next number or literal as a string.
+   *
+   * @return the next literal.
+   */
+  @NotNull
+  private String nextLiteral() {
+    this.peek();
+    final var start = this.position;
+    while (this.position < this.data.length) {
+      final var current = this.data[this.position];
+      if (current == ',' || current == '}' || current == ']' || current <= ' ') {
+        break;
+      }
+      this.position++;
+    }
+    Preconditions.checkArgument(this.position > start, "Expected a value at %s", start);
+    return new String(this.data, start, this.position - start, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * skips the whitespaces and returns the next character without consuming it.
+   *
+   * @return the next character.
+   */
+  private int peek() {
+    while (this.position < this.data.length && this.data[this.position] <= ' ') {
+      this.position++;
+    }
+    Preconditions.checkArgument(this.position < this.data.length, "Unexpected end of the token");
+    return this.data[this.position];
+  }
+
+  /**
+   * reads the next byte.
+   *
+   * @return the next byte.
+   */
+  private int read() {
+    Preconditions.checkArgument(this.position < this.data.length, "Unterminated string");
+    return this.data[this.position++];
+  }
+
+  /**
+   * skips the current string whose opening quote is the next character.
+   */
+  private void skipString() {
+    this.position++;
+    while (true) {
+      final var current = this.read();
+      if (current == '"') {
+        return;
+      }
+      if (current == '\\') {
+        this.read();
+      }
+    }
+  }
+
+  /**
+   * finds the closing quote of the current string.
+   *
+   * @return the index of the closing quote or -1 if the string contains escapes.
+   */
+  private int stringEnd() {
+    for (var index = this.position; index < this.data.length; index++) {
+      final var current = this.data[index];
+      if (current == '"') {
+        return index;
+      }
+      if (current == '\\') {
+        return -1;
+      }
+    }
+    throw new IllegalArgumentException("Unterminated string");
+  }
+}
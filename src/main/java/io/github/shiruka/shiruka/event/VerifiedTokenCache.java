@@ -0,0 +1,192 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.event;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.nimbusds.jose.JWSVerifier;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that keeps the chain tokens which are verified already with the public keys that they certify.
+ * <p>
+ * the intermediate tokens of the Xbox Live chains are the same for all the players, so the signatures of them are
+ * verified once and the later logins only verify their own tokens. the tokens are identified by their sha-256 hashes
+ * and evicted in the least recently used order.
+ */
+final class VerifiedTokenCache {
+
+  /**
+   * the hash function to identify tokens.
+   */
+  private static final HashFunction HASH = Hashing.sha256();
+
+  /**
+   * the maximum token count.
+   */
+  private final int capacity;
+
+  /**
+   * the tokens in access order.
+   */
+  private final LinkedHashMap<HashCode, Token> tokens;
+
+  /**
+   * ctor.
+   *
+   * @param capacity the maximum token count.
+   */
+  VerifiedTokenCache(final int capacity) {
+    this.capacity = capacity;
+    this.tokens = new LinkedHashMap<>(16, 0.75F, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<HashCode, Token> eldest) {
+        return this.size() > VerifiedTokenCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * creates the id of the given token.
+   *
+   * @param token the token to hash.
+   *
+   * @return the token id.
+   */
+  @NotNull
+  static HashCode hash(@NotNull final String token) {
+    return VerifiedTokenCache.HASH.hashString(token, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * obtains the verified token that is signed by the given key.
+   *
+   * @param id the id to get.
+   * @param signer the key of the previous token in the chain, null for the first token.
+   *
+   * @return the verified token or {@code null} if the token is not verified with the given signer.
+   */
+  @Nullable
+  synchronized Token get(@NotNull final HashCode id, @Nullable final PublicKey signer) {
+    final var token = this.tokens.get(id);
+    if (token == null || !Objects.equals(token.signer, signer)) {
+      return null;
+    }
+    return token;
+  }
+
+  /**
+   * puts the given verified token unless the id is cached already, the least recently used token is evicted when the
+   * cache is full.
+   *
+   * @param id the id to put.
+   * @param token the token to put.
+   */
+  synchronized void put(@NotNull final HashCode id, @NotNull final Token token) {
+    this.tokens.putIfAbsent(id, token);
+  }
+
+  /**
+   * a class that represents the verified tokens.
+   */
+  static final class Token {
+
+    /**
+     * the public key that the token certifies.
+     */
+    @NotNull
+    private final PublicKey key;
+
+    /**
+     * if the token is signed by the Mojang key.
+     */
+    private final boolean mojangSigned;
+
+    /**
+     * the key that verified the token, null for the first token.
+     */
+    @Nullable
+    private final PublicKey signer;
+
+    /**
+     * the verifier of the certified key.
+     */
+    @NotNull
+    private final JWSVerifier verifier;
+
+    /**
+     * ctor.
+     *
+     * @param key the key.
+     * @param mojangSigned the mojang signed.
+     * @param signer the signer.
+     * @param verifier the verifier.
+     */
+    Token(@NotNull final PublicKey key, final boolean mojangSigned, @Nullable final PublicKey signer,
+          @NotNull final JWSVerifier verifier) {
+      this.key = key;
+      this.mojangSigned = mojangSigned;
+      this.signer = signer;
+      this.verifier = verifier;
+    }
+
+    /**
+     * obtains the key.
+     *
+     * @return key.
+     */
+    @NotNull
+    PublicKey getKey() {
+      return this.key;
+    }
+
+    /**
+     * obtains the verifier.
+     *
+     * @return verifier.
+     */
+    @NotNull
+    JWSVerifier getVerifier() {
+      return this.verifier;
+    }
+
+    /**
+     * checks if the token is signed by the Mojang key.
+     *
+     * @return {@code true} if the token is signed by the Mojang key.
+     */
+    boolean isMojangSigned() {
+      return this.mojangSigned;
+    }
+  }
+}
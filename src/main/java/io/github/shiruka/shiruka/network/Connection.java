@@ -25,6 +25,7 @@
 package io.github.shiruka.shiruka.network;
 
 import io.github.shiruka.shiruka.network.packet.PacketOut;
+import io.github.shiruka.shiruka.network.packet.PreparedBatch;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
@@ -183,6 +184,13 @@ public interface Connection<S extends Socket> extends AutoCloseable {
   @NotNull
   EventLoop getEventLoop();
 
+  /**
+   * obtains the average fragment count of the payloads that have to be split to fit in the mtu.
+   *
+   * @return fragments per split payload.
+   */
+  double getFragmentsPerSplit();
+
   /**
    * obtains the latest ping time of the connection.
    *
@@ -227,6 +235,13 @@ public interface Connection<S extends Socket> extends AutoCloseable {
    */
   short getProtocolVersion();
 
+  /**
+   * obtains the byte count of the packets that wait for the congestion window.
+   *
+   * @return queued bytes.
+   */
+  long getQueuedBytes();
+
   /**
    * obtains the reliability read index.
    *
@@ -235,6 +250,34 @@ public interface Connection<S extends Socket> extends AutoCloseable {
   @NotNull
   AtomicInteger getReliabilityReadIndex();
 
+  /**
+   * obtains the send queue budget.
+   *
+   * @return the byte budget of the send queue.
+   */
+  int getSendQueueBudget();
+
+  /**
+   * sets the send queue budget.
+   *
+   * @param sendQueueBudget the send queue budget to set.
+   */
+  void setSendQueueBudget(int sendQueueBudget);
+
+  /**
+   * obtains the send queue eviction time.
+   *
+   * @return the time in milliseconds that the connection can stay over the budget.
+   */
+  long getSendQueueEvictionTime();
+
+  /**
+   * sets the send queue eviction time.
+   *
+   * @param sendQueueEvictionTime the send queue eviction time to set.
+   */
+  void setSendQueueEvictionTime(long sendQueueEvictionTime);
+
   /**
    * obtains connection's socket.
    *
@@ -243,6 +286,13 @@ public interface Connection<S extends Socket> extends AutoCloseable {
   @NotNull
   S getSocket();
 
+  /**
+   * obtains the ratio of the payloads that have to be split to fit in the mtu.
+   *
+   * @return split rate between 0 and 1.
+   */
+  double getSplitRate();
+
   /**
    * obtains connection's state.
    *
@@ -284,6 +334,22 @@ public interface Connection<S extends Socket> extends AutoCloseable {
    */
   boolean isClosed();
 
+  /**
+   * checks if the queued bytes are low enough to send more packets.
+   * <p>
+   * the connection becomes unwritable at the half of the send queue budget and writable again at the quarter of it.
+   *
+   * @return {@code true} if the connection is writable.
+   */
+  boolean isWritable();
+
+  /**
+   * runs after a read batch of the channel that contained datagrams of the connection.
+   *
+   * @param now the current time to handle the batch.
+   */
+  void onReadComplete(long now);
+
   /**
    * runs every tick.
    *
@@ -357,6 +423,27 @@ public interface Connection<S extends Socket> extends AutoCloseable {
     this.getChannel().writeAndFlush(new DatagramPacket(packet, this.getAddress()));
   }
 
+  /**
+   * sends the given prepared batch after the packets that are queued before it.
+   * <p>
+   * the batch is retained before this method returns, so the caller can release it right after.
+   *
+   * @param batch the batch to send.
+   */
+  default void sendPrepared(@NotNull final PreparedBatch batch) {
+    this.sendPrepared(batch, PacketPriority.MEDIUM);
+  }
+
+  /**
+   * sends the given prepared batch after the packets that are queued before it.
+   * <p>
+   * the batch is retained before this method returns, so the caller can release it right after.
+   *
+   * @param batch the batch to send.
+   * @param priority the priority to send.
+   */
+  void sendPrepared(@NotNull PreparedBatch batch, @NotNull PacketPriority priority);
+
   /**
    * touches when a packet receive.
    */
@@ -33,7 +33,7 @@ import io.netty.util.internal.PlatformDependent;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.locks.Lock;
@@ -66,9 +66,10 @@ public final class ConnectionCache {
   private Queue<IntRange> incomingNACKs;
 
   /**
-   * the order read index.
+   * the path mtu discovery.
    */
-  private int[] orderReadIndex;
+  @Nullable
+  private NetMtuDiscovery mtuDiscovery;
 
   /**
    * the order write index.
@@ -77,10 +78,10 @@ public final class ConnectionCache {
   private AtomicIntegerArray orderWriteIndex;
 
   /**
-   * the ordering heaps.
+   * the ordering channels, allocated on first use.
    */
   @Nullable
-  private FastBinaryMinHeap<EncapsulatedPacket>[] orderingHeaps;
+  private NetReorderRing[] orderingChannels;
 
   /**
    * the ordering lock.
@@ -129,11 +130,19 @@ public final class ConnectionCache {
   @Nullable
   private BitQueue reliableDatagramQueue;
 
+  /**
+   * the retransmission deadlines of the sent datagram packets.
+   * <p>
+   * the entries are removed lazily, so a datagram that was ACKed or resent stays until its old deadline.
+   */
+  @Nullable
+  private FastBinaryMinHeap<NetDatagramPacket> retransmissionQueue;
+
   /**
    * the sent datagram packets.
    */
   @Nullable
-  private ConcurrentMap<Integer, NetDatagramPacket> sentDatagrams;
+  private ConcurrentNavigableMap<Integer, NetDatagramPacket> sentDatagrams;
 
   /**
    * ACK and NACK processor.
@@ -142,7 +151,7 @@ public final class ConnectionCache {
   private NetSlidingWindow slidingWindow;
 
   /**
-   * the split packets.
+   * the split packets, allocated on first use.
    */
   @Nullable
   private RoundRobinArray<SplitPacketHelper> splitPackets;
@@ -156,6 +165,50 @@ public final class ConnectionCache {
     this.connection = connection;
   }
 
+  /**
+   * estimates the retained bytes of the connection's buffers.
+   * <p>
+   * the estimate counts the structures that scale with the traffic of the connection, the ordering channels, split
+   * packets, outgoing and retransmission heaps and the reliable datagram queue.
+   *
+   * @return estimated footprint in bytes.
+   */
+  public long estimateFootprint() {
+    var footprint = 0L;
+    final var channels = this.orderingChannels;
+    if (channels != null) {
+      footprint += 16L + channels.length * 4L;
+      for (final var channel : channels) {
+        if (channel != null) {
+          footprint += channel.estimateFootprint();
+        }
+      }
+    }
+    if (this.splitPackets != null) {
+      footprint += 32L + this.splitPackets.capacity() * 4L;
+    }
+    if (this.outgoingPackets != null) {
+      footprint += 48L + this.outgoingPackets.capacity() * 12L;
+    }
+    if (this.retransmissionQueue != null) {
+      footprint += 48L + this.retransmissionQueue.capacity() * 12L;
+    }
+    if (this.reliableDatagramQueue != null) {
+      footprint += 32L + (this.reliableDatagramQueue.capacity() >> 3);
+    }
+    return footprint;
+  }
+
+  /**
+   * obtains the path mtu discovery.
+   *
+   * @return the path mtu discovery {@link NetMtuDiscovery}.
+   */
+  @NotNull
+  public NetMtuDiscovery getMtuDiscovery() {
+    return Objects.requireNonNull(this.mtuDiscovery, "mtu discovery");
+  }
+
   /**
    * obtains order read index.
    *
@@ -164,19 +217,26 @@ public final class ConnectionCache {
    * @return the order read index.
    */
   public int getOrderReadIndex(final int index) {
-    return this.orderReadIndex[index];
+    final var channel = Objects.requireNonNull(this.orderingChannels, "ordering channels")[index];
+    return channel == null ? 0 : channel.getReadIndex();
   }
 
   /**
-   * obtains ordering heap.
+   * obtains the ordering channel and allocates it on first use.
    *
    * @param index the index to get
    *
-   * @return a binary heap {@link FastBinaryMinHeap}.
+   * @return a reorder ring {@link NetReorderRing}.
    */
   @NotNull
-  public FastBinaryMinHeap<EncapsulatedPacket> getOrderingHeap(final int index) {
-    return Objects.requireNonNull(this.orderingHeaps[index], "ordering heaps");
+  public NetReorderRing getOrderingChannel(final int index) {
+    final var channels = Objects.requireNonNull(this.orderingChannels, "ordering channels");
+    var channel = channels[index];
+    if (channel == null) {
+      channel = new NetReorderRing(Constants.ORDERING_WINDOW_SIZE);
+      channels[index] = channel;
+    }
+    return channel;
   }
 
   /**
@@ -226,7 +286,10 @@ public final class ConnectionCache {
    */
   @NotNull
   public RoundRobinArray<SplitPacketHelper> getSplitPackets() {
-    return Objects.requireNonNull(this.splitPackets, "split packets");
+    if (this.splitPackets == null) {
+      this.splitPackets = new RoundRobinArray<>(256);
+    }
+    return this.splitPackets;
   }
 
   /**
@@ -235,7 +298,7 @@ public final class ConnectionCache {
    * @param index the index to increase.
    */
   public void increaseOrderReadIndex(final int index) {
-    this.orderReadIndex[index]++;
+    this.getOrderingChannel(index).increaseReadIndex();
   }
 
   /**
@@ -335,13 +398,23 @@ public final class ConnectionCache {
     return Objects.requireNonNull(this.outgoingPackets, "outgoing packets");
   }
 
+  /**
+   * obtains the retransmission queue.
+   *
+   * @return the retransmission deadlines of the sent datagrams.
+   */
+  @NotNull
+  FastBinaryMinHeap<NetDatagramPacket> getRetransmissionQueue() {
+    return Objects.requireNonNull(this.retransmissionQueue, "retransmission queue");
+  }
+
   /**
    * obtains the sent datagram packets..
    *
    * @return the sent datagrams.
    */
   @NotNull
-  ConcurrentMap<Integer, NetDatagramPacket> getSentDatagrams() {
+  ConcurrentNavigableMap<Integer, NetDatagramPacket> getSentDatagrams() {
     return Objects.requireNonNull(this.sentDatagrams, "sent datagrams");
   }
 
@@ -360,18 +433,15 @@ public final class ConnectionCache {
     Preconditions.checkState(this.connection.getState() == ConnectionState.INITIALIZING,
       "Connection's state must be initializing!");
     this.slidingWindow = new NetSlidingWindow(this.connection.getMtu());
+    this.mtuDiscovery = new NetMtuDiscovery(this.connection.getMtu(),
+      this.connection.getMtu() - this.connection.getAdjustedMtu());
     this.reliableDatagramQueue = new BitQueue(512);
     this.reliabilityReadLock = new ReentrantLock(true);
-    this.orderReadIndex = new int[Constants.MAXIMUM_ORDERING_CHANNELS];
     this.orderWriteIndex = new AtomicIntegerArray(Constants.MAXIMUM_ORDERING_CHANNELS);
-    //noinspection unchecked
-    this.orderingHeaps = new FastBinaryMinHeap[Constants.MAXIMUM_ORDERING_CHANNELS];
+    this.orderingChannels = new NetReorderRing[Constants.MAXIMUM_ORDERING_CHANNELS];
     this.orderingLock = new ReentrantLock(true);
-    this.splitPackets = new RoundRobinArray<>(256);
     this.sentDatagrams = new ConcurrentSkipListMap<>();
-    for (int i = 0; i < Constants.MAXIMUM_ORDERING_CHANNELS; i++) {
-      this.orderingHeaps[i] = new FastBinaryMinHeap<>(64);
-    }
+    this.retransmissionQueue = new FastBinaryMinHeap<>(64);
     this.outgoingLock = new ReentrantLock(true);
     this.outgoingPackets = new FastBinaryMinHeap<>(8);
     this.incomingACKs = PlatformDependent.newMpscQueue();
@@ -449,16 +519,20 @@ public final class ConnectionCache {
       split.forEach(ReferenceCountUtil::release));
     Optional.ofNullable(this.sentDatagrams).ifPresent(sent ->
       sent.values().forEach(ReferenceCountUtil::release));
+    Optional.ofNullable(this.retransmissionQueue).ifPresent(queue -> {
+      while (!queue.isEmpty()) {
+        queue.remove();
+      }
+    });
     Optional.ofNullable(this.orderingLock).ifPresent(lock -> {
       lock.lock();
       try {
-        final var heaps = this.orderingHeaps;
-        this.orderingHeaps = null;
-        if (heaps != null) {
-          for (final var orderingHeap : heaps) {
-            EncapsulatedPacket packet;
-            while ((packet = orderingHeap.poll()) != null) {
-              packet.release();
+        final var channels = this.orderingChannels;
+        this.orderingChannels = null;
+        if (channels != null) {
+          for (final var channel : channels) {
+            if (channel != null) {
+              channel.release();
             }
           }
         }
@@ -62,4 +62,13 @@ public interface ConnectionListener {
    * @param state the state to change.
    */
   void onStateChanged(@NotNull ConnectionState old, @NotNull ConnectionState state);
+
+  /**
+   * runs when the connection's writability changes.
+   * <p>
+   * it may run on the thread that queued the packet, not only on the event loop.
+   *
+   * @param writable the new writability of the connection.
+   */
+  void onWritabilityChanged(boolean writable);
 }
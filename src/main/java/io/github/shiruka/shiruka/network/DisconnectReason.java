@@ -71,7 +71,11 @@ public enum DisconnectReason {
   /**
    * the bad packet.
    */
-  BAD_PACKET;
+  BAD_PACKET,
+  /**
+   * the send queue overflow.
+   */
+  SEND_QUEUE_OVERFLOW;
 
   /**
    * the message.
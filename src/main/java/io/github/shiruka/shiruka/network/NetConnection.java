@@ -31,6 +31,7 @@ import io.github.shiruka.shiruka.network.objects.IntRange;
 import io.github.shiruka.shiruka.network.objects.NetDatagramPacket;
 import io.github.shiruka.shiruka.network.packet.NoEncryption;
 import io.github.shiruka.shiruka.network.packet.PacketOut;
+import io.github.shiruka.shiruka.network.packet.PreparedBatch;
 import io.github.shiruka.shiruka.network.protocol.Protocol;
 import io.github.shiruka.shiruka.network.util.Constants;
 import io.github.shiruka.shiruka.network.util.Misc;
@@ -48,6 +49,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -155,6 +157,11 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
    */
   private final short protocolVersion;
 
+  /**
+   * the byte count of the packets in the outgoing heap.
+   */
+  private final AtomicLong queuedBytes = new AtomicLong();
+
   /**
    * the queued packets.
    */
@@ -191,6 +198,17 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
    */
   private final AtomicInteger unACKedBytes = new AtomicInteger();
 
+  /**
+   * the writability of the connection.
+   */
+  private final AtomicBoolean writable = new AtomicBoolean(true);
+
+  /**
+   * the write aggregator of the channel.
+   */
+  @NotNull
+  private final NetWriteAggregator writeAggregator;
+
   /**
    * connection's adjusted mtu size.
    */
@@ -212,6 +230,21 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
    */
   private int mtu;
 
+  /**
+   * the time that the connection went over the send queue budget, -1 if it's under the budget.
+   */
+  private long overBudgetSince = -1L;
+
+  /**
+   * the send queue budget.
+   */
+  private volatile int sendQueueBudget = Constants.SEND_QUEUE_BUDGET;
+
+  /**
+   * the send queue eviction time.
+   */
+  private long sendQueueEvictionTime = Constants.SEND_QUEUE_EVICTION_MS;
+
   /**
    * connection's unique id a.k.a. guid.
    */
@@ -238,6 +271,7 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     this.protocolVersion = protocolVersion;
     this.channel = ctx.channel();
     this.eventLoop = this.channel.eventLoop();
+    this.writeAggregator = NetWriteAggregator.of(this.channel);
     this.cache = new ConnectionCache(this);
   }
 
@@ -349,6 +383,14 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     return this.eventLoop;
   }
 
+  @Override
+  public final double getFragmentsPerSplit() {
+    if (this.getState().ordinal() < ConnectionState.INITIALIZED.ordinal()) {
+      return 0.0D;
+    }
+    return this.getCache().getMtuDiscovery().getFragmentsPerSplit();
+  }
+
   @NotNull
   @Override
   public final AtomicLong getLastPingTime() {
@@ -371,7 +413,7 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     if (mtu < Constants.MINIMUM_MTU_SIZE) {
       this.mtu = Constants.MINIMUM_MTU_SIZE;
     } else {
-      this.mtu = Math.max(mtu, Constants.MAXIMUM_MTU_SIZE);
+      this.mtu = Math.min(mtu, Constants.MAXIMUM_MTU_SIZE);
     }
     this.adjustedMtu = this.mtu - Constants.UDP_HEADER_SIZE - Misc.getIpHeader(this.address);
   }
@@ -386,18 +428,52 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     return this.protocolVersion;
   }
 
+  @Override
+  public final long getQueuedBytes() {
+    return this.queuedBytes.get();
+  }
+
   @NotNull
   @Override
   public final AtomicInteger getReliabilityReadIndex() {
     return this.reliabilityReadIndex;
   }
 
+  @Override
+  public final int getSendQueueBudget() {
+    return this.sendQueueBudget;
+  }
+
+  @Override
+  public final void setSendQueueBudget(final int sendQueueBudget) {
+    Preconditions.checkArgument(sendQueueBudget > 0, "Send queue budget must be positive!");
+    this.sendQueueBudget = sendQueueBudget;
+  }
+
+  @Override
+  public final long getSendQueueEvictionTime() {
+    return this.sendQueueEvictionTime;
+  }
+
+  @Override
+  public final void setSendQueueEvictionTime(final long sendQueueEvictionTime) {
+    this.sendQueueEvictionTime = sendQueueEvictionTime;
+  }
+
   @NotNull
   @Override
   public final S getSocket() {
     return this.socket;
   }
 
+  @Override
+  public final double getSplitRate() {
+    if (this.getState().ordinal() < ConnectionState.INITIALIZED.ordinal()) {
+      return 0.0D;
+    }
+    return this.getCache().getMtuDiscovery().getSplitRate();
+  }
+
   @NotNull
   @Override
   public final ConnectionState getState() {
@@ -434,6 +510,19 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     return this.closed.get() == 1;
   }
 
+  @Override
+  public final boolean isWritable() {
+    return this.writable.get();
+  }
+
+  @Override
+  public final void onReadComplete(final long now) {
+    if (this.isClosed() || this.getState().ordinal() < ConnectionState.INITIALIZED.ordinal()) {
+      return;
+    }
+    this.sendAcknowledgements(now);
+  }
+
   @Override
   public final void onTick(final long now) {
     if (this.isClosed()) {
@@ -446,6 +535,7 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
   @Override
   public final void reset() {
     this.cache.reset();
+    this.queuedBytes.set(0L);
   }
 
   @Override
@@ -454,6 +544,11 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     if (this.isClosed() || this.getState().ordinal() < ConnectionState.INITIALIZED.ordinal()) {
       return;
     }
+    if (priority != PacketPriority.IMMEDIATE && !reliability.isReliable() &&
+      this.queuedBytes.get() >= this.sendQueueBudget) {
+      packet.release();
+      return;
+    }
     final var packets = this.createEncapsulated(packet, priority, reliability, orderingChannel);
     if (priority == PacketPriority.IMMEDIATE) {
       this.eventLoop.execute(() -> this.sendImmediate(packets));
@@ -471,11 +566,26 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
       } finally {
         this.getCache().unlockOutgoingLock();
       }
+      var size = 0L;
+      for (final var encapsulated : packets) {
+        size += encapsulated.getSize();
+      }
+      this.updateWritability(this.queuedBytes.addAndGet(size));
     } finally {
       packet.release();
     }
   }
 
+  @Override
+  public final void sendDirect(@NotNull final ByteBuf packet) {
+    this.writeAggregator.write(new DatagramPacket(packet, this.address));
+  }
+
+  @Override
+  public final void sendPrepared(@NotNull final PreparedBatch batch, @NotNull final PacketPriority priority) {
+    this.sendPrepared(batch.getBuffer(), priority);
+  }
+
   @Override
   public final void touch() {
     this.checkForClosed();
@@ -505,6 +615,29 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     this.compressionLevel.set(level);
   }
 
+  /**
+   * updates the writability and disconnects the connection if it stays over the send queue budget too long.
+   *
+   * @param now the time of now to check.
+   */
+  private void checkSendQueue(final long now) {
+    final var queued = this.queuedBytes.get();
+    this.updateWritability(queued);
+    if (queued < this.sendQueueBudget) {
+      this.overBudgetSince = -1L;
+      return;
+    }
+    if (this.overBudgetSince == -1L) {
+      this.overBudgetSince = now;
+      return;
+    }
+    if (now - this.overBudgetSince >= this.sendQueueEvictionTime) {
+      NetConnection.LOGGER.debug("Connection {} stayed over the send queue budget ({} bytes) for {}ms",
+        this.address, queued, now - this.overBudgetSince);
+      this.disconnect(DisconnectReason.SEND_QUEUE_OVERFLOW);
+    }
+  }
+
   /**
    * creates and returns an encapsulated packet from the given packet.
    *
@@ -518,7 +651,8 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
   @NotNull
   private EncapsulatedPacket[] createEncapsulated(@NotNull final ByteBuf packet, @NotNull final PacketPriority priority,
                                                   @NotNull PacketReliability reliability, final int orderingChannel) {
-    final var maxLength = this.adjustedMtu -
+    final var mtuDiscovery = this.getCache().getMtuDiscovery();
+    final var maxLength = mtuDiscovery.getAdjustedMtu() -
       Constants.MAXIMUM_ENCAPSULATED_HEADER_SIZE - Constants.DATAGRAM_HEADER_SIZE;
     final ByteBuf[] buffers;
     var splitId = 0;
@@ -550,6 +684,7 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     } else {
       buffers = new ByteBuf[]{packet.readRetainedSlice(packet.readableBytes())};
     }
+    mtuDiscovery.onPayload(buffers.length);
     var orderingIndex = 0;
     if (reliability.isOrdered()) {
       orderingIndex = this.getCache().getOrderWriteIndex().getAndIncrement(orderingChannel);
@@ -609,6 +744,34 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     return now - this.lastTouched.get() >= this.connectionTimeout;
   }
 
+  /**
+   * sends the outgoing NACKs and, if the sliding window allows, the outgoing ACKs.
+   *
+   * @param now the time of now to send.
+   */
+  private void sendAcknowledgements(final long now) {
+    final var temp = this.getCache();
+    final var mtuSize = this.adjustedMtu - Constants.DATAGRAM_HEADER_SIZE;
+    final var outgoingNACKs = temp.getOutgoingNACKs();
+    while (!outgoingNACKs.isEmpty()) {
+      final var buffer = this.allocateBuffer(mtuSize);
+      buffer.writeByte(Constants.FLAG_VALID | Constants.FLAG_NACK);
+      Misc.writeIntRanges(buffer, outgoingNACKs, mtuSize - 1);
+      this.sendDirect(buffer);
+    }
+    final var slidingWindow = temp.getSlidingWindow();
+    if (slidingWindow.shouldSendACKs(now)) {
+      final var outgoingACKs = temp.getOutgoingACKs();
+      while (!outgoingACKs.isEmpty()) {
+        final var buffer = this.allocateBuffer(mtuSize);
+        buffer.writeByte(Constants.FLAG_VALID | Constants.FLAG_ACK);
+        Misc.writeIntRanges(buffer, outgoingACKs, mtuSize - 1);
+        this.sendDirect(buffer);
+        slidingWindow.onSendACK();
+      }
+    }
+  }
+
   /**
    * sends the net datagram packet to the connection.
    *
@@ -630,6 +793,7 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
             this.getCache().removeSentDatagrams(oldIndex, packet);
           }
           this.getCache().putSentDatagrams(packet.getSequenceIndex(), packet.retain());
+          this.getCache().getRetransmissionQueue().insert(packet.getNextSend(), packet);
           break;
         }
       }
@@ -637,7 +801,7 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
       Preconditions.checkState(buf.writerIndex() < this.adjustedMtu,
         "Packet length was %s but expected %s", buf.writerIndex(), this.adjustedMtu);
       packet.encode(buf);
-      this.channel.write(new DatagramPacket(buf, this.address));
+      this.writeAggregator.write(new DatagramPacket(buf, this.address));
     } finally {
       packet.release();
     }
@@ -649,6 +813,12 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
    * @param packets the packets to send.
    */
   private void sendImmediate(@NotNull final EncapsulatedPacket[] packets) {
+    if (this.isClosed()) {
+      for (final var packet : packets) {
+        packet.release();
+      }
+      return;
+    }
     final var now = System.currentTimeMillis();
     for (final var packet : packets) {
       final var datagram = new NetDatagramPacket(now);
@@ -656,7 +826,52 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
         "Packet too large to fit in MTU (size: %s, MTU: %s)", packet.getSize(), this.adjustedMtu);
       this.sendDatagram(datagram, now);
     }
-    this.channel.flush();
+  }
+
+  /**
+   * sends a padded datagram to probe the next path mtu size.
+   *
+   * @param now the time of now to send.
+   */
+  private void sendMtuProbe(final long now) {
+    final var mtuDiscovery = this.getCache().getMtuDiscovery();
+    final var probeSize = mtuDiscovery.startProbe(now);
+    if (probeSize == -1) {
+      return;
+    }
+    final var payloadSize = probeSize - this.mtu + this.adjustedMtu - Constants.DATAGRAM_HEADER_SIZE * 2 -
+      PacketReliability.UNRELIABLE.getSize() - 3;
+    final var payload = this.allocateBuffer(payloadSize);
+    payload.writeByte(Packets.DETECT_LOST_CONNECTION);
+    payload.writeZero(payloadSize - 1);
+    final var encapsulatedPacket = new EncapsulatedPacket();
+    encapsulatedPacket.setBuffer(payload);
+    encapsulatedPacket.setReliability(PacketReliability.UNRELIABLE);
+    encapsulatedPacket.setPriority(PacketPriority.IMMEDIATE);
+    final var datagram = new NetDatagramPacket(now);
+    Preconditions.checkState(datagram.tryAddPacket(encapsulatedPacket, this.adjustedMtu),
+      "MTU probe is bigger than the negotiated MTU (size: %s, MTU: %s)", probeSize, this.mtu);
+    mtuDiscovery.onProbeSent(this.datagramWriteIndex.get(), now);
+    this.sendDatagram(datagram, now);
+  }
+
+  /**
+   * sends the given framed batch after the queued packets in the event loop.
+   *
+   * @param batch the batch to send.
+   * @param priority the priority to send.
+   */
+  private void sendPrepared(@NotNull final ByteBuf batch, @NotNull final PacketPriority priority) {
+    if (!this.eventLoop.inEventLoop()) {
+      this.eventLoop.execute(() -> this.sendPrepared(batch, priority));
+      return;
+    }
+    if (this.isClosed()) {
+      batch.release();
+      return;
+    }
+    this.sendQueued();
+    this.sendDecent(batch, priority);
   }
 
   /**
@@ -732,15 +947,20 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     }
     final var temp = this.getCache();
     final var slidingWindow = temp.getSlidingWindow();
+    final var mtuDiscovery = temp.getMtuDiscovery();
     final var incomingACKs = temp.getIncomingACKs();
+    var highestACKed = -1;
     if (!incomingACKs.isEmpty()) {
       IntRange range;
       while ((range = incomingACKs.poll()) != null) {
         for (int i = range.getMinimum(); i <= range.getMaximum(); i++) {
           final var datagram = temp.removeSentDatagrams(i);
           if (datagram == null) {
+            mtuDiscovery.onACK(i, -1, now);
             continue;
           }
+          mtuDiscovery.onACK(i, datagram.getSize(), now);
+          highestACKed = Math.max(highestACKed, i);
           datagram.release();
           this.unACKedBytes.addAndGet(-datagram.getSize());
           slidingWindow.onACK(now - datagram.getTime(), datagram.getSequenceIndex(), this.datagramReadIndex.get());
@@ -753,62 +973,75 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
       IntRange range;
       while ((range = incomingNACKs.poll()) != null) {
         for (int i = range.getMinimum(); i <= range.getMaximum(); i++) {
+          mtuDiscovery.onNACK(i, now);
           final var datagram = temp.removeSentDatagrams(i);
           if (datagram == null) {
             continue;
           }
           NetConnection.LOGGER.error("NACKed datagram {} from {}", datagram.getSequenceIndex(), this.address);
+          mtuDiscovery.onDatagramLost(datagram.getSize(), now);
           this.sendDatagram(datagram, now);
         }
       }
     }
-    final var mtuSize = this.adjustedMtu - Constants.DATAGRAM_HEADER_SIZE;
-    final var outgoingNACKs = temp.getOutgoingNACKs();
-    while (!outgoingNACKs.isEmpty()) {
-      final var buffer = this.allocateBuffer(mtuSize);
-      buffer.writeByte(Constants.FLAG_VALID | Constants.FLAG_NACK);
-      Misc.writeIntRanges(buffer, outgoingNACKs, mtuSize - 1);
-      this.sendDirect(buffer);
-    }
-    if (slidingWindow.shouldSendACKs(now)) {
-      final var outgoingACKs = temp.getOutgoingACKs();
-      while (!outgoingACKs.isEmpty()) {
-        final var buffer = this.allocateBuffer(mtuSize);
-        buffer.writeByte(Constants.FLAG_VALID | Constants.FLAG_ACK);
-        Misc.writeIntRanges(buffer, outgoingACKs, mtuSize - 1);
-        this.sendDirect(buffer);
-        slidingWindow.onSendACK();
-      }
-    }
-    int transmissionBandwidth;
+    this.sendAcknowledgements(now);
     final var sentDatagrams = temp.getSentDatagrams();
-    if (!sentDatagrams.isEmpty()) {
-      transmissionBandwidth = this.unACKedBytes.get();
-      var hasResent = false;
-      for (final var datagram : sentDatagrams.values()) {
-        if (datagram.getNextSend() > now) {
+    var transmissionBandwidth = this.unACKedBytes.get();
+    if (highestACKed >= Constants.FAST_RETRANSMIT_THRESHOLD) {
+      var hasFastResent = false;
+      var fastBandwidth = slidingWindow.getTransmissionBandwidth(this.unACKedBytes.get());
+      final var gap = sentDatagrams.headMap(highestACKed - Constants.FAST_RETRANSMIT_THRESHOLD, true);
+      for (final var datagram : gap.values()) {
+        if (datagram.isFastResent()) {
           continue;
         }
-        final int size = datagram.getSize();
-        if (transmissionBandwidth < size) {
+        final var size = datagram.getSize();
+        if (fastBandwidth < size) {
           break;
         }
+        fastBandwidth -= size;
         transmissionBandwidth -= size;
-        if (!hasResent) {
-          hasResent = true;
-        }
-        NetConnection.LOGGER.error("Stale datagram {} from {}", datagram.getSequenceIndex(), this.address);
+        hasFastResent = true;
+        datagram.setFastResent(true);
         this.sendDatagram(datagram, now);
       }
-      if (hasResent) {
-        slidingWindow.onResend(now);
+      if (hasFastResent) {
+        slidingWindow.onNACK();
+      }
+    }
+    var hasResent = false;
+    final var retransmissionQueue = temp.getRetransmissionQueue();
+    NetDatagramPacket stale;
+    while ((stale = retransmissionQueue.peek()) != null && retransmissionQueue.peekWeight() <= now) {
+      if (retransmissionQueue.peekWeight() != stale.getNextSend() ||
+        sentDatagrams.get(stale.getSequenceIndex()) != stale) {
+        retransmissionQueue.remove();
+        continue;
+      }
+      final int size = stale.getSize();
+      if (transmissionBandwidth < size) {
+        break;
       }
+      retransmissionQueue.remove();
+      transmissionBandwidth -= size;
+      hasResent = true;
+      NetConnection.LOGGER.error("Stale datagram {} from {}", stale.getSequenceIndex(), this.address);
+      mtuDiscovery.onDatagramLost(size, now);
+      this.sendDatagram(stale, now);
+    }
+    if (hasResent) {
+      slidingWindow.onResend(now);
+    }
+    mtuDiscovery.checkProbeTimeout(now, slidingWindow.getRtoForRetransmission());
+    if (mtuDiscovery.shouldProbe(now)) {
+      this.sendMtuProbe(now);
     }
     temp.lockOutgoingLock();
     try {
       final var outgoingPackets = temp.getOutgoingPackets();
       if (!outgoingPackets.isEmpty()) {
         transmissionBandwidth = slidingWindow.getTransmissionBandwidth(this.unACKedBytes.get());
+        final var effectiveMtu = mtuDiscovery.getAdjustedMtu();
         var datagram = new NetDatagramPacket(now);
         EncapsulatedPacket packet;
         while ((packet = outgoingPackets.peek()) != null) {
@@ -818,11 +1051,18 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
           }
           transmissionBandwidth -= size;
           outgoingPackets.remove();
-          if (datagram.tryAddPacket(packet, this.adjustedMtu)) {
+          this.queuedBytes.addAndGet(-size);
+          if (datagram.tryAddPacket(packet, effectiveMtu)) {
             continue;
           }
-          this.sendDatagram(datagram, now);
-          datagram = new NetDatagramPacket(now);
+          if (!datagram.getPackets().isEmpty()) {
+            this.sendDatagram(datagram, now);
+            datagram = new NetDatagramPacket(now);
+            if (datagram.tryAddPacket(packet, effectiveMtu)) {
+              continue;
+            }
+          }
+          // the packet was split before the mtu fell back.
           Preconditions.checkArgument(datagram.tryAddPacket(packet, this.adjustedMtu),
             "Packet too large to fit in MTU (size: %s, MTU: %s)", packet.getSize(), this.adjustedMtu);
         }
@@ -833,6 +1073,26 @@ public abstract class NetConnection<S extends Socket> implements Connection<S> {
     } finally {
       temp.unlockOutgoingLock();
     }
-    this.channel.flush();
+    this.checkSendQueue(now);
+  }
+
+  /**
+   * updates the connection's writability from the given queued bytes.
+   *
+   * @param queued the queued bytes to check.
+   */
+  private void updateWritability(final long queued) {
+    final boolean writable;
+    if (queued >= this.sendQueueBudget >>> 1) {
+      writable = false;
+    } else if (queued <= this.sendQueueBudget >>> 2) {
+      writable = true;
+    } else {
+      return;
+    }
+    if (this.writable.compareAndSet(!writable, writable)) {
+      this.getConnectionListener().ifPresent(listener ->
+        listener.onWritabilityChanged(writable));
+    }
   }
 }
@@ -31,14 +31,6 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.Epoll;
-import io.netty.channel.epoll.EpollDatagramChannel;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.kqueue.KQueue;
-import io.netty.channel.kqueue.KQueueDatagramChannel;
-import io.netty.channel.kqueue.KQueueEventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioDatagramChannel;
 import java.net.InetSocketAddress;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -66,6 +58,12 @@ public abstract class NetSocket implements Socket {
   @NotNull
   private static final EventLoopGroup GROUP;
 
+  /**
+   * the datagram transport.
+   */
+  @NotNull
+  private static final NetTransport TRANSPORT;
+
   /**
    * socket's address.
    */
@@ -99,17 +97,9 @@ public abstract class NetSocket implements Socket {
   private ScheduledFuture<?> tickFuture;
 
   static {
-    final var disableNative = System.getProperties().contains("disableNativeEventLoop");
-    if (!disableNative && Epoll.isAvailable()) {
-      GROUP = new EpollEventLoopGroup(PoolSpec.UNCAUGHT_FACTORY);
-      CHANNEL = EpollDatagramChannel.class;
-    } else if (!disableNative && KQueue.isAvailable()) {
-      GROUP = new KQueueEventLoopGroup(PoolSpec.UNCAUGHT_FACTORY);
-      CHANNEL = KQueueDatagramChannel.class;
-    } else {
-      GROUP = new NioEventLoopGroup(PoolSpec.UNCAUGHT_FACTORY);
-      CHANNEL = NioDatagramChannel.class;
-    }
+    TRANSPORT = NetTransport.select();
+    GROUP = NetSocket.TRANSPORT.createGroup(PoolSpec.UNCAUGHT_FACTORY);
+    CHANNEL = NetSocket.TRANSPORT.getChannel();
   }
 
   /**
@@ -123,6 +113,17 @@ public abstract class NetSocket implements Socket {
       .option(ChannelOption.ALLOCATOR, ByteBufAllocator.DEFAULT)
       .group(NetSocket.GROUP)
       .channel(NetSocket.CHANNEL);
+    NetSocket.TRANSPORT.configure(this.bootstrap);
+  }
+
+  /**
+   * obtains the datagram transport of the sockets.
+   *
+   * @return the selected transport.
+   */
+  @NotNull
+  public static NetTransport getTransport() {
+    return NetSocket.TRANSPORT;
   }
 
   @NotNull
@@ -0,0 +1,319 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network;
+
+import io.github.shiruka.shiruka.network.util.Constants;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.kqueue.KQueue;
+import io.netty.channel.kqueue.KQueueDatagramChannel;
+import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an enum class to determine the datagram transport of the {@link NetSocket}s.
+ * <p>
+ * the transport can be selected with the {@value #PROPERTY} system property. the io_uring transport comes from the
+ * netty's incubator module which is an optional dependency, so it's loaded reflectively and only when it's requested.
+ */
+public enum NetTransport {
+  /**
+   * the io_uring transport.
+   */
+  IO_URING("io_uring") {
+    @Override
+    public boolean isAvailable() {
+      try {
+        return (boolean) Class.forName(NetTransport.IO_URING_PACKAGE + "IOUring")
+          .getMethod("isAvailable")
+          .invoke(null);
+      } catch (final ReflectiveOperationException | LinkageError e) {
+        return false;
+      }
+    }
+
+    @NotNull
+    @Override
+    public EventLoopGroup createGroup(final int threads, @NotNull final ThreadFactory factory) {
+      try {
+        return (EventLoopGroup) Class.forName(NetTransport.IO_URING_PACKAGE + "IOUringEventLoopGroup")
+          .getConstructor(int.class, ThreadFactory.class)
+          .newInstance(threads, factory);
+      } catch (final ReflectiveOperationException e) {
+        throw new IllegalStateException("Unable to create the io_uring event loop group", e);
+      }
+    }
+
+    @Override
+    void configure(@NotNull final Bootstrap bootstrap) {
+      // the batch receive is only known by the newer io_uring transports.
+      final var payloadSize = NetTransport.IO_URING_PACKAGE + "IOUringChannelOption#MAX_DATAGRAM_PAYLOAD_SIZE";
+      try {
+        Class.forName(NetTransport.IO_URING_PACKAGE + "IOUringChannelOption");
+      } catch (final ClassNotFoundException e) {
+        return;
+      }
+      if (ChannelOption.exists(payloadSize)) {
+        bootstrap
+          .option(ChannelOption.valueOf(payloadSize), Constants.MAXIMUM_DATAGRAM_PAYLOAD_SIZE)
+          .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(
+            Constants.MAXIMUM_DATAGRAM_PAYLOAD_SIZE * Constants.RECEIVE_BATCH_SIZE));
+      }
+    }
+
+    @NotNull
+    @Override
+    Class<? extends Channel> getChannel() {
+      try {
+        return Class.forName(NetTransport.IO_URING_PACKAGE + "IOUringDatagramChannel").asSubclass(Channel.class);
+      } catch (final ClassNotFoundException e) {
+        throw new IllegalStateException("Unable to find the io_uring datagram channel", e);
+      }
+    }
+  },
+  /**
+   * the epoll transport.
+   */
+  EPOLL("epoll") {
+    @Override
+    public boolean isAvailable() {
+      return Epoll.isAvailable();
+    }
+
+    @NotNull
+    @Override
+    public EventLoopGroup createGroup(final int threads, @NotNull final ThreadFactory factory) {
+      return new EpollEventLoopGroup(threads, factory);
+    }
+
+    @Override
+    void configure(@NotNull final Bootstrap bootstrap) {
+      bootstrap
+        .option(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, Constants.MAXIMUM_DATAGRAM_PAYLOAD_SIZE)
+        .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(
+          Constants.MAXIMUM_DATAGRAM_PAYLOAD_SIZE * Constants.RECEIVE_BATCH_SIZE));
+      // udp gro is only known by the newer epoll transports.
+      final var udpGro = EpollChannelOption.class.getName() + "#UDP_GRO";
+      if (ChannelOption.exists(udpGro)) {
+        bootstrap.option(ChannelOption.valueOf(udpGro), true);
+      }
+    }
+
+    @NotNull
+    @Override
+    Class<? extends Channel> getChannel() {
+      return EpollDatagramChannel.class;
+    }
+  },
+  /**
+   * the kqueue transport.
+   */
+  KQUEUE("kqueue") {
+    @Override
+    public boolean isAvailable() {
+      return KQueue.isAvailable();
+    }
+
+    @NotNull
+    @Override
+    public EventLoopGroup createGroup(final int threads, @NotNull final ThreadFactory factory) {
+      return new KQueueEventLoopGroup(threads, factory);
+    }
+
+    @NotNull
+    @Override
+    Class<? extends Channel> getChannel() {
+      return KQueueDatagramChannel.class;
+    }
+  },
+  /**
+   * the java nio transport.
+   */
+  NIO("nio") {
+    @Override
+    public boolean isAvailable() {
+      return true;
+    }
+
+    @NotNull
+    @Override
+    public EventLoopGroup createGroup(final int threads, @NotNull final ThreadFactory factory) {
+      return new NioEventLoopGroup(threads, factory);
+    }
+
+    @NotNull
+    @Override
+    Class<? extends Channel> getChannel() {
+      return NioDatagramChannel.class;
+    }
+  };
+
+  /**
+   * the system property to select the transport.
+   */
+  public static final String PROPERTY = "shiruka.transport";
+
+  /**
+   * the package of the netty's io_uring incubator module.
+   */
+  private static final String IO_URING_PACKAGE = "io.netty.incubator.channel.uring.";
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger("NetTransport");
+
+  /**
+   * the id.
+   */
+  @NotNull
+  private final String id;
+
+  /**
+   * ctor.
+   *
+   * @param id the id.
+   */
+  NetTransport(@NotNull final String id) {
+    this.id = id;
+  }
+
+  /**
+   * finds the transport from the given id.
+   *
+   * @param id the id to find.
+   *
+   * @return the transport or {@link Optional#empty()} if there is no transport with the given id.
+   */
+  @NotNull
+  public static Optional<NetTransport> fromId(@NotNull final String id) {
+    final var lowerCase = id.toLowerCase(Locale.ROOT);
+    return Arrays.stream(NetTransport.values())
+      .filter(transport -> transport.id.equals(lowerCase))
+      .findFirst();
+  }
+
+  /**
+   * selects the transport from the system properties.
+   * <p>
+   * the requested transport falls back to the first available one of epoll, kqueue and nio when it's not available.
+   *
+   * @return the selected transport.
+   */
+  @NotNull
+  static NetTransport select() {
+    if (System.getProperties().containsKey("disableNativeEventLoop")) {
+      return NetTransport.NIO;
+    }
+    final var requested = System.getProperty(NetTransport.PROPERTY, "auto");
+    if (!"auto".equalsIgnoreCase(requested)) {
+      final var transport = NetTransport.fromId(requested);
+      if (transport.isPresent() && transport.get().isAvailable()) {
+        NetTransport.LOGGER.debug("§7Using {} transport.", transport.get().id);
+        return transport.get();
+      }
+      NetTransport.LOGGER.warn("§cThe {} transport is not available, falling back.", requested);
+    }
+    final var transport = NetTransport.EPOLL.isAvailable()
+      ? NetTransport.EPOLL
+      : NetTransport.KQUEUE.isAvailable()
+        ? NetTransport.KQUEUE
+        : NetTransport.NIO;
+    NetTransport.LOGGER.debug("§7Using {} transport.", transport.id);
+    return transport;
+  }
+
+  /**
+   * obtains the id.
+   *
+   * @return id.
+   */
+  @NotNull
+  public String getId() {
+    return this.id;
+  }
+
+  /**
+   * creates an event loop group for the transport.
+   *
+   * @param threads the thread count, 0 to use the netty's default.
+   * @param factory the factory to create.
+   *
+   * @return a new event loop group.
+   */
+  @NotNull
+  public abstract EventLoopGroup createGroup(int threads, @NotNull ThreadFactory factory);
+
+  /**
+   * checks if the transport is supported by the platform and the class path.
+   *
+   * @return {@code true} if the transport can be used.
+   */
+  public abstract boolean isAvailable();
+
+  /**
+   * configures the transport specific options of the given bootstrap.
+   *
+   * @param bootstrap the bootstrap to configure.
+   */
+  void configure(@NotNull final Bootstrap bootstrap) {
+  }
+
+  /**
+   * creates an event loop group for the transport with the netty's default thread count.
+   *
+   * @param factory the factory to create.
+   *
+   * @return a new event loop group.
+   */
+  @NotNull
+  EventLoopGroup createGroup(@NotNull final ThreadFactory factory) {
+    return this.createGroup(0, factory);
+  }
+
+  /**
+   * obtains the datagram channel class of the transport.
+   *
+   * @return the datagram channel class.
+   */
+  @NotNull
+  abstract Class<? extends Channel> getChannel();
+}
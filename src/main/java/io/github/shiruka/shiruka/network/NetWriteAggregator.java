@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network;
+
+import io.netty.channel.Channel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.AttributeKey;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that coalesces datagram writes of a channel into a single flush per event loop iteration.
+ * <p>
+ * the flush is scheduled as a task at the end of the event loop's task queue, so every connection that ticks or
+ * sends in the same iteration shares it. on epoll, netty writes the flushed datagrams with {@code sendmmsg}.
+ */
+public final class NetWriteAggregator {
+
+  /**
+   * the attribute key to store aggregators on the channels.
+   */
+  private static final AttributeKey<NetWriteAggregator> KEY = AttributeKey.valueOf("NetWriteAggregator");
+
+  /**
+   * the channel.
+   */
+  @NotNull
+  private final Channel channel;
+
+  /**
+   * the flush count.
+   */
+  private final LongAdder flushes = new LongAdder();
+
+  /**
+   * the flush task.
+   */
+  @NotNull
+  private final Runnable flushTask = this::flush;
+
+  /**
+   * if a flush is scheduled or not.
+   */
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  /**
+   * the write count.
+   */
+  private final LongAdder writes = new LongAdder();
+
+  /**
+   * ctor.
+   *
+   * @param channel the channel.
+   */
+  private NetWriteAggregator(@NotNull final Channel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * obtains the aggregator of the given channel.
+   *
+   * @param channel the channel to get.
+   *
+   * @return the write aggregator of the channel.
+   */
+  @NotNull
+  public static NetWriteAggregator of(@NotNull final Channel channel) {
+    final var attribute = channel.attr(NetWriteAggregator.KEY);
+    final var aggregator = attribute.get();
+    if (aggregator != null) {
+      return aggregator;
+    }
+    final var created = new NetWriteAggregator(channel);
+    final var previous = attribute.setIfAbsent(created);
+    return previous == null ? created : previous;
+  }
+
+  /**
+   * obtains the average datagram count per flush.
+   *
+   * @return average writes per flush.
+   */
+  public double getWritesPerFlush() {
+    final var flushCount = this.flushes.sum();
+    return flushCount == 0 ? 0.0D : (double) this.writes.sum() / flushCount;
+  }
+
+  /**
+   * schedules a flush at the end of the current event loop iteration if there is not any.
+   */
+  public void scheduleFlush() {
+    if (this.scheduled.compareAndSet(false, true)) {
+      this.channel.eventLoop().execute(this.flushTask);
+    }
+  }
+
+  /**
+   * writes the given datagram without flushing and schedules a flush.
+   *
+   * @param packet the packet to write.
+   */
+  public void write(@NotNull final DatagramPacket packet) {
+    this.writes.increment();
+    this.channel.write(packet, this.channel.voidPromise());
+    this.scheduleFlush();
+  }
+
+  /**
+   * flushes the channel.
+   */
+  private void flush() {
+    this.scheduled.set(false);
+    this.flushes.increment();
+    this.channel.flush();
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.blob;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import java.util.Optional;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that stores the blobs that can be sent to the clients which support the blob cache.
+ * <p>
+ * the blobs are identified by the xxHash64 of their content, which is how the clients key their caches, and evicted
+ * in the least recently used order when the store goes over its byte capacity. the stored arrays are shared, so they
+ * must not be modified.
+ */
+public final class BlobStore {
+
+  /**
+   * the blobs in access order.
+   */
+  private final Long2ObjectLinkedOpenHashMap<byte[]> blobs = new Long2ObjectLinkedOpenHashMap<>();
+
+  /**
+   * the byte capacity.
+   */
+  private final long capacity;
+
+  /**
+   * the stored byte count.
+   */
+  private long size;
+
+  /**
+   * ctor.
+   *
+   * @param capacity the byte capacity.
+   */
+  public BlobStore(final long capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * creates the blob id of the given content as the clients do.
+   *
+   * @param blob the blob to hash.
+   *
+   * @return the blob id.
+   */
+  public static long hash(final byte[] blob) {
+    return XxHash64.hash(blob);
+  }
+
+  /**
+   * obtains the blob that has the given id.
+   *
+   * @param id the id to get.
+   *
+   * @return the blob or {@link Optional#empty()} if it's not stored or evicted.
+   */
+  @NotNull
+  public synchronized Optional<byte[]> get(final long id) {
+    return Optional.ofNullable(this.blobs.getAndMoveToLast(id));
+  }
+
+  /**
+   * obtains the stored byte count.
+   *
+   * @return stored bytes.
+   */
+  public synchronized long getSize() {
+    return this.size;
+  }
+
+  /**
+   * stores the given blob.
+   *
+   * @param blob the blob to store.
+   *
+   * @return the blob id.
+   */
+  public long put(final byte[] blob) {
+    final var id = BlobStore.hash(blob);
+    synchronized (this) {
+      if (this.blobs.getAndMoveToLast(id) != null) {
+        return id;
+      }
+      this.blobs.putAndMoveToLast(id, blob);
+      this.size += blob.length;
+      while (this.size > this.capacity && this.blobs.size() > 1) {
+        this.size -= this.blobs.removeFirst().length;
+      }
+    }
+    return id;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.blob;
+
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+
+/**
+ * a class that tracks the blobs which a client acknowledged to have in its cache.
+ * <p>
+ * the least recently used blobs are forgotten when the table is full.
+ */
+public final class ClientBlobTable {
+
+  /**
+   * the maximum blob count to track per client.
+   */
+  private static final int CAPACITY = 8192;
+
+  /**
+   * the blob ids that the client has.
+   */
+  private final LongLinkedOpenHashSet cached = new LongLinkedOpenHashSet();
+
+  /**
+   * checks if the client has the given blob.
+   *
+   * @param id the id to check.
+   *
+   * @return {@code true} if the client acknowledged the blob before.
+   */
+  public synchronized boolean isCached(final long id) {
+    if (!this.cached.contains(id)) {
+      return false;
+    }
+    this.cached.addAndMoveToLast(id);
+    return true;
+  }
+
+  /**
+   * runs when the client reported the given blob as a hit.
+   *
+   * @param id the id of the blob.
+   */
+  public synchronized void onHit(final long id) {
+    this.cached.addAndMoveToLast(id);
+    while (this.cached.size() > ClientBlobTable.CAPACITY) {
+      this.cached.removeFirstLong();
+    }
+  }
+
+  /**
+   * runs when the client reported the given blob as a miss.
+   *
+   * @param id the id of the blob.
+   */
+  public synchronized void onMiss(final long id) {
+    this.cached.remove(id);
+  }
+
+  /**
+   * obtains the tracked blob count.
+   *
+   * @return tracked blob count.
+   */
+  public synchronized int size() {
+    return this.cached.size();
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.blob;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that implements the 64-bit xxHash which the clients use to identify the blobs in their caches.
+ */
+final class XxHash64 {
+
+  /**
+   * the first prime.
+   */
+  private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+
+  /**
+   * the second prime.
+   */
+  private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+  /**
+   * the third prime.
+   */
+  private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+  /**
+   * the fourth prime.
+   */
+  private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+
+  /**
+   * the fifth prime.
+   */
+  private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+  /**
+   * ctor.
+   */
+  private XxHash64() {
+  }
+
+  /**
+   * hashes the given bytes with the seed 0.
+   *
+   * @param bytes the bytes to hash.
+   *
+   * @return the hash.
+   */
+  static long hash(@NotNull final byte[] bytes) {
+    final var length = bytes.length;
+    var index = 0;
+    long hash;
+    if (length >= 32) {
+      var v1 = XxHash64.PRIME_1 + XxHash64.PRIME_2;
+      var v2 = XxHash64.PRIME_2;
+      var v3 = 0L;
+      var v4 = -XxHash64.PRIME_1;
+      do {
+        v1 = XxHash64.round(v1, XxHash64.readLong(bytes, index));
+        v2 = XxHash64.round(v2, XxHash64.readLong(bytes, index + 8));
+        v3 = XxHash64.round(v3, XxHash64.readLong(bytes, index + 16));
+        v4 = XxHash64.round(v4, XxHash64.readLong(bytes, index + 24));
+        index += 32;
+      } while (index <= length - 32);
+      hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      hash = XxHash64.merge(hash, v1);
+      hash = XxHash64.merge(hash, v2);
+      hash = XxHash64.merge(hash, v3);
+      hash = XxHash64.merge(hash, v4);
+    } else {
+      hash = XxHash64.PRIME_5;
+    }
+    hash += length;
+    while (index + 8 <= length) {
+      hash ^= XxHash64.round(0L, XxHash64.readLong(bytes, index));
+      hash = Long.rotateLeft(hash, 27) * XxHash64.PRIME_1 + XxHash64.PRIME_4;
+      index += 8;
+    }
+    if (index + 4 <= length) {
+      hash ^= (XxHash64.readInt(bytes, index) & 0xFFFFFFFFL) * XxHash64.PRIME_1;
+      hash = Long.rotateLeft(hash, 23) * XxHash64.PRIME_2 + XxHash64.PRIME_3;
+      index += 4;
+    }
+    while (index < length) {
+      hash ^= (bytes[index] & 0xFFL) * XxHash64.PRIME_5;
+      hash = Long.rotateLeft(hash, 11) * XxHash64.PRIME_1;
+      index++;
+    }
+    hash ^= hash >>> 33;
+    hash *= XxHash64.PRIME_2;
+    hash ^= hash >>> 29;
+    hash *= XxHash64.PRIME_3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+
+  /**
+   * merges the given accumulator into the hash.
+   *
+   * @param hash the hash to merge.
+   * @param accumulator the accumulator to merge.
+   *
+   * @return the merged hash.
+   */
+  private static long merge(final long hash, final long accumulator) {
+    return (hash ^ XxHash64.round(0L, accumulator)) * XxHash64.PRIME_1 + XxHash64.PRIME_4;
+  }
+
+  /**
+   * reads a little endian int.
+   *
+   * @param bytes the bytes to read.
+   * @param index the index to read.
+   *
+   * @return the int.
+   */
+  private static int readInt(@NotNull final byte[] bytes, final int index) {
+    return bytes[index] & 0xFF |
+      (bytes[index + 1] & 0xFF) << 8 |
+      (bytes[index + 2] & 0xFF) << 16 |
+      (bytes[index + 3] & 0xFF) << 24;
+  }
+
+  /**
+   * reads a little endian long.
+   *
+   * @param bytes the bytes to read.
+   * @param index the index to read.
+   *
+   * @return the long.
+   */
+  private static long readLong(@NotNull final byte[] bytes, final int index) {
+    return XxHash64.readInt(bytes, index) & 0xFFFFFFFFL |
+      (long) XxHash64.readInt(bytes, index + 4) << 32;
+  }
+
+  /**
+   * mixes the given input into the accumulator.
+   *
+   * @param accumulator the accumulator to mix.
+   * @param input the input to mix.
+   *
+   * @return the mixed accumulator.
+   */
+  private static long round(final long accumulator, final long input) {
+    return Long.rotateLeft(accumulator + input * XxHash64.PRIME_2, 31) * XxHash64.PRIME_1;
+  }
+}
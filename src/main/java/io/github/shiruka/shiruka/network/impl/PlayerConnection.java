@@ -31,9 +31,13 @@ import io.github.shiruka.shiruka.ShirukaServer;
 import io.github.shiruka.shiruka.entity.ShirukaPlayer;
 import io.github.shiruka.shiruka.event.SimpleLoginData;
 import io.github.shiruka.shiruka.network.Connection;
+import io.github.shiruka.shiruka.network.PacketPriority;
+import io.github.shiruka.shiruka.network.blob.ClientBlobTable;
 import io.github.shiruka.shiruka.network.packet.PacketOut;
+import io.github.shiruka.shiruka.network.packet.PreparedBatch;
 import io.github.shiruka.shiruka.network.packets.PacketOutDisconnect;
 import io.github.shiruka.shiruka.network.server.ServerSocket;
+import io.github.shiruka.shiruka.pack.PackSnapshot;
 import java.util.Optional;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -48,6 +52,12 @@ public final class PlayerConnection {
    */
   private static final Text DISCONNECTED_NO_REASON = TranslatedText.get("disconnect.disconnected");
 
+  /**
+   * the blobs that the client has in its cache.
+   */
+  @NotNull
+  private final ClientBlobTable blobTable = new ClientBlobTable();
+
   /**
    * the connection.
    */
@@ -60,12 +70,23 @@ public final class PlayerConnection {
   @NotNull
   private final ShirukaServer server;
 
+  /**
+   * if the client supports the blob cache.
+   */
+  private volatile boolean blobCacheSupported;
+
   /**
    * the login data.
    */
   @Nullable
   private SimpleLoginData loginData;
 
+  /**
+   * the pack snapshot that the pack downloads use.
+   */
+  @Nullable
+  private PackSnapshot packSnapshot;
+
   /**
    * the player.
    */
@@ -123,6 +144,16 @@ public final class PlayerConnection {
     }
   }
 
+  /**
+   * obtains the blobs that the client has in its cache.
+   *
+   * @return blob table.
+   */
+  @NotNull
+  public ClientBlobTable getBlobTable() {
+    return this.blobTable;
+  }
+
   /**
    * obtains the connection.
    *
@@ -152,6 +183,29 @@ public final class PlayerConnection {
     this.loginData = loginData;
   }
 
+  /**
+   * obtains the pack snapshot that the pack downloads use.
+   *
+   * @return pack snapshot.
+   */
+  @NotNull
+  public synchronized Optional<PackSnapshot> getPackSnapshot() {
+    return Optional.ofNullable(this.packSnapshot);
+  }
+
+  /**
+   * sets the pack snapshot that the pack downloads use and releases the previous one.
+   *
+   * @param packSnapshot the pack snapshot to set, its reference is owned by the connection.
+   */
+  public synchronized void setPackSnapshot(@Nullable final PackSnapshot packSnapshot) {
+    final var previous = this.packSnapshot;
+    this.packSnapshot = packSnapshot;
+    if (previous != null) {
+      previous.release();
+    }
+  }
+
   /**
    * obtains the player.
    *
@@ -200,6 +254,35 @@ public final class PlayerConnection {
     this.state = state;
   }
 
+  /**
+   * checks if the client supports the blob cache.
+   *
+   * @return {@code true} if the blobs can be sent as ids to the client.
+   */
+  public boolean isBlobCacheSupported() {
+    return this.blobCacheSupported;
+  }
+
+  /**
+   * sets the blob cache support of the client.
+   *
+   * @param blobCacheSupported the blob cache support to set.
+   */
+  public void setBlobCacheSupported(final boolean blobCacheSupported) {
+    this.blobCacheSupported = blobCacheSupported;
+  }
+
+  /**
+   * checks if the connection can take more packets without going over its send queue budget.
+   * <p>
+   * producers of the bulk packets, such as chunks, should wait until the connection becomes writable again.
+   *
+   * @return {@code true} if the connection is writable.
+   */
+  public boolean isWritable() {
+    return this.connection.isWritable();
+  }
+
   /**
    * sends the given {@code packet} to the {@link #connection}.
    *
@@ -210,6 +293,27 @@ public final class PlayerConnection {
     this.connection.addQueuedPacket(packet);
   }
 
+  /**
+   * sends the given {@code batch} to the {@link #connection} after the queued packets.
+   *
+   * @param batch the batch to send.
+   */
+  public void sendPrepared(@NotNull final PreparedBatch batch) {
+    this.connection.checkForClosed();
+    this.connection.sendPrepared(batch);
+  }
+
+  /**
+   * sends the given {@code batch} to the {@link #connection} after the queued packets with the given priority.
+   *
+   * @param batch the batch to send.
+   * @param priority the priority to send.
+   */
+  public void sendPrepared(@NotNull final PreparedBatch batch, @NotNull final PacketPriority priority) {
+    this.connection.checkForClosed();
+    this.connection.sendPrepared(batch, priority);
+  }
+
   /**
    * the internal simple translation..
    *
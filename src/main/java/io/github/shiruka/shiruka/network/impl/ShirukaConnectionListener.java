@@ -69,6 +69,7 @@ public final class ShirukaConnectionListener implements ConnectionListener {
 
   @Override
   public void onDisconnect(@NotNull final DisconnectReason reason) {
+    this.playerConnection.setPackSnapshot(null);
   }
 
   @Override
@@ -87,6 +88,10 @@ public final class ShirukaConnectionListener implements ConnectionListener {
   public void onStateChanged(@NotNull final ConnectionState old, @NotNull final ConnectionState state) {
   }
 
+  @Override
+  public void onWritabilityChanged(final boolean writable) {
+  }
+
   /**
    * handles wrapped packets.
    *
@@ -26,9 +26,11 @@
 package io.github.shiruka.shiruka.network.impl;
 
 import io.github.shiruka.shiruka.ShirukaServer;
+import io.github.shiruka.shiruka.config.ServerConfig;
 import io.github.shiruka.shiruka.network.Connection;
 import io.github.shiruka.shiruka.network.server.ServerListener;
 import io.github.shiruka.shiruka.network.server.ServerSocket;
+import io.github.shiruka.shiruka.network.util.Constants;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.socket.DatagramPacket;
 import java.net.InetSocketAddress;
@@ -64,6 +66,10 @@ public final class ShirukaServerListener implements ServerListener {
     final var playerConnection = new PlayerConnection(connection, this.server);
     final var connectionListener = new ShirukaConnectionListener(playerConnection);
     connection.setConnectionListener(connectionListener);
+    connection.setSendQueueBudget(ServerConfig.SEND_QUEUE_BUDGET.getValue()
+      .orElse(Constants.SEND_QUEUE_BUDGET));
+    connection.setSendQueueEvictionTime(ServerConfig.SEND_QUEUE_EVICTION_TIME.getValue()
+      .orElse((int) Constants.SEND_QUEUE_EVICTION_MS));
   }
 
   @Override
@@ -0,0 +1,517 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.login;
+
+import io.github.shiruka.api.Shiruka;
+import io.github.shiruka.api.text.ChatColor;
+import io.github.shiruka.api.text.Text;
+import io.github.shiruka.api.text.TranslatedText;
+import io.github.shiruka.shiruka.concurrent.PoolSpec;
+import io.github.shiruka.shiruka.config.ServerConfig;
+import io.github.shiruka.shiruka.event.SimpleChainData;
+import io.github.shiruka.shiruka.event.SimpleLoginData;
+import io.github.shiruka.shiruka.language.Languages;
+import io.github.shiruka.shiruka.network.impl.PlayerConnection;
+import io.github.shiruka.shiruka.network.packet.PacketOut;
+import io.github.shiruka.shiruka.network.packets.PacketOutPlayStatus;
+import io.github.shiruka.shiruka.pack.SimplePackManager;
+import io.github.shiruka.shiruka.scheduler.AsyncTask;
+import io.github.shiruka.shiruka.scheduler.SimpleScheduler;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that runs the logins through their {@link LoginStage}s.
+ * <p>
+ * every stage has its own threads and a bounded queue, so a join storm can't take over the scheduler threads of the
+ * plugins. a full stage makes the previous stage wait, and the logins that arrive while the first stage is full are
+ * refused with the server full screen. the wait times of every stage are measured.
+ */
+public final class LoginPipeline implements Closeable {
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger("LoginPipeline");
+
+  /**
+   * the name pattern to check client's usernames.
+   */
+  private static final Pattern NAME_PATTERN = Pattern.compile("^[a-z\\s\\d_]{3,16}+$");
+
+  /**
+   * the wait time in a stage to warn about.
+   */
+  private static final long SLOW_WAIT = TimeUnit.SECONDS.toNanos(5L);
+
+  /**
+   * the stages.
+   */
+  private final Map<LoginStage, Stage> stages = new EnumMap<>(LoginStage.class);
+
+  /**
+   * ctor.
+   *
+   * @param queueSize the login count that can wait in each stage.
+   */
+  public LoginPipeline(final int queueSize) {
+    for (final var stage : LoginStage.values()) {
+      this.stages.put(stage, new Stage(stage, queueSize));
+    }
+  }
+
+  /**
+   * sends the pack info to the given connection.
+   * <p>
+   * the snapshot of the pack info is pinned to the connection, so the downloads and the pack stack match the packs
+   * that the client is told about even if the packs are reloaded meanwhile.
+   *
+   * @param connection the connection to send.
+   */
+  private static void sendPackInfo(@NotNull final PlayerConnection connection) {
+    final var manager = Shiruka.getPackManager();
+    if (manager instanceof SimplePackManager) {
+      final var snapshot = ((SimplePackManager) manager).acquire();
+      connection.setPackSnapshot(snapshot);
+      connection.sendPrepared(snapshot.getPreparedPackInfo());
+    } else if (manager.getPackInfo() instanceof PacketOut) {
+      connection.sendPacket((PacketOut) manager.getPackInfo());
+    }
+  }
+
+  @Override
+  public void close() {
+    this.stages.values().forEach(Stage::close);
+  }
+
+  /**
+   * obtains the stage.
+   *
+   * @param stage the stage to get.
+   *
+   * @return the stage.
+   */
+  @NotNull
+  public Stage getStage(@NotNull final LoginStage stage) {
+    return this.stages.get(stage);
+  }
+
+  /**
+   * submits the given login.
+   *
+   * @param connection the connection to submit.
+   * @param encodedChainData the encoded chain data.
+   * @param encodedSkinData the encoded skin data.
+   *
+   * @return {@code false} if the first stage is full and the connection is disconnected.
+   */
+  public boolean submit(@NotNull final PlayerConnection connection, @NotNull final String encodedChainData,
+                        @NotNull final CharSequence encodedSkinData) {
+    if (this.getStage(LoginStage.PARSE).offer(connection,
+      () -> this.parse(connection, encodedChainData, encodedSkinData))) {
+      return true;
+    }
+    connection.disconnect(TranslatedText.get("disconnectionScreen.serverFull"));
+    return false;
+  }
+
+  /**
+   * checks the given login and calls the pre login event in the main thread.
+   *
+   * @param connection the connection to admit.
+   * @param chainData the chain data to admit.
+   */
+  private void admit(@NotNull final PlayerConnection connection, @NotNull final SimpleChainData chainData) {
+    Languages.addLoadedLanguage(chainData.languageCode());
+    if (!chainData.xboxAuthed() && ServerConfig.ONLINE_MODE.getValue().orElse(false)) {
+      connection.disconnect(TranslatedText.get("disconnectionScreen.notAuthenticated"));
+      return;
+    }
+    final var username = chainData.username();
+    final var matcher = LoginPipeline.NAME_PATTERN.matcher(username);
+    if (!matcher.matches() ||
+      username.equalsIgnoreCase("rcon") ||
+      username.equalsIgnoreCase("console")) {
+      connection.disconnect(TranslatedText.get("disconnectionScreen.invalidName"));
+      return;
+    }
+    if (!chainData.skin().isValid()) {
+      connection.disconnect(TranslatedText.get("disconnectionScreen.invalidSkin"));
+      return;
+    }
+    final var loginData = new SimpleLoginData(chainData, connection, () -> ChatColor.clean(username));
+    connection.setLatestLoginData(loginData);
+    final var preLogin = Shiruka.getEventManager().playerPreLogin(loginData, () -> "Some reason.");
+    preLogin.callEvent();
+    if (preLogin.cancelled()) {
+      connection.disconnect(preLogin.kickMessage().map(Text::asString).orElse(null));
+      return;
+    }
+    connection.setState(PlayerConnection.State.STATUS);
+    final var asyncLogin = Shiruka.getEventManager().playerAsyncLogin(loginData);
+    loginData.setAsyncLogin(asyncLogin);
+    final var process = new AsyncTask(asyncLogin::callEvent);
+    process.onComplete(() -> {
+      if (loginData.shouldLogin()) {
+        loginData.initializePlayer();
+      }
+    });
+    loginData.setAsyncProcess(process);
+    final var events = this.getStage(LoginStage.EVENTS);
+    final var scheduler = Shiruka.getScheduler();
+    final boolean queued;
+    if (scheduler instanceof SimpleScheduler) {
+      queued = ((SimpleScheduler) scheduler).execute(process, task -> events.offer(connection, task));
+    } else {
+      queued = events.offer(connection, process);
+    }
+    if (!queued) {
+      connection.disconnect(TranslatedText.get("disconnectionScreen.serverFull"));
+      return;
+    }
+    connection.sendPacket(new PacketOutPlayStatus(PacketOutPlayStatus.Status.LOGIN_SUCCESS));
+    LoginPipeline.sendPackInfo(connection);
+  }
+
+  /**
+   * passes the given task to the given stage, waits while the stage is full.
+   *
+   * @param stage the stage to pass.
+   * @param connection the connection of the login.
+   * @param task the task to pass.
+   */
+  private void handOff(@NotNull final LoginStage stage, @NotNull final PlayerConnection connection,
+                       @NotNull final Runnable task) {
+    if (connection.getConnection().isClosed()) {
+      return;
+    }
+    try {
+      this.getStage(stage).put(connection, task);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * parses the chain data of the given login.
+   *
+   * @param connection the connection to parse.
+   * @param encodedChainData the encoded chain data to parse.
+   * @param encodedSkinData the encoded skin data to parse.
+   */
+  private void parse(@NotNull final PlayerConnection connection, @NotNull final String encodedChainData,
+                     @NotNull final CharSequence encodedSkinData) {
+    final var chainData = SimpleChainData.parse(encodedChainData, encodedSkinData);
+    this.handOff(LoginStage.VERIFY, connection, () -> {
+      chainData.verify();
+      this.handOff(LoginStage.SKIN, connection, () -> {
+        chainData.decodeSkin();
+        this.handOff(LoginStage.ADMISSION, connection, () -> this.admit(connection, chainData));
+      });
+    });
+  }
+
+  /**
+   * a class that represents the stages of the pipeline with their queues and metrics.
+   */
+  public static final class Stage {
+
+    /**
+     * the completed task count.
+     */
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * the maximum wait time in nanoseconds.
+     */
+    private final AtomicLong maximumWait = new AtomicLong();
+
+    /**
+     * the queue.
+     */
+    @NotNull
+    private final BlockingQueue<Task> queue;
+
+    /**
+     * the rejected task count.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * the stage.
+     */
+    @NotNull
+    private final LoginStage stage;
+
+    /**
+     * the workers, empty if the stage runs in the main thread.
+     */
+    private final List<Thread> workers = new ArrayList<>();
+
+    /**
+     * the total wait time in nanoseconds.
+     */
+    private final LongAdder waitTime = new LongAdder();
+
+    /**
+     * the closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * ctor.
+     *
+     * @param stage the stage.
+     * @param queueSize the queue size.
+     */
+    private Stage(@NotNull final LoginStage stage, final int queueSize) {
+      this.stage = stage;
+      this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+      for (var index = 0; index < stage.getThreads(); index++) {
+        final var worker = PoolSpec.LOGIN.newThread(this::work);
+        worker.setName(String.format("Login %s #%d", stage.name().toLowerCase(Locale.ROOT), index + 1));
+        worker.setDaemon(true);
+        worker.start();
+        this.workers.add(worker);
+      }
+    }
+
+    /**
+     * obtains the average wait time.
+     *
+     * @return average wait time in milliseconds.
+     */
+    public double getAverageWait() {
+      final var completed = this.completed.sum();
+      return completed == 0L ? 0.0D : this.waitTime.sum() / 1.0E6D / completed;
+    }
+
+    /**
+     * obtains the completed task count.
+     *
+     * @return completed task count.
+     */
+    public long getCompleted() {
+      return this.completed.sum();
+    }
+
+    /**
+     * obtains the maximum wait time.
+     *
+     * @return maximum wait time in milliseconds.
+     */
+    public double getMaximumWait() {
+      return this.maximumWait.get() / 1.0E6D;
+    }
+
+    /**
+     * obtains the queued task count.
+     *
+     * @return queued task count.
+     */
+    public int getQueued() {
+      return this.queue.size();
+    }
+
+    /**
+     * obtains the rejected task count.
+     *
+     * @return rejected task count.
+     */
+    public long getRejected() {
+      return this.rejected.sum();
+    }
+
+    /**
+     * obtains the stage.
+     *
+     * @return stage.
+     */
+    @NotNull
+    public LoginStage getStage() {
+      return this.stage;
+    }
+
+    /**
+     * stops the workers and drops the queued tasks.
+     */
+    private void close() {
+      this.closed = true;
+      this.workers.forEach(Thread::interrupt);
+      this.queue.clear();
+    }
+
+    /**
+     * runs the next task in the main thread.
+     */
+    private void drain() {
+      final var task = this.queue.poll();
+      if (task != null) {
+        this.run(task);
+      }
+    }
+
+    /**
+     * disconnects the login of the given failed task with the failure message of the stage.
+     *
+     * @param task the task to fail.
+     */
+    private void fail(@NotNull final Task task) {
+      if (!task.connection.getConnection().isClosed()) {
+        task.connection.disconnect(TranslatedText.get(this.stage.getFailureMessage()));
+      }
+    }
+
+    /**
+     * queues the given task if the stage is not full.
+     *
+     * @param connection the connection of the login.
+     * @param task the task to queue.
+     *
+     * @return {@code true} if the task is queued.
+     */
+    private boolean offer(@NotNull final PlayerConnection connection, @NotNull final Runnable task) {
+      if (this.closed || !this.queue.offer(new Task(connection, task))) {
+        this.rejected.increment();
+        return false;
+      }
+      this.scheduleDrain();
+      return true;
+    }
+
+    /**
+     * queues the given task, waits while the stage is full.
+     *
+     * @param connection the connection of the login.
+     * @param task the task to queue.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private void put(@NotNull final PlayerConnection connection, @NotNull final Runnable task)
+      throws InterruptedException {
+      if (this.closed) {
+        return;
+      }
+      this.queue.put(new Task(connection, task));
+      this.scheduleDrain();
+    }
+
+    /**
+     * runs the given task and measures its wait time, disconnects the login if the task fails.
+     *
+     * @param task the task to run.
+     */
+    private void run(@NotNull final Task task) {
+      final var wait = System.nanoTime() - task.queuedAt;
+      this.waitTime.add(wait);
+      this.maximumWait.accumulateAndGet(wait, Math::max);
+      if (wait >= LoginPipeline.SLOW_WAIT) {
+        LoginPipeline.LOGGER.warn("A login waited {} ms in the {} stage, {} logins are queued",
+          TimeUnit.NANOSECONDS.toMillis(wait), this.stage, this.queue.size());
+      }
+      try {
+        task.task.run();
+      } catch (final IllegalArgumentException e) {
+        LoginPipeline.LOGGER.debug(String.format("Invalid login data in the %s stage", this.stage), e);
+        this.fail(task);
+      } catch (final Exception e) {
+        LoginPipeline.LOGGER.warn(String.format("Login failed in the %s stage", this.stage), e);
+        this.fail(task);
+      } finally {
+        this.completed.increment();
+      }
+    }
+
+    /**
+     * schedules a drain in the main thread if the stage has no workers.
+     */
+    private void scheduleDrain() {
+      if (this.workers.isEmpty()) {
+        Shiruka.getScheduler().schedule(this::drain);
+      }
+    }
+
+    /**
+     * takes and runs the tasks until the stage closed.
+     */
+    private void work() {
+      while (!this.closed) {
+        try {
+          this.run(this.queue.take());
+        } catch (final InterruptedException e) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * a class that represents the queued tasks.
+   */
+  private static final class Task {
+
+    /**
+     * the connection of the login.
+     */
+    @NotNull
+    private final PlayerConnection connection;
+
+    /**
+     * the queued time.
+     */
+    private final long queuedAt = System.nanoTime();
+
+    /**
+     * the task.
+     */
+    @NotNull
+    private final Runnable task;
+
+    /**
+     * ctor.
+     *
+     * @param connection the connection of the login.
+     * @param task the task.
+     */
+    private Task(@NotNull final PlayerConnection connection, @NotNull final Runnable task) {
+      this.connection = connection;
+      this.task = task;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.login;
+
+import io.github.shiruka.api.config.ConfigPath;
+import io.github.shiruka.shiruka.config.ServerConfig;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * an enum class that represents the stages of the {@link LoginPipeline}.
+ */
+public enum LoginStage {
+  /**
+   * parses the chain and its claims.
+   */
+  PARSE(ServerConfig.LOGIN_PARSE_THREADS, "disconnect.loginFailed"),
+  /**
+   * verifies the signatures of the chain.
+   */
+  VERIFY(ServerConfig.LOGIN_VERIFY_THREADS, "disconnectionScreen.notAuthenticated"),
+  /**
+   * decodes the skin.
+   */
+  SKIN(ServerConfig.LOGIN_SKIN_THREADS, "disconnectionScreen.invalidSkin"),
+  /**
+   * checks the login and calls the pre login event in the main thread.
+   */
+  ADMISSION(null, "disconnect.loginFailed"),
+  /**
+   * calls the async login event.
+   */
+  EVENTS(ServerConfig.LOGIN_EVENT_THREADS, "disconnect.loginFailed");
+
+  /**
+   * the translation key of the disconnect message when a login fails in the stage.
+   */
+  @NotNull
+  private final String failureMessage;
+
+  /**
+   * the thread count path, null for the stages that run in the main thread.
+   */
+  @Nullable
+  private final ConfigPath<Integer> threads;
+
+  /**
+   * ctor.
+   *
+   * @param threads the thread count path.
+   * @param failureMessage the translation key of the disconnect message when a login fails in the stage.
+   */
+  LoginStage(@Nullable final ConfigPath<Integer> threads, @NotNull final String failureMessage) {
+    this.threads = threads;
+    this.failureMessage = failureMessage;
+  }
+
+  /**
+   * obtains the failure message.
+   *
+   * @return the translation key of the disconnect message when a login fails in the stage.
+   */
+  @NotNull
+  public String getFailureMessage() {
+    return this.failureMessage;
+  }
+
+  /**
+   * obtains the thread count of the stage.
+   *
+   * @return thread count, 0 if the stage runs in the main thread.
+   */
+  public int getThreads() {
+    if (this.threads == null) {
+      return 0;
+    }
+    return Math.max(1, this.threads.getValue().orElse(1));
+  }
+}
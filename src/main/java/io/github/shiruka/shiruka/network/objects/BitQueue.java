@@ -77,6 +77,15 @@ public final class BitQueue {
     this.head = this.head + 1 & (this.queue.length << 3) - 1;
   }
 
+  /**
+   * obtains the bit capacity of the queue.
+   *
+   * @return capacity of the queue.
+   */
+  public int capacity() {
+    return this.queue.length << 3;
+  }
+
   /**
    * gets the value of the n-th bit contained in the queue.
    *
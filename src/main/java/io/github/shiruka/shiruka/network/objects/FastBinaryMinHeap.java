@@ -75,6 +75,15 @@ public final class FastBinaryMinHeap<E> {
     this.weights[0] = Long.MIN_VALUE;
   }
 
+  /**
+   * obtains the slot count of the binary.
+   *
+   * @return capacity of the binary.
+   */
+  public int capacity() {
+    return this.heap.length;
+  }
+
   /**
    * inserts the given element.
    *
@@ -141,6 +150,15 @@ public final class FastBinaryMinHeap<E> {
     return (E) this.heap[1];
   }
 
+  /**
+   * gets the weight of the next object.
+   *
+   * @return the weight of the next object or {@link Long#MAX_VALUE} if the heap is empty.
+   */
+  public long peekWeight() {
+    return this.size == 0 ? Long.MAX_VALUE : this.weights[1];
+  }
+
   /**
    * gets and removes the object.
    *
@@ -49,6 +49,11 @@ public final class NetDatagramPacket extends AbstractReferenceCounted {
    */
   private final long time;
 
+  /**
+   * if the packet is resent for a gap in the acknowledgements, it's only resent on timeout after that.
+   */
+  private boolean fastResent;
+
   /**
    * the rak net flag.
    */
@@ -99,6 +104,24 @@ public final class NetDatagramPacket extends AbstractReferenceCounted {
     this.packets.forEach(encapsulatedPacket -> encapsulatedPacket.encode(packet));
   }
 
+  /**
+   * checks if the packet is resent for a gap in the acknowledgements.
+   *
+   * @return {@code true} if the packet is fast resent.
+   */
+  public boolean isFastResent() {
+    return this.fastResent;
+  }
+
+  /**
+   * sets if the packet is resent for a gap in the acknowledgements.
+   *
+   * @param fastResent the fast resent to set.
+   */
+  public void setFastResent(final boolean fastResent) {
+    this.fastResent = fastResent;
+  }
+
   /**
    * obtains the next send time.
    *
@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.objects;
+
+import io.github.shiruka.shiruka.network.PacketReliability;
+import io.netty.buffer.ByteBuf;
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a flyweight cursor that walks the frames of a received datagram in place.
+ * <p>
+ * the cursor only reads the frame headers, so duplicate and stale frames can be dropped without creating any object.
+ * {@link #materialize()} creates the {@link EncapsulatedPacket} for the frames that are going to be delivered or
+ * queued. an instance must be used by a single thread.
+ */
+public final class NetFrameCursor {
+
+  /**
+   * the datagram buffer.
+   */
+  @Nullable
+  private ByteBuf buffer;
+
+  /**
+   * the sequence index of the datagram.
+   */
+  private int datagramSequenceIndex;
+
+  /**
+   * the ordering channel of the current frame.
+   */
+  private short orderingChannel;
+
+  /**
+   * the ordering index of the current frame.
+   */
+  private int orderingIndex;
+
+  /**
+   * the part count of the current frame.
+   */
+  private int partCount;
+
+  /**
+   * the part id of the current frame.
+   */
+  private int partId;
+
+  /**
+   * the part index of the current frame.
+   */
+  private int partIndex;
+
+  /**
+   * the payload index of the current frame.
+   */
+  private int payloadIndex;
+
+  /**
+   * the payload length of the current frame.
+   */
+  private int payloadLength;
+
+  /**
+   * the reliability of the current frame.
+   */
+  @Nullable
+  private PacketReliability reliability;
+
+  /**
+   * the reliability index of the current frame.
+   */
+  private int reliabilityIndex;
+
+  /**
+   * the sequence index of the current frame.
+   */
+  private int sequenceIndex;
+
+  /**
+   * if the current frame is split.
+   */
+  private boolean split;
+
+  /**
+   * clears the datagram buffer reference.
+   */
+  public void clear() {
+    this.buffer = null;
+    this.reliability = null;
+  }
+
+  /**
+   * obtains the sequence index of the datagram.
+   *
+   * @return datagram sequence index.
+   */
+  public int getDatagramSequenceIndex() {
+    return this.datagramSequenceIndex;
+  }
+
+  /**
+   * obtains the ordering channel of the current frame.
+   *
+   * @return ordering channel.
+   */
+  public short getOrderingChannel() {
+    return this.orderingChannel;
+  }
+
+  /**
+   * obtains the ordering index of the current frame.
+   *
+   * @return ordering index.
+   */
+  public int getOrderingIndex() {
+    return this.orderingIndex;
+  }
+
+  /**
+   * obtains the reliability of the current frame.
+   *
+   * @return reliability.
+   */
+  @NotNull
+  public PacketReliability getReliability() {
+    return Objects.requireNonNull(this.reliability, "reliability");
+  }
+
+  /**
+   * obtains the reliability index of the current frame.
+   *
+   * @return reliability index.
+   */
+  public int getReliabilityIndex() {
+    return this.reliabilityIndex;
+  }
+
+  /**
+   * checks if the current frame is split.
+   *
+   * @return {@code true} if the current frame is split.
+   */
+  public boolean isSplit() {
+    return this.split;
+  }
+
+  /**
+   * creates an encapsulated packet from the current frame.
+   * <p>
+   * the payload is a slice of the datagram, so the packet has to be retained if it outlives the datagram.
+   *
+   * @return a new encapsulated packet.
+   */
+  @NotNull
+  public EncapsulatedPacket materialize() {
+    final var packet = new EncapsulatedPacket();
+    packet.setReliability(this.getReliability());
+    packet.reliabilityIndex = this.reliabilityIndex;
+    packet.sequenceIndex = this.sequenceIndex;
+    packet.orderingIndex = this.orderingIndex;
+    packet.orderingChannel = this.orderingChannel;
+    packet.split = this.split;
+    packet.partCount = this.partCount;
+    packet.partId = this.partId;
+    packet.partIndex = this.partIndex;
+    packet.setBuffer(Objects.requireNonNull(this.buffer, "buffer").slice(this.payloadIndex, this.payloadLength));
+    return packet;
+  }
+
+  /**
+   * moves the cursor to the next frame.
+   *
+   * @return {@code true} if there is a valid frame to read.
+   */
+  public boolean next() {
+    final var packet = Objects.requireNonNull(this.buffer, "buffer");
+    if (!packet.isReadable()) {
+      return false;
+    }
+    final var flags = packet.readByte();
+    final var id = (flags & 0b11100000) >> 5;
+    final var optional = PacketReliability.fromId(id);
+    if (optional.isEmpty()) {
+      return false;
+    }
+    final var frameReliability = optional.get();
+    this.reliability = frameReliability;
+    this.split = (flags & 0b00010000) != 0;
+    this.payloadLength = packet.readUnsignedShort() + 7 >> 3;
+    if (frameReliability.isReliable()) {
+      this.reliabilityIndex = packet.readUnsignedMediumLE();
+    }
+    if (frameReliability.isSequenced()) {
+      this.sequenceIndex = packet.readUnsignedMediumLE();
+    }
+    if (frameReliability.isOrdered() || frameReliability.isSequenced()) {
+      this.orderingIndex = packet.readUnsignedMediumLE();
+      this.orderingChannel = packet.readUnsignedByte();
+    }
+    if (this.split) {
+      this.partCount = packet.readInt();
+      this.partId = packet.readUnsignedShort();
+      this.partIndex = packet.readInt();
+    }
+    if (packet.readableBytes() < this.payloadLength) {
+      return false;
+    }
+    this.payloadIndex = packet.readerIndex();
+    packet.skipBytes(this.payloadLength);
+    return true;
+  }
+
+  /**
+   * resets the cursor to the given datagram and reads the datagram header.
+   *
+   * @param datagram the datagram to read.
+   */
+  public void reset(@NotNull final ByteBuf datagram) {
+    this.buffer = datagram;
+    datagram.readByte();
+    this.datagramSequenceIndex = datagram.readUnsignedMediumLE();
+  }
+}
@@ -0,0 +1,314 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.objects;
+
+import io.github.shiruka.shiruka.network.util.Constants;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * a class that discovers the path mtu of a connection while it's alive.
+ * <p>
+ * the negotiated mtu from the open connection requests is the ceiling since the client does not accept
+ * bigger datagrams. the discovery starts from a conservative size and climbs to the ceiling with probes that are
+ * searched binary. the effective mtu steps down one level when the datagrams that are bigger than the last size
+ * confirmed by an ACK keep getting lost, so the ordinary losses of a congested link do not shrink it.
+ * <p>
+ * all the methods, except {@link #onPayload(int)} and {@link #getAdjustedMtu()}, must be called in the event loop
+ * of the connection.
+ */
+public final class NetMtuDiscovery {
+
+  /**
+   * the mtu sizes to step down when a black hole is detected.
+   */
+  private static final int[] LEVELS = {1492, 1400, 1280, 1200, 1024, 900, 800, 700, Constants.MINIMUM_MTU_SIZE};
+
+  /**
+   * the negotiated mtu size.
+   */
+  private final int ceiling;
+
+  /**
+   * the total split fragment count.
+   */
+  private final LongAdder fragments = new LongAdder();
+
+  /**
+   * the ip and udp header size.
+   */
+  private final int headerSize;
+
+  /**
+   * the total payload count.
+   */
+  private final LongAdder payloads = new LongAdder();
+
+  /**
+   * the split payload count.
+   */
+  private final LongAdder splitPayloads = new LongAdder();
+
+  /**
+   * the biggest mtu size that is confirmed by an ACK.
+   */
+  private int confirmed = Constants.MINIMUM_MTU_SIZE;
+
+  /**
+   * the effective mtu size.
+   */
+  private volatile int current;
+
+  /**
+   * the upper bound of the current search.
+   */
+  private int high;
+
+  /**
+   * the lost large datagram count in a row.
+   */
+  private int largeLosses;
+
+  /**
+   * the next probe time.
+   */
+  private long nextProbe;
+
+  /**
+   * the probe sent time.
+   */
+  private long probeSentTime;
+
+  /**
+   * the sequence index of the datagram that carries the probe.
+   */
+  private int probeSequenceIndex = -1;
+
+  /**
+   * the size of the probe in flight.
+   */
+  private int probeSize = -1;
+
+  /**
+   * ctor.
+   *
+   * @param ceiling the negotiated mtu size.
+   * @param headerSize the ip and udp header size.
+   */
+  public NetMtuDiscovery(final int ceiling, final int headerSize) {
+    this.ceiling = ceiling;
+    this.headerSize = headerSize;
+    this.current = Math.max(Constants.MINIMUM_MTU_SIZE, Math.min(ceiling, Constants.MTU_INITIAL_SIZE));
+    this.high = ceiling;
+  }
+
+  /**
+   * checks the probe in flight and marks it as lost if it's not ACKed in time.
+   *
+   * @param now the now to check.
+   * @param rto the rto of the connection.
+   */
+  public void checkProbeTimeout(final long now, final long rto) {
+    if (this.probeSize != -1 && now - this.probeSentTime > rto) {
+      this.onProbeLost(now);
+    }
+  }
+
+  /**
+   * obtains the effective mtu size without ip and udp headers.
+   *
+   * @return adjusted mtu size.
+   */
+  public int getAdjustedMtu() {
+    return this.current - this.headerSize;
+  }
+
+  /**
+   * obtains the effective mtu size.
+   *
+   * @return effective mtu size.
+   */
+  public int getCurrent() {
+    return this.current;
+  }
+
+  /**
+   * obtains the average fragment count of the split payloads.
+   *
+   * @return average fragment count.
+   */
+  public double getFragmentsPerSplit() {
+    final var split = this.splitPayloads.sum();
+    return split == 0 ? 0.0D : (double) this.fragments.sum() / split;
+  }
+
+  /**
+   * obtains the ratio of the payloads that have to be split.
+   *
+   * @return split rate between 0 and 1.
+   */
+  public double getSplitRate() {
+    final var total = this.payloads.sum();
+    return total == 0 ? 0.0D : (double) this.splitPayloads.sum() / total;
+  }
+
+  /**
+   * runs when a datagram ACKed.
+   *
+   * @param sequenceIndex the sequence index of the datagram.
+   * @param size the size of the datagram, -1 if it's not tracked.
+   * @param now the now to handle.
+   */
+  public void onACK(final int sequenceIndex, final int size, final long now) {
+    if (this.probeSize != -1 && sequenceIndex == this.probeSequenceIndex) {
+      this.current = this.probeSize;
+      this.confirmed = Math.max(this.confirmed, this.probeSize);
+      this.largeLosses = 0;
+      this.clearProbe(now);
+      return;
+    }
+    if (size != -1 && size + this.headerSize > this.confirmed) {
+      this.confirmed = Math.min(this.ceiling, size + this.headerSize);
+      this.largeLosses = 0;
+    }
+  }
+
+  /**
+   * runs when a datagram lost.
+   * <p>
+   * only the datagrams that are bigger than the confirmed size count for the black hole detection.
+   *
+   * @param size the size of the datagram.
+   * @param now the now to handle.
+   */
+  public void onDatagramLost(final int size, final long now) {
+    if (size + this.headerSize <= this.confirmed || ++this.largeLosses < Constants.MTU_BLACK_HOLE_THRESHOLD) {
+      return;
+    }
+    this.largeLosses = 0;
+    this.high = Math.max(this.confirmed, this.current - 1);
+    this.current = this.stepDown();
+    this.clearProbe(now);
+  }
+
+  /**
+   * runs when a datagram NACKed.
+   *
+   * @param sequenceIndex the sequence index of the datagram.
+   * @param now the now to handle.
+   */
+  public void onNACK(final int sequenceIndex, final long now) {
+    if (this.probeSize != -1 && sequenceIndex == this.probeSequenceIndex) {
+      this.onProbeLost(now);
+    }
+  }
+
+  /**
+   * counts the given payload to calculate split rate.
+   *
+   * @param parts the fragment count of the payload.
+   */
+  public void onPayload(final int parts) {
+    this.payloads.increment();
+    if (parts > 1) {
+      this.splitPayloads.increment();
+      this.fragments.add(parts);
+    }
+  }
+
+  /**
+   * runs when the probe datagram sent.
+   *
+   * @param sequenceIndex the sequence index of the probe datagram.
+   * @param now the now to handle.
+   */
+  public void onProbeSent(final int sequenceIndex, final long now) {
+    this.probeSequenceIndex = sequenceIndex;
+    this.probeSentTime = now;
+  }
+
+  /**
+   * checks if a probe should be sent.
+   *
+   * @param now the now to check.
+   *
+   * @return {@code true} if a probe should be sent.
+   */
+  public boolean shouldProbe(final long now) {
+    return this.probeSize == -1 && this.current < this.ceiling && now >= this.nextProbe;
+  }
+
+  /**
+   * starts the next probe of the binary search.
+   *
+   * @param now the now to start.
+   *
+   * @return the mtu size to probe or -1 if the search converged.
+   */
+  public int startProbe(final long now) {
+    if (this.high - this.current < Constants.MTU_PROBE_STEP) {
+      this.high = this.ceiling;
+      this.nextProbe = now + Constants.MTU_PROBE_INTERVAL_MS;
+      return -1;
+    }
+    this.probeSize = this.current + this.high + 1 >>> 1;
+    return this.probeSize;
+  }
+
+  /**
+   * clears the probe in flight and schedules the next one immediately.
+   *
+   * @param now the now to clear.
+   */
+  private void clearProbe(final long now) {
+    this.probeSize = -1;
+    this.probeSequenceIndex = -1;
+    this.nextProbe = now;
+  }
+
+  /**
+   * runs when the probe in flight lost.
+   *
+   * @param now the now to handle.
+   */
+  private void onProbeLost(final long now) {
+    this.high = this.probeSize - 1;
+    this.clearProbe(now);
+  }
+
+  /**
+   * finds the next lower mtu level that is not below the confirmed size.
+   *
+   * @return the lower mtu size.
+   */
+  private int stepDown() {
+    for (final var level : NetMtuDiscovery.LEVELS) {
+      if (level < this.current) {
+        return Math.max(level, this.confirmed);
+      }
+    }
+    return Math.max(Constants.MINIMUM_MTU_SIZE, this.confirmed);
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.objects;
+
+import io.github.shiruka.shiruka.network.util.Misc;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that reorders the packets of an ordering channel.
+ * <p>
+ * the packets in the window of the read index are stored in a ring indexed by their ordering index, so an in-window
+ * arrival is a single array store. the packets that arrive too early for the window spill into a heap that is
+ * allocated on first use.
+ */
+public final class NetReorderRing {
+
+  /**
+   * the mask of the ring.
+   */
+  private final int mask;
+
+  /**
+   * the ring.
+   */
+  @NotNull
+  private final EncapsulatedPacket[] ring;
+
+  /**
+   * the packets that arrived beyond the window.
+   */
+  @Nullable
+  private FastBinaryMinHeap<EncapsulatedPacket> overflow;
+
+  /**
+   * the next ordering index to read.
+   */
+  private int readIndex;
+
+  /**
+   * the packet count in the ring.
+   */
+  private int size;
+
+  /**
+   * ctor.
+   *
+   * @param capacity the window capacity.
+   */
+  public NetReorderRing(final int capacity) {
+    final var ceiling = Misc.powerOfTwoCeiling(capacity);
+    this.ring = new EncapsulatedPacket[ceiling];
+    this.mask = ceiling - 1;
+  }
+
+  /**
+   * estimates the retained bytes of the ring.
+   *
+   * @return estimated footprint in bytes.
+   */
+  public long estimateFootprint() {
+    var footprint = 32L + 16L + (long) this.ring.length * 4L;
+    if (this.overflow != null) {
+      footprint += 16L + this.overflow.capacity() * 12L;
+    }
+    return footprint;
+  }
+
+  /**
+   * obtains the read index.
+   *
+   * @return the next ordering index to read.
+   */
+  public int getReadIndex() {
+    return this.readIndex;
+  }
+
+  /**
+   * increases the read index after a packet is read without being queued.
+   */
+  public void increaseReadIndex() {
+    this.readIndex++;
+  }
+
+  /**
+   * queues the given packet that arrived before its turn.
+   *
+   * @param packet the packet to queue.
+   *
+   * @return {@code false} if the packet is a duplicate and was not queued.
+   */
+  public boolean offer(@NotNull final EncapsulatedPacket packet) {
+    final var index = packet.orderingIndex;
+    if (index - this.readIndex > this.mask) {
+      if (this.overflow == null) {
+        this.overflow = new FastBinaryMinHeap<>();
+      }
+      this.overflow.insert(index, packet);
+      return true;
+    }
+    final var slot = index & this.mask;
+    if (this.ring[slot] != null) {
+      return false;
+    }
+    this.ring[slot] = packet;
+    this.size++;
+    return true;
+  }
+
+  /**
+   * polls the packet that has the read index and increases the read index.
+   *
+   * @return the next packet in order or {@code null} if it has not arrived yet.
+   */
+  @Nullable
+  public EncapsulatedPacket poll() {
+    final var slot = this.readIndex & this.mask;
+    final var packet = this.ring[slot];
+    if (packet != null) {
+      this.ring[slot] = null;
+      this.size--;
+      this.readIndex++;
+      return packet;
+    }
+    final var heap = this.overflow;
+    if (heap == null) {
+      return null;
+    }
+    EncapsulatedPacket stale;
+    while (heap.peekWeight() < this.readIndex && (stale = heap.poll()) != null) {
+      stale.release();
+    }
+    if (heap.peekWeight() != this.readIndex) {
+      return null;
+    }
+    this.readIndex++;
+    return heap.poll();
+  }
+
+  /**
+   * releases all the queued packets.
+   */
+  public void release() {
+    if (this.size > 0) {
+      for (var i = 0; i < this.ring.length; i++) {
+        final var packet = this.ring[i];
+        if (packet != null) {
+          this.ring[i] = null;
+          packet.release();
+        }
+      }
+      this.size = 0;
+    }
+    final var heap = this.overflow;
+    if (heap != null) {
+      EncapsulatedPacket packet;
+      while ((packet = heap.poll()) != null) {
+        packet.release();
+      }
+    }
+  }
+}
@@ -62,6 +62,15 @@ public final class RoundRobinArray<E> {
     this.mask = cap - 1;
   }
 
+  /**
+   * obtains the slot count of the array.
+   *
+   * @return capacity of the array.
+   */
+  public int capacity() {
+    return this.elements.length();
+  }
+
   /**
    * runs the consumer for each element in the array.
    *
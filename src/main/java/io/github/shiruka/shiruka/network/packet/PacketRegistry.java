@@ -72,6 +72,8 @@ public final class PacketRegistry {
     PacketRegistry.putIn(PacketInClientCacheStatus.class, PlayerConnection.State.STATUS, 129);
     // packets of any state.
     PacketRegistry.putOut(PacketOutDisconnect.class, PlayerConnection.State.ANY, 5);
+    PacketRegistry.putIn(PacketInClientCacheBlobStatus.class, PlayerConnection.State.ANY, 135);
+    PacketRegistry.putOut(PacketOutClientCacheMissResponse.class, PlayerConnection.State.ANY, 136);
     PacketRegistry.PACKETS.trim();
     PacketRegistry.PACKET_IDS.trim();
   }
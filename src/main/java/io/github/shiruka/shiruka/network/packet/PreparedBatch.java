@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.packet;
+
+import io.github.shiruka.shiruka.network.protocol.Protocol;
+import io.github.shiruka.shiruka.network.util.Constants;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents batches which are serialized, compressed and framed once to be sent to many connections.
+ * <p>
+ * the batch keeps its off-heap buffer until {@link #release()} is called, every send uses a retained duplicate of it.
+ */
+public final class PreparedBatch {
+
+  /**
+   * the framed batch.
+   */
+  @NotNull
+  private final ByteBuf buffer;
+
+  /**
+   * ctor.
+   *
+   * @param buffer the framed batch.
+   */
+  private PreparedBatch(@NotNull final ByteBuf buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * serializes, compresses and frames the given packets.
+   *
+   * @param level the compression level.
+   * @param packets the packets to prepare.
+   *
+   * @return a new prepared batch.
+   */
+  @NotNull
+  public static PreparedBatch of(final int level, @NotNull final PacketOut... packets) {
+    final var buffer = ByteBufAllocator.DEFAULT.directBuffer();
+    try {
+      buffer.writeByte(Constants.BATCH_MAGIC);
+      Protocol.serialize(buffer, Arrays.asList(packets), level);
+      return new PreparedBatch(buffer);
+    } catch (final Exception e) {
+      buffer.release();
+      throw e;
+    }
+  }
+
+  /**
+   * wraps the given framed batch, such as a slice of a file that the batches are written to.
+   *
+   * @param buffer the framed batch to wrap, the batch owns its reference.
+   *
+   * @return a new prepared batch.
+   */
+  @NotNull
+  public static PreparedBatch wrap(@NotNull final ByteBuf buffer) {
+    return new PreparedBatch(buffer);
+  }
+
+  /**
+   * obtains a retained duplicate of the framed batch to send.
+   *
+   * @return framed batch.
+   */
+  @NotNull
+  public ByteBuf getBuffer() {
+    return this.buffer.retainedDuplicate();
+  }
+
+  /**
+   * obtains the framed batch size.
+   *
+   * @return framed batch size.
+   */
+  public int getSize() {
+    return this.buffer.readableBytes();
+  }
+
+  /**
+   * releases the framed batch.
+   */
+  public void release() {
+    this.buffer.release();
+  }
+
+  /**
+   * creates a batch that shares the framed batch and holds its own reference, which must be released after sending.
+   *
+   * @return a retained duplicate batch.
+   */
+  @NotNull
+  public PreparedBatch retainedDuplicate() {
+    return new PreparedBatch(this.buffer.retainedDuplicate());
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.packets;
+
+import io.github.shiruka.shiruka.network.impl.PlayerConnection;
+import io.github.shiruka.shiruka.network.packet.PacketIn;
+import io.github.shiruka.shiruka.network.util.VarInts;
+import io.netty.buffer.ByteBuf;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * sends by the clients which support the blob cache to report the blobs that they have or miss.
+ * the missing blobs are sent back with {@link PacketOutClientCacheMissResponse}.
+ */
+public final class PacketInClientCacheBlobStatus extends PacketIn {
+
+  /**
+   * the maximum blob id count that a single packet can contain.
+   */
+  private static final int MAXIMUM_BLOB_IDS = 4096;
+
+  /**
+   * ctor.
+   */
+  public PacketInClientCacheBlobStatus() {
+    super(PacketInClientCacheBlobStatus.class);
+  }
+
+  @Override
+  public void read(@NotNull final ByteBuf buf, @NotNull final PlayerConnection connection) {
+    final var missCount = VarInts.readUnsignedVarInt(buf);
+    final var hitCount = VarInts.readUnsignedVarInt(buf);
+    if (missCount < 0 || hitCount < 0 || missCount > PacketInClientCacheBlobStatus.MAXIMUM_BLOB_IDS ||
+      hitCount > PacketInClientCacheBlobStatus.MAXIMUM_BLOB_IDS - missCount) {
+      return;
+    }
+    final var table = connection.getBlobTable();
+    final var store = connection.getServer().getBlobStore();
+    final var blobs = new Long2ObjectOpenHashMap<byte[]>(Math.min(missCount, buf.readableBytes() / Long.BYTES));
+    for (var index = 0; index < missCount; index++) {
+      final var id = buf.readLongLE();
+      table.onMiss(id);
+      store.get(id).ifPresent(blob -> blobs.put(id, blob));
+    }
+    for (var index = 0; index < hitCount; index++) {
+      table.onHit(buf.readLongLE());
+    }
+    if (!blobs.isEmpty()) {
+      connection.sendPacket(new PacketOutClientCacheMissResponse(blobs));
+    }
+  }
+}
@@ -46,7 +46,6 @@ public final class PacketInClientCacheStatus extends PacketIn {
 
   @Override
   public void read(@NotNull final ByteBuf buf, @NotNull final PlayerConnection connection) {
-    final var blobCacheSupport = buf.readBoolean();
-    // @todo #1:15m Add blobCacheSupport field for ShirukaPlayer to set/get blob cache support.
+    connection.setBlobCacheSupported(buf.readBoolean());
   }
 }
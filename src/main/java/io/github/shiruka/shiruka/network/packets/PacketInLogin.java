@@ -25,23 +25,12 @@
 
 package io.github.shiruka.shiruka.network.packets;
 
-import io.github.shiruka.api.Shiruka;
-import io.github.shiruka.api.text.ChatColor;
-import io.github.shiruka.api.text.Text;
-import io.github.shiruka.api.text.TranslatedText;
-import io.github.shiruka.shiruka.config.ServerConfig;
-import io.github.shiruka.shiruka.event.SimpleChainData;
-import io.github.shiruka.shiruka.event.SimpleLoginData;
-import io.github.shiruka.shiruka.language.Languages;
 import io.github.shiruka.shiruka.network.impl.PlayerConnection;
 import io.github.shiruka.shiruka.network.packet.PacketIn;
-import io.github.shiruka.shiruka.network.packet.PacketOut;
 import io.github.shiruka.shiruka.network.util.Constants;
 import io.github.shiruka.shiruka.network.util.Packets;
 import io.github.shiruka.shiruka.network.util.VarInts;
-import io.github.shiruka.shiruka.scheduler.AsyncTask;
 import io.netty.buffer.ByteBuf;
-import java.util.regex.Pattern;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -49,11 +38,6 @@ import org.jetbrains.annotations.NotNull;
  */
 public final class PacketInLogin extends PacketIn {
 
-  /**
-   * the name pattern to check client's usernames.
-   */
-  private static final Pattern NAME_PATTERN = Pattern.compile("^[a-z\\s\\d_]{3,16}+$");
-
   /**
    * ctor.
    */
@@ -69,7 +53,7 @@ public final class PacketInLogin extends PacketIn {
     final var protocolVersion = buf.readInt();
     final var jwt = buf.readSlice(VarInts.readUnsignedVarInt(buf));
     final var encodedChainData = Packets.readLEAsciiString(jwt).toString();
-    final var encodedSkinData = Packets.readLEAsciiString(jwt).toString();
+    final var encodedSkinData = Packets.readLEAsciiString(jwt);
     if (protocolVersion < Constants.MINECRAFT_PROTOCOL_VERSION) {
       connection.sendPacket(new PacketOutPlayStatus(PacketOutPlayStatus.Status.LOGIN_FAILED_CLIENT_OLD));
       return;
@@ -78,50 +62,6 @@ public final class PacketInLogin extends PacketIn {
       connection.sendPacket(new PacketOutPlayStatus(PacketOutPlayStatus.Status.LOGIN_FAILED_SERVER_OLD));
       return;
     }
-    connection.getServer().getSchedulerService().execute(() -> {
-      final var chainData = SimpleChainData.create(encodedChainData, encodedSkinData);
-      Shiruka.getScheduler().schedule(() -> {
-        Languages.addLoadedLanguage(chainData.languageCode());
-        if (!chainData.xboxAuthed() && ServerConfig.ONLINE_MODE.getValue().orElse(false)) {
-          connection.disconnect(TranslatedText.get("disconnectionScreen.notAuthenticated"));
-          return;
-        }
-        final var username = chainData.username();
-        final var matcher = PacketInLogin.NAME_PATTERN.matcher(username);
-        if (!matcher.matches() ||
-          username.equalsIgnoreCase("rcon") ||
-          username.equalsIgnoreCase("console")) {
-          connection.disconnect(TranslatedText.get("disconnectionScreen.invalidName"));
-          return;
-        }
-        if (!chainData.skin().isValid()) {
-          connection.disconnect(TranslatedText.get("disconnectionScreen.invalidSkin"));
-          return;
-        }
-        final var loginData = new SimpleLoginData(chainData, connection, () -> ChatColor.clean(username));
-        connection.setLatestLoginData(loginData);
-        final var preLogin = Shiruka.getEventManager().playerPreLogin(loginData, () -> "Some reason.");
-        preLogin.callEvent();
-        if (preLogin.cancelled()) {
-          connection.disconnect(preLogin.kickMessage().map(Text::asString).orElse(null));
-          return;
-        }
-        connection.setState(PlayerConnection.State.STATUS);
-        final var asyncLogin = Shiruka.getEventManager().playerAsyncLogin(loginData);
-        loginData.setAsyncLogin(asyncLogin);
-        final var process = (AsyncTask) Shiruka.getScheduler().scheduleAsync(asyncLogin::callEvent);
-        process.onComplete(() -> {
-          if (loginData.shouldLogin()) {
-            loginData.initializePlayer();
-          }
-        });
-        loginData.setAsyncProcess(process);
-        connection.sendPacket(new PacketOutPlayStatus(PacketOutPlayStatus.Status.LOGIN_SUCCESS));
-        final var packInfo = Shiruka.getPackManager().getPackInfo();
-        if (packInfo instanceof PacketOut) {
-          connection.sendPacket((PacketOut) packInfo);
-        }
-      });
-    });
+    connection.getServer().getLoginPipeline().submit(connection, encodedChainData, encodedSkinData);
   }
 }
@@ -30,7 +30,11 @@ import io.github.shiruka.api.text.TranslatedText;
 import io.github.shiruka.shiruka.network.impl.PlayerConnection;
 import io.github.shiruka.shiruka.network.packet.PacketIn;
 import io.github.shiruka.shiruka.network.util.VarInts;
+import io.github.shiruka.shiruka.pack.PackChunkCache;
+import io.github.shiruka.shiruka.pack.SimplePackManager;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.Optional;
 import java.util.UUID;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -57,15 +61,46 @@ public final class PacketInResourcePackChunkRequest extends PacketIn {
     } else {
       version = null;
     }
-    final var chunkSize = buf.readIntLE();
-    final var resourcePack = Shiruka.getPackManager().getPack(packId + "_" + version);
-    if (resourcePack.isEmpty()) {
+    final var chunkIndex = buf.readIntLE();
+    final var key = packId + "_" + version;
+    final var manager = Shiruka.getPackManager();
+    final Optional<ByteBuf> chunk;
+    if (manager instanceof SimplePackManager) {
+      final var scheduler = ((SimplePackManager) manager).getDownloadScheduler();
+      if (scheduler.isPresent() && scheduler.get().submit(connection, packId, version, chunkIndex)) {
+        return;
+      }
+      final var pinned = connection.getPackSnapshot();
+      final var snapshot = pinned.orElseGet(((SimplePackManager) manager)::acquire);
+      try {
+        final var prepared = snapshot.getPreparedPack(key)
+          .flatMap(pack -> pack.getChunk(chunkIndex));
+        if (prepared.isPresent()) {
+          try {
+            connection.sendPrepared(prepared.get());
+          } finally {
+            prepared.get().release();
+          }
+          return;
+        }
+        final var mapped = snapshot.getChunkCache().getChunk(key, chunkIndex);
+        chunk = pinned.isPresent() ? mapped : mapped.map(Unpooled::copiedBuffer);
+      } finally {
+        if (pinned.isEmpty()) {
+          snapshot.release();
+        }
+      }
+    } else {
+      chunk = manager.getPack(key)
+        .map(pack -> Unpooled.wrappedBuffer(pack.getChunk(PackChunkCache.CHUNK_SIZE * chunkIndex,
+          PackChunkCache.CHUNK_SIZE)));
+    }
+    if (chunk.isEmpty()) {
       connection.disconnect(TranslatedText.get("disconnectionScreen.resourcePack").asString());
       return;
     }
-    final var pack = resourcePack.get();
-    final var packet = new PacketOutResourcePackChunkData(chunkSize, pack.getChunk(1048576 * chunkSize, 1048576),
-      packId, version, 1048576L * chunkSize);
+    final var packet = new PacketOutResourcePackChunkData(chunkIndex, chunk.get(), packId, version,
+      (long) PackChunkCache.CHUNK_SIZE * chunkIndex);
     connection.sendPacket(packet);
   }
 }
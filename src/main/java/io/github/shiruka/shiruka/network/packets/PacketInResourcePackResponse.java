@@ -26,12 +26,14 @@
 package io.github.shiruka.shiruka.network.packets;
 
 import io.github.shiruka.api.Shiruka;
+import io.github.shiruka.api.pack.Pack;
 import io.github.shiruka.api.text.TranslatedText;
 import io.github.shiruka.shiruka.config.ServerConfig;
 import io.github.shiruka.shiruka.network.impl.PlayerConnection;
 import io.github.shiruka.shiruka.network.packet.PacketIn;
 import io.github.shiruka.shiruka.network.packet.PacketOut;
 import io.github.shiruka.shiruka.network.util.VarInts;
+import io.github.shiruka.shiruka.pack.SimplePackManager;
 import io.netty.buffer.ByteBuf;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -70,6 +72,7 @@ public final class PacketInResourcePackResponse extends PacketIn {
     }
     switch (status) {
       case REFUSED:
+        connection.setPackSnapshot(null);
         if (ServerConfig.FORCE_RESOURCES.getValue().orElse(false)) {
           connection.disconnect(TranslatedText.get("disconnectionScreen.noReason"));
         }
@@ -86,8 +89,30 @@ public final class PacketInResourcePackResponse extends PacketIn {
         }
         break;
       case SEND_PACKS:
+        final var manager = Shiruka.getPackManager();
+        if (manager instanceof SimplePackManager) {
+          final var snapshot = connection.getPackSnapshot().orElseGet(() -> {
+            final var acquired = ((SimplePackManager) manager).acquire();
+            connection.setPackSnapshot(acquired);
+            return acquired;
+          });
+          var totalBytes = 0L;
+          for (final var pack : packs) {
+            final var prepared = snapshot.getPreparedPackByUniqueId(pack.getUniqueId());
+            if (prepared.isEmpty()) {
+              connection.disconnect(TranslatedText.get("disconnectionScreen.resourcePack"));
+              return;
+            }
+            totalBytes += snapshot.getPackByUniqueId(pack.getUniqueId()).map(Pack::getSize).orElse(0L);
+            connection.sendPrepared(prepared.get().getDataInfo());
+          }
+          final var total = totalBytes;
+          ((SimplePackManager) manager).getDownloadScheduler().ifPresent(scheduler ->
+            scheduler.start(connection, snapshot, total));
+          break;
+        }
         packs.forEach(pack -> {
-          final var optional = Shiruka.getPackManager().getPackByUniqueId(pack.getUniqueId());
+          final var optional = manager.getPackByUniqueId(pack.getUniqueId());
           if (optional.isEmpty()) {
             connection.disconnect(TranslatedText.get("disconnectionScreen.resourcePack"));
             return;
@@ -97,10 +122,21 @@ public final class PacketInResourcePackResponse extends PacketIn {
         });
         break;
       case HAVE_ALL_PACKS:
-        final var packStack = Shiruka.getPackManager().getPackStack();
-        if (packStack instanceof PacketOut) {
-          connection.sendPacket((PacketOut) packStack);
+        final var packManager = Shiruka.getPackManager();
+        if (packManager instanceof SimplePackManager) {
+          final var pinned = connection.getPackSnapshot();
+          final var snapshot = pinned.orElseGet(((SimplePackManager) packManager)::acquire);
+          try {
+            connection.sendPrepared(snapshot.getPreparedPackStack());
+          } finally {
+            if (pinned.isEmpty()) {
+              snapshot.release();
+            }
+          }
+        } else if (packManager.getPackStack() instanceof PacketOut) {
+          connection.sendPacket((PacketOut) packManager.getPackStack());
         }
+        connection.setPackSnapshot(null);
         break;
     }
   }
@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network.packets;
+
+import io.github.shiruka.shiruka.network.packet.PacketOut;
+import io.github.shiruka.shiruka.network.util.VarInts;
+import io.netty.buffer.ByteBuf;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents client cache miss response packets.
+ * it contains the blobs that the client reported as missing.
+ */
+public final class PacketOutClientCacheMissResponse extends PacketOut {
+
+  /**
+   * the blobs.
+   */
+  @NotNull
+  private final Long2ObjectMap<byte[]> blobs;
+
+  /**
+   * ctor.
+   *
+   * @param blobs the blobs.
+   */
+  public PacketOutClientCacheMissResponse(@NotNull final Long2ObjectMap<byte[]> blobs) {
+    super(PacketOutClientCacheMissResponse.class);
+    this.blobs = blobs;
+  }
+
+  @Override
+  public void write(@NotNull final ByteBuf buf) {
+    VarInts.writeUnsignedInt(buf, this.blobs.size());
+    for (final var entry : this.blobs.long2ObjectEntrySet()) {
+      buf.writeLongLE(entry.getLongKey());
+      VarInts.writeByteArray(buf, entry.getValue());
+    }
+  }
+}
@@ -45,7 +45,8 @@ public final class PacketOutResourcePackChunkData extends PacketOut {
   /**
    * the data.
    */
-  private final byte[] data;
+  @NotNull
+  private final ByteBuf data;
 
   /**
    * the pack id.
@@ -68,16 +69,16 @@ public final class PacketOutResourcePackChunkData extends PacketOut {
    * ctor.
    *
    * @param chunkIndex the chunk index.
-   * @param data the data.
+   * @param data the data, which is not retained and must stay readable until the packet is written.
    * @param packId the pack id.
    * @param packVersion the pack version.
    * @param progress the progress.
    */
-  public PacketOutResourcePackChunkData(final int chunkIndex, final byte[] data, @NotNull final UUID packId,
+  public PacketOutResourcePackChunkData(final int chunkIndex, @NotNull final ByteBuf data, @NotNull final UUID packId,
                                         @Nullable final String packVersion, final long progress) {
     super(PacketOutResourcePackChunkData.class);
     this.chunkIndex = chunkIndex;
-    this.data = data.clone();
+    this.data = data;
     this.packId = packId;
     this.packVersion = packVersion;
     this.progress = progress;
@@ -89,6 +90,8 @@ public final class PacketOutResourcePackChunkData extends PacketOut {
     VarInts.writeString(buf, packInfo);
     buf.writeIntLE(this.chunkIndex);
     buf.writeLongLE(this.progress);
-    VarInts.writeByteArray(buf, this.data);
+    final var length = this.data.readableBytes();
+    VarInts.writeUnsignedInt(buf, length);
+    buf.writeBytes(this.data, this.data.readerIndex(), length);
   }
 }
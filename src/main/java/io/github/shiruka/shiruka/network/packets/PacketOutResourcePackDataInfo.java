@@ -28,6 +28,7 @@ package io.github.shiruka.shiruka.network.packets;
 import io.github.shiruka.api.pack.Pack;
 import io.github.shiruka.shiruka.network.packet.PacketOut;
 import io.github.shiruka.shiruka.network.util.VarInts;
+import io.github.shiruka.shiruka.pack.PackChunkCache;
 import io.netty.buffer.ByteBuf;
 import org.jetbrains.annotations.NotNull;
 
@@ -36,11 +37,6 @@ import org.jetbrains.annotations.NotNull;
  */
 public final class PacketOutResourcePackDataInfo extends PacketOut {
 
-  /**
-   * the maximum chunk size.
-   */
-  private static final int MAX_CHUNK_SIZE = 1048576;
-
   @NotNull
   private final Pack pack;
 
@@ -57,8 +53,8 @@ public final class PacketOutResourcePackDataInfo extends PacketOut {
   @Override
   public void write(@NotNull final ByteBuf buf) {
     VarInts.writeString(buf, this.pack.getId().toString() + '_' + this.pack.getVersion());
-    buf.writeIntLE(PacketOutResourcePackDataInfo.MAX_CHUNK_SIZE);
-    buf.writeIntLE((int) (this.pack.getSize() / PacketOutResourcePackDataInfo.MAX_CHUNK_SIZE));
+    buf.writeIntLE(PackChunkCache.CHUNK_SIZE);
+    buf.writeIntLE(PackChunkCache.getChunkCount(this.pack.getSize()));
     buf.writeLongLE(this.pack.getSize());
     final var hash = this.pack.getHash();
     VarInts.writeUnsignedInt(buf, hash.length);
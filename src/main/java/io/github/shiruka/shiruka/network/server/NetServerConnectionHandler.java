@@ -31,7 +31,7 @@ import io.github.shiruka.shiruka.network.ConnectionState;
 import io.github.shiruka.shiruka.network.DisconnectReason;
 import io.github.shiruka.shiruka.network.objects.EncapsulatedPacket;
 import io.github.shiruka.shiruka.network.objects.IntRange;
-import io.github.shiruka.shiruka.network.objects.NetDatagramPacket;
+import io.github.shiruka.shiruka.network.objects.NetFrameCursor;
 import io.github.shiruka.shiruka.network.objects.SplitPacketHelper;
 import io.github.shiruka.shiruka.network.util.Constants;
 import io.github.shiruka.shiruka.network.util.Packets;
@@ -59,6 +59,12 @@ public final class NetServerConnectionHandler implements ConnectionHandler {
   @NotNull
   private final Connection<ServerSocket> connection;
 
+  /**
+   * the frame cursor to walk received datagrams.
+   */
+  @NotNull
+  private final NetFrameCursor cursor = new NetFrameCursor();
+
   /**
    * ctor.
    *
@@ -119,6 +125,51 @@ public final class NetServerConnectionHandler implements ConnectionHandler {
     }
   }
 
+  /**
+   * checks the given reliability index against the received reliable frames and marks it as received.
+   *
+   * @param reliabilityIndex the reliability index to check.
+   *
+   * @return {@code false} if the frame is a duplicate.
+   */
+  private boolean checkReliability(final int reliabilityIndex) {
+    final var cache = this.connection.getCache();
+    cache.lockReliabilityReadLock();
+    try {
+      final var readIndex = this.connection.getReliabilityReadIndex();
+      final var missed = reliabilityIndex - readIndex.get();
+      final var reliableDatagramQueue = cache.getReliableDatagramQueue();
+      if (missed > 0) {
+        if (missed < reliableDatagramQueue.size()) {
+          if (!reliableDatagramQueue.get(missed)) {
+            return false;
+          }
+          reliableDatagramQueue.set(missed, false);
+        } else {
+          final var count = missed - reliableDatagramQueue.size();
+          for (var i = 0; i < count; i++) {
+            reliableDatagramQueue.add(true);
+          }
+          reliableDatagramQueue.add(false);
+        }
+      } else if (missed == 0) {
+        readIndex.incrementAndGet();
+        if (!reliableDatagramQueue.isEmpty()) {
+          reliableDatagramQueue.poll();
+        }
+      } else {
+        return false;
+      }
+      while (!reliableDatagramQueue.isEmpty() && !reliableDatagramQueue.peek()) {
+        reliableDatagramQueue.poll();
+        readIndex.incrementAndGet();
+      }
+      return true;
+    } finally {
+      cache.unlockReliabilityReadLock();
+    }
+  }
+
   /**
    * obtains reassembled packet.
    *
@@ -217,66 +268,45 @@ public final class NetServerConnectionHandler implements ConnectionHandler {
     if (ConnectionState.INITIALIZED.compareTo(this.connection.getState()) > 0) {
       return;
     }
-    final var datagram = new NetDatagramPacket(System.currentTimeMillis());
-    datagram.decode(packet);
-    final var cache = this.connection.getCache();
-    cache.getSlidingWindow().onPacketReceived(datagram.getTime());
-    final var prevSequenceIndex = this.connection.getDatagramReadIndex().getAndAccumulate(datagram.getSequenceIndex(),
-      (prev, newIndex) -> prev <= newIndex ? newIndex + 1 : prev);
-    final var missedDatagrams = datagram.getSequenceIndex() - prevSequenceIndex;
-    if (missedDatagrams > 0) {
-      cache.getOutgoingNACKs().offer(new IntRange(datagram.getSequenceIndex() - missedDatagrams, datagram.getSequenceIndex()));
-    }
-    cache.getOutgoingACKs().offer(new IntRange(datagram.getSequenceIndex()));
-    for (final var encapsulated : datagram.getPackets()) {
-      if (encapsulated.getReliability().isReliable()) {
-        cache.lockReliabilityReadLock();
-        try {
-          final var missed = encapsulated.reliabilityIndex - this.connection.getReliabilityReadIndex().get();
-          final var reliableDatagramQueue = cache.getReliableDatagramQueue();
-          if (missed > 0) {
-            if (missed < reliableDatagramQueue.size()) {
-              if (reliableDatagramQueue.get(missed)) {
-                reliableDatagramQueue.set(missed, false);
-              } else {
-                continue;
-              }
-            } else {
-              final var count = missed - reliableDatagramQueue.size();
-              for (var i = 0; i < count; i++) {
-                reliableDatagramQueue.add(true);
-              }
-              reliableDatagramQueue.add(false);
-            }
-          } else if (missed == 0) {
-            this.connection.getReliabilityReadIndex().incrementAndGet();
-            if (!reliableDatagramQueue.isEmpty()) {
-              reliableDatagramQueue.poll();
-            }
-          } else {
+    final var cursor = this.cursor;
+    cursor.reset(packet);
+    try {
+      final var cache = this.connection.getCache();
+      cache.getSlidingWindow().onPacketReceived(System.currentTimeMillis());
+      final var sequenceIndex = cursor.getDatagramSequenceIndex();
+      final var prevSequenceIndex = this.connection.getDatagramReadIndex().getAndAccumulate(sequenceIndex,
+        (prev, newIndex) -> prev <= newIndex ? newIndex + 1 : prev);
+      final var missedDatagrams = sequenceIndex - prevSequenceIndex;
+      if (missedDatagrams > 0) {
+        cache.getOutgoingNACKs().offer(new IntRange(sequenceIndex - missedDatagrams, sequenceIndex));
+      }
+      cache.getOutgoingACKs().offer(new IntRange(sequenceIndex));
+      while (cursor.next()) {
+        final var reliability = cursor.getReliability();
+        if (reliability.isReliable() && !this.checkReliability(cursor.getReliabilityIndex())) {
+          continue;
+        }
+        if (!cursor.isSplit()) {
+          // the read indexes only move on the event loop, so the stale frames can be dropped without the lock.
+          if (reliability.isOrdered() &&
+            cache.getOrderReadIndex(cursor.getOrderingChannel()) > cursor.getOrderingIndex()) {
             continue;
           }
-          while (!reliableDatagramQueue.isEmpty() && !reliableDatagramQueue.peek()) {
-            reliableDatagramQueue.poll();
-            this.connection.getReliabilityReadIndex().incrementAndGet();
-          }
+          this.checkForOrdered(cursor.materialize());
+          continue;
+        }
+        final var reassembled = this.getReassembledPacket(cursor.materialize());
+        if (reassembled == null) {
+          continue;
+        }
+        try {
+          this.checkForOrdered(reassembled);
         } finally {
-          cache.unlockReliabilityReadLock();
+          reassembled.release();
         }
       }
-      if (!encapsulated.split) {
-        this.checkForOrdered(encapsulated);
-        continue;
-      }
-      final var reassembled = this.getReassembledPacket(encapsulated);
-      if (reassembled == null) {
-        continue;
-      }
-      try {
-        this.checkForOrdered(reassembled);
-      } finally {
-        reassembled.release();
-      }
+    } finally {
+      cursor.clear();
     }
   }
 
@@ -351,27 +381,24 @@ public final class NetServerConnectionHandler implements ConnectionHandler {
     final var cache = this.connection.getCache();
     cache.lockOrderingLock();
     try {
-      final var binaryHeap = cache.getOrderingHeap(packet.orderingChannel);
-      if (cache.getOrderReadIndex(packet.orderingChannel) < packet.orderingIndex) {
-        binaryHeap.insert(packet.orderingIndex, packet.retain());
+      final var channel = cache.getOrderingChannel(packet.orderingChannel);
+      final var readIndex = channel.getReadIndex();
+      if (readIndex < packet.orderingIndex) {
+        if (!channel.offer(packet.retain())) {
+          packet.release();
+        }
         return;
-      } else if (cache.getOrderReadIndex(packet.orderingChannel) > packet.orderingIndex) {
+      } else if (readIndex > packet.orderingIndex) {
         return;
       }
-      cache.increaseOrderReadIndex(packet.orderingChannel);
+      channel.increaseReadIndex();
       this.onEncapsulatedInternal(packet);
       EncapsulatedPacket queuedPacket;
-      while ((queuedPacket = binaryHeap.peek()) != null) {
-        if (queuedPacket.orderingIndex == cache.getOrderReadIndex(packet.orderingChannel)) {
-          try {
-            binaryHeap.remove();
-            cache.increaseOrderReadIndex(packet.orderingChannel);
-            this.onEncapsulatedInternal(queuedPacket);
-          } finally {
-            queuedPacket.release();
-          }
-        } else {
-          break;
+      while ((queuedPacket = channel.poll()) != null) {
+        try {
+          this.onEncapsulatedInternal(queuedPacket);
+        } finally {
+          queuedPacket.release();
         }
       }
     } finally {
@@ -25,20 +25,35 @@
 
 package io.github.shiruka.shiruka.network.server;
 
+import io.github.shiruka.shiruka.network.Connection;
 import io.github.shiruka.shiruka.network.util.Packets;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.socket.DatagramPacket;
-import io.netty.handler.codec.MessageToMessageDecoder;
-import java.util.List;
-import java.util.Optional;
+import io.netty.util.concurrent.FastThreadLocal;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import java.util.Set;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * a simple server datagram handler.
+ * <p>
+ * the datagrams of a read batch are handled one by one. the connections that received any of them run their batch
+ * work once the batch completes.
  */
 @ChannelHandler.Sharable
-final class NetServerDatagramHandler extends MessageToMessageDecoder<DatagramPacket> {
+final class NetServerDatagramHandler extends ChannelInboundHandlerAdapter {
+
+  /**
+   * the connections that received datagrams in the current read batch of the event loop.
+   */
+  private static final FastThreadLocal<Set<Connection<ServerSocket>>> BATCH = new FastThreadLocal<>() {
+    @Override
+    protected Set<Connection<ServerSocket>> initialValue() {
+      return new ReferenceOpenHashSet<>();
+    }
+  };
 
   /**
    * the server socket instance.
@@ -55,6 +70,34 @@ final class NetServerDatagramHandler extends MessageToMessageDecoder<DatagramPac
     this.server = server;
   }
 
+  @Override
+  public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+    if (!(msg instanceof DatagramPacket)) {
+      ctx.fireChannelRead(msg);
+      return;
+    }
+    final var datagram = (DatagramPacket) msg;
+    try {
+      this.handle(ctx, datagram);
+    } finally {
+      datagram.release();
+    }
+  }
+
+  @Override
+  public void channelReadComplete(final ChannelHandlerContext ctx) {
+    final var batch = NetServerDatagramHandler.BATCH.get();
+    if (!batch.isEmpty()) {
+      final var now = System.currentTimeMillis();
+      try {
+        batch.forEach(connection -> connection.onReadComplete(now));
+      } finally {
+        batch.clear();
+      }
+    }
+    ctx.fireChannelReadComplete();
+  }
+
   @Override
   public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
     this.server.getExceptionHandlers().values().forEach(cons ->
@@ -66,8 +109,13 @@ final class NetServerDatagramHandler extends MessageToMessageDecoder<DatagramPac
     this.server.addChannel(ctx.channel());
   }
 
-  @Override
-  protected void decode(final ChannelHandlerContext ctx, final DatagramPacket datagram, final List<Object> out) {
+  /**
+   * handles the given datagram.
+   *
+   * @param ctx the context to handle.
+   * @param datagram the datagram to handle.
+   */
+  private void handle(@NotNull final ChannelHandlerContext ctx, @NotNull final DatagramPacket datagram) {
     final var sender = datagram.sender();
     if (this.server.getBlockedAddresses().containsKey(sender.getAddress())) {
       return;
@@ -80,8 +128,11 @@ final class NetServerDatagramHandler extends MessageToMessageDecoder<DatagramPac
       return;
     }
     content.readerIndex(0);
-    Optional.ofNullable(this.server.getConnectionsByAddress().get(sender))
-      .ifPresent(con -> con.getConnectionHandler().onRawDatagram(content));
+    final var connection = this.server.getConnectionsByAddress().get(sender);
+    if (connection != null) {
+      connection.getConnectionHandler().onRawDatagram(content);
+      NetServerDatagramHandler.BATCH.get().add(connection);
+    }
     content.readerIndex(0);
     this.server.getServerListener().onUnhandledDatagram(this.server, ctx, datagram);
   }
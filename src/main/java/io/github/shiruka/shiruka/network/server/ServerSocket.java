@@ -93,6 +93,19 @@ public interface ServerSocket extends Socket {
   void createNewConnection(@NotNull InetSocketAddress recipient, @NotNull ChannelHandlerContext ctx, int mtu,
                            short protocolVersion);
 
+  /**
+   * estimates the retained bytes of the buffers of all the connections.
+   *
+   * @return estimated footprint in bytes.
+   *
+   * @see io.github.shiruka.shiruka.network.ConnectionCache#estimateFootprint()
+   */
+  default long estimateConnectionFootprint() {
+    return this.getConnectionsByAddress().values().stream()
+      .mapToLong(connection -> connection.getCache().estimateFootprint())
+      .sum();
+  }
+
   /**
    * list of the blocked addresses.
    *
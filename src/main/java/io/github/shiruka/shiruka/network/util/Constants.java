@@ -52,6 +52,11 @@ public final class Constants {
 
   public static final byte DATA_HEADER_BYTE_LENGTH = 9;
 
+  /**
+   * the amount of later datagrams that must be ACKed before a datagram in the gap is resent.
+   */
+  public static final int FAST_RETRANSMIT_THRESHOLD = 3;
+
   /**
    * it's for checking the packet is an ACK flag.
    */
@@ -69,6 +74,11 @@ public final class Constants {
    */
   public static final short FLAG_VALID = 0x80;
 
+  /**
+   * the maximum datagram payload size to receive in a batch, big enough for the mtu of any ethernet path.
+   */
+  public static final int MAXIMUM_DATAGRAM_PAYLOAD_SIZE = 1500;
+
   /**
    * the maximum encapsulated header size.
    */
@@ -97,8 +107,48 @@ public final class Constants {
 
   public static final short MINIMUM_MTU_SIZE = 576;
 
+  /**
+   * the amount of lost large datagrams in a row to fall back the mtu size.
+   */
+  public static final int MTU_BLACK_HOLE_THRESHOLD = 3;
+
+  /**
+   * the mtu size to start the path mtu discovery from, small enough for almost every path.
+   */
+  public static final int MTU_INITIAL_SIZE = 1200;
+
+  /**
+   * the interval to re-probe the path mtu after the search converged.
+   */
+  public static final long MTU_PROBE_INTERVAL_MS = 30000L;
+
+  /**
+   * the smallest mtu gap that is still worth probing.
+   */
+  public static final int MTU_PROBE_STEP = 16;
+
   public static final byte NUM_ORDERING_CHANNELS = 32;
 
+  /**
+   * the reorder window size of an ordering channel.
+   */
+  public static final int ORDERING_WINDOW_SIZE = 128;
+
+  /**
+   * the datagram count to receive with a single read on the epoll and io_uring transports.
+   */
+  public static final int RECEIVE_BATCH_SIZE = 16;
+
+  /**
+   * the default byte budget of the outgoing packets that wait for the congestion window.
+   */
+  public static final int SEND_QUEUE_BUDGET = 8 * 1024 * 1024;
+
+  /**
+   * the default time that a connection can stay over its send queue budget before it's disconnected.
+   */
+  public static final long SEND_QUEUE_EVICTION_MS = 5000L;
+
   /**
    * header size of the udp packets.
    */
@@ -177,7 +177,7 @@ public final class Packets {
     final var length = buffer.readIntLE();
     final var bytes = new byte[length];
     buffer.readBytes(bytes);
-    return new AsciiString(bytes);
+    return new AsciiString(bytes, false);
   }
 
   /**
@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.pack;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that keeps the prepared pack files memory-mapped to serve their chunks.
+ * <p>
+ * every pack file is mapped once and the chunks are served as read-only slices of the mapping, so all the players
+ * that download the same pack share the same memory and no {@code byte[]} is created for the chunks. a mapping can't
+ * be larger than 2 GiB, so the files are mapped in segments of {@link #SEGMENT_SIZE} which hold whole chunks.
+ */
+public final class PackChunkCache {
+
+  /**
+   * the chunk size of the pack downloads.
+   */
+  public static final int CHUNK_SIZE = 1048576;
+
+  /**
+   * the maximum size of a mapped segment.
+   */
+  public static final int SEGMENT_SIZE = 1073741824;
+
+  /**
+   * the chunk count of a segment.
+   */
+  private static final int SEGMENT_CHUNKS = PackChunkCache.SEGMENT_SIZE / PackChunkCache.CHUNK_SIZE;
+
+  /**
+   * the mapped segments of the pack files.
+   */
+  private final Map<String, ByteBuf[]> mapped = new ConcurrentHashMap<>();
+
+  /**
+   * obtains the chunk count of the given pack size.
+   *
+   * @param size the size to calculate.
+   *
+   * @return chunk count.
+   */
+  public static int getChunkCount(final long size) {
+    return (int) ((size + PackChunkCache.CHUNK_SIZE - 1) / PackChunkCache.CHUNK_SIZE);
+  }
+
+  /**
+   * releases the given segments.
+   *
+   * @param segments the segments to release.
+   */
+  private static void release(@NotNull final ByteBuf[] segments) {
+    for (final var segment : segments) {
+      segment.release();
+    }
+  }
+
+  /**
+   * releases all the mapped pack files.
+   */
+  public void clear() {
+    this.mapped.values().forEach(PackChunkCache::release);
+    this.mapped.clear();
+  }
+
+  /**
+   * obtains the chunk of the given pack.
+   * <p>
+   * the returned slice shares the memory of the mapping, so it must not be released.
+   *
+   * @param key the key of the pack which is its unique id and version joined with {@code _}.
+   * @param index the chunk index to get.
+   *
+   * @return a read-only slice of the chunk or {@link Optional#empty()} if the pack is not mapped or the index is out
+   *   of the pack.
+   */
+  @NotNull
+  public Optional<ByteBuf> getChunk(@NotNull final String key, final int index) {
+    final var segments = this.mapped.get(key);
+    if (segments == null || index < 0) {
+      return Optional.empty();
+    }
+    final var segment = index / PackChunkCache.SEGMENT_CHUNKS;
+    if (segment >= segments.length) {
+      return Optional.empty();
+    }
+    final var buffer = segments[segment];
+    final var offset = index % PackChunkCache.SEGMENT_CHUNKS * PackChunkCache.CHUNK_SIZE;
+    final var capacity = buffer.capacity();
+    if (offset >= capacity) {
+      return Optional.empty();
+    }
+    return Optional.of(buffer.slice(offset, Math.min(PackChunkCache.CHUNK_SIZE, capacity - offset)));
+  }
+
+  /**
+   * maps the given pack file.
+   *
+   * @param key the key of the pack which is its unique id and version joined with {@code _}.
+   * @param file the prepared pack file to map.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  public void map(@NotNull final String key, @NotNull final Path file) throws IOException {
+    final ByteBuf[] segments;
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var size = channel.size();
+      segments = new ByteBuf[(int) ((size + PackChunkCache.SEGMENT_SIZE - 1) / PackChunkCache.SEGMENT_SIZE)];
+      for (var index = 0; index < segments.length; index++) {
+        final var position = (long) index * PackChunkCache.SEGMENT_SIZE;
+        segments[index] = Unpooled.wrappedBuffer(channel.map(FileChannel.MapMode.READ_ONLY, position,
+          Math.min(PackChunkCache.SEGMENT_SIZE, size - position))).asReadOnly();
+      }
+    }
+    final var old = this.mapped.put(key, segments);
+    if (old != null) {
+      PackChunkCache.release(old);
+    }
+  }
+}
@@ -0,0 +1,542 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.pack;
+
+import io.github.shiruka.shiruka.concurrent.PoolSpec;
+import io.github.shiruka.shiruka.network.PacketPriority;
+import io.github.shiruka.shiruka.network.impl.PlayerConnection;
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that sends the requested pack chunks of all the players under a server-wide bandwidth cap.
+ * <p>
+ * the downloads share the bandwidth with deficit round robin, weighted by {@link Download#setWeight(int)}, and a
+ * download only gets a new chunk when its connection has sent the previous ones, so the chunks never pile up in the
+ * send queues. the chunks are sent with {@link PacketPriority#LOW} to let the other packets of the connection pass.
+ * <p>
+ * the scheduler only sends the chunk batches that are prepared with the packs, so the pump never compresses. it's only
+ * created when there is a bandwidth cap, otherwise the chunks are sent as soon as they're requested.
+ */
+public final class PackDownloadScheduler implements Closeable {
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger("PackDownloadScheduler");
+
+  /**
+   * the maximum bytes that can be on the way to or wait in the send queue of a downloading connection.
+   */
+  private static final long MAXIMUM_QUEUED_BYTES = 2L * PackChunkCache.CHUNK_SIZE;
+
+  /**
+   * the pump interval in milliseconds.
+   */
+  private static final long PUMP_INTERVAL = 50L;
+
+  /**
+   * the smoothing factor of the download rates.
+   */
+  private static final double RATE_SMOOTHING = 0.2D;
+
+  /**
+   * the bandwidth cap in bytes per second, zero or less for no cap.
+   */
+  private final long bandwidth;
+
+  /**
+   * the downloads.
+   */
+  private final Map<PlayerConnection, Download> downloads = new ConcurrentHashMap<>();
+
+  /**
+   * the executor.
+   */
+  @NotNull
+  private final ScheduledExecutorService executor;
+
+  /**
+   * the downloads that are replaced by a new download of their connection.
+   */
+  private final Queue<Download> replaced = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the downloads in their round robin order, only accessed by the pump.
+   */
+  private final ArrayDeque<Download> ring = new ArrayDeque<>();
+
+  /**
+   * the last pump time.
+   */
+  private long lastPump = System.nanoTime();
+
+  /**
+   * the available bytes to send, only accessed by the pump.
+   */
+  private double tokens;
+
+  /**
+   * ctor.
+   *
+   * @param bandwidth the bandwidth cap in bytes per second, zero or less for no cap.
+   */
+  PackDownloadScheduler(final long bandwidth) {
+    this.bandwidth = bandwidth;
+    this.executor = Executors.newSingleThreadScheduledExecutor(PoolSpec.SCHEDULER);
+    this.executor.scheduleAtFixedRate(this::pump, PackDownloadScheduler.PUMP_INTERVAL,
+      PackDownloadScheduler.PUMP_INTERVAL, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void close() {
+    this.executor.shutdownNow();
+    try {
+      this.executor.awaitTermination(1L, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    final var all = new HashSet<>(this.downloads.values());
+    all.addAll(this.ring);
+    all.addAll(this.replaced);
+    all.forEach(download -> download.snapshot.release());
+    this.downloads.clear();
+    this.ring.clear();
+    this.replaced.clear();
+  }
+
+  /**
+   * obtains the download of the given connection.
+   *
+   * @param connection the connection to get.
+   *
+   * @return the download or {@link Optional#empty()} if the connection is not downloading.
+   */
+  @NotNull
+  public Optional<Download> getDownload(@NotNull final PlayerConnection connection) {
+    return Optional.ofNullable(this.downloads.get(connection));
+  }
+
+  /**
+   * starts a download for the given connection.
+   * <p>
+   * the download lasts while the connection keeps the given snapshot pinned.
+   *
+   * @param connection the connection to start.
+   * @param snapshot the pinned snapshot of the connection.
+   * @param totalBytes the total bytes of the requested packs.
+   */
+  public void start(@NotNull final PlayerConnection connection, @NotNull final PackSnapshot snapshot,
+                    final long totalBytes) {
+    if (!snapshot.retain()) {
+      return;
+    }
+    final var previous = this.downloads.put(connection, new Download(connection, snapshot, totalBytes));
+    if (previous != null) {
+      previous.cancelled = true;
+      this.replaced.add(previous);
+    }
+  }
+
+  /**
+   * queues the given chunk request to the download of the given connection.
+   *
+   * @param connection the connection to submit.
+   * @param packId the pack id.
+   * @param version the pack version.
+   * @param chunkIndex the chunk index.
+   *
+   * @return {@code true} if the request is queued or it's queued already, {@code false} if the connection is not
+   *   downloading, the requested pack is not prepared in its snapshot or the chunk index is out of the pack.
+   */
+  public boolean submit(@NotNull final PlayerConnection connection, @NotNull final UUID packId,
+                        @Nullable final String version, final int chunkIndex) {
+    final var download = this.downloads.get(connection);
+    if (download == null || download.cancelled) {
+      return false;
+    }
+    final var key = packId + "_" + version;
+    final var prepared = download.snapshot.getPreparedPack(key);
+    if (prepared.isEmpty() || chunkIndex < 0 || chunkIndex >= prepared.get().getChunkCount()) {
+      return false;
+    }
+    final var request = new Request(chunkIndex, key);
+    if (download.pending.add(request)) {
+      download.requests.add(request);
+    }
+    return true;
+  }
+
+  /**
+   * finishes the given download and releases its snapshot.
+   *
+   * @param download the download to finish.
+   */
+  private void finish(@NotNull final Download download) {
+    this.downloads.remove(download.connection, download);
+    download.snapshot.release();
+    PackDownloadScheduler.LOGGER.debug("{} downloaded {}/{} bytes in {} ms",
+      download.connection.getConnection().getAddress(), download.sentBytes, download.totalBytes,
+      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - download.startTime));
+  }
+
+  /**
+   * checks if there are bytes left to send in this pump.
+   *
+   * @return {@code true} if a chunk can be sent.
+   */
+  private boolean hasTokens() {
+    return this.bandwidth <= 0L || this.tokens > 0.0D;
+  }
+
+  /**
+   * sends the requested chunks that fit in the bandwidth.
+   */
+  private void pump() {
+    try {
+      final var now = System.nanoTime();
+      final var elapsed = Math.max(1L, now - this.lastPump);
+      this.lastPump = now;
+      if (this.bandwidth > 0L) {
+        this.tokens = Math.min(this.tokens + this.bandwidth * (elapsed / 1.0E9D),
+          Math.max(this.bandwidth, PackChunkCache.CHUNK_SIZE));
+      }
+      Download replaced;
+      while ((replaced = this.replaced.poll()) != null) {
+        if (!replaced.scheduled) {
+          this.finish(replaced);
+        }
+      }
+      for (final var download : this.downloads.values()) {
+        if (!download.scheduled) {
+          download.scheduled = true;
+          this.ring.add(download);
+        }
+      }
+      this.ring.removeIf(download -> {
+        if (download.isDone()) {
+          this.finish(download);
+          return true;
+        }
+        return false;
+      });
+      var idle = 0;
+      while (!this.ring.isEmpty() && idle < this.ring.size() && this.hasTokens()) {
+        final var download = this.ring.poll();
+        this.ring.add(download);
+        if (download.requests.isEmpty()) {
+          download.deficit = 0L;
+          idle++;
+          continue;
+        }
+        final var quantum = (long) PackChunkCache.CHUNK_SIZE * download.weight;
+        download.deficit = Math.min(download.deficit + quantum, 2L * quantum);
+        var sent = false;
+        while (download.deficit > 0L && this.hasTokens() &&
+          download.inFlightBytes.get() + download.connection.getConnection().getQueuedBytes() <
+            PackDownloadScheduler.MAXIMUM_QUEUED_BYTES) {
+          final var request = download.requests.poll();
+          if (request == null) {
+            download.deficit = 0L;
+            break;
+          }
+          download.pending.remove(request);
+          final long cost;
+          try {
+            cost = this.send(download, request);
+          } catch (final IllegalStateException e) {
+            download.cancelled = true;
+            break;
+          }
+          // the chunk is queued in the event loop of the connection, so it's counted until the event loop has run the
+          // tasks that are submitted before this one.
+          download.inFlightBytes.addAndGet(cost);
+          download.connection.getConnection().getEventLoop().execute(() -> download.inFlightBytes.addAndGet(-cost));
+          download.deficit -= cost;
+          download.pumpBytes += cost;
+          this.tokens -= cost;
+          sent = true;
+        }
+        idle = sent ? 0 : idle + 1;
+      }
+      for (final var download : this.ring) {
+        final var rate = download.pumpBytes * 1.0E9D / elapsed;
+        download.rate = download.rate + PackDownloadScheduler.RATE_SMOOTHING * (rate - download.rate);
+        download.sentBytes += download.pumpBytes;
+        download.pumpBytes = 0L;
+      }
+    } catch (final Throwable t) {
+      PackDownloadScheduler.LOGGER.error("Failed to send pack chunks", t);
+    }
+  }
+
+  /**
+   * sends the given chunk request.
+   *
+   * @param download the download to send.
+   * @param request the request to send.
+   *
+   * @return the sent byte count.
+   */
+  private long send(@NotNull final Download download, @NotNull final Request request) {
+    final var prepared = download.snapshot.getPreparedPack(request.key)
+      .flatMap(pack -> pack.getChunk(request.chunkIndex));
+    if (prepared.isEmpty()) {
+      return 0L;
+    }
+    try {
+      download.connection.sendPrepared(prepared.get(), PacketPriority.LOW);
+      return prepared.get().getSize();
+    } finally {
+      prepared.get().release();
+    }
+  }
+
+  /**
+   * a class that represents the pack downloads of the players.
+   */
+  public static final class Download {
+
+    /**
+     * the connection.
+     */
+    @NotNull
+    private final PlayerConnection connection;
+
+    /**
+     * the bytes that are sent but not queued by the connection yet.
+     */
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    /**
+     * the queued requests to drop the repeated ones, which bounds the queue by the chunk counts of the packs.
+     */
+    private final Set<Request> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * the requests.
+     */
+    private final Queue<Request> requests = new ConcurrentLinkedQueue<>();
+
+    /**
+     * the pinned snapshot.
+     */
+    @NotNull
+    private final PackSnapshot snapshot;
+
+    /**
+     * the start time.
+     */
+    private final long startTime = System.nanoTime();
+
+    /**
+     * the total bytes.
+     */
+    private final long totalBytes;
+
+    /**
+     * if the download is replaced by a new one.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * the deficit of the round robin, only accessed by the pump.
+     */
+    private long deficit;
+
+    /**
+     * the bytes that are sent in the current pump, only accessed by the pump.
+     */
+    private long pumpBytes;
+
+    /**
+     * the smoothed rate in bytes per second.
+     */
+    private volatile double rate;
+
+    /**
+     * if the download is in the ring, only accessed by the pump.
+     */
+    private boolean scheduled;
+
+    /**
+     * the sent bytes.
+     */
+    private volatile long sentBytes;
+
+    /**
+     * the weight.
+     */
+    private volatile int weight = 1;
+
+    /**
+     * ctor.
+     *
+     * @param connection the connection.
+     * @param snapshot the snapshot.
+     * @param totalBytes the total bytes.
+     */
+    private Download(@NotNull final PlayerConnection connection, @NotNull final PackSnapshot snapshot,
+                     final long totalBytes) {
+      this.connection = connection;
+      this.snapshot = snapshot;
+      this.totalBytes = totalBytes;
+    }
+
+    /**
+     * obtains the estimated milliseconds to finish.
+     *
+     * @return estimated time in milliseconds or -1 if the rate is not known yet.
+     */
+    public long getEta() {
+      final var rate = this.rate;
+      if (rate < 1.0D) {
+        return -1L;
+      }
+      return (long) (Math.max(0L, this.totalBytes - this.sentBytes) * 1000.0D / rate);
+    }
+
+    /**
+     * obtains the progress.
+     *
+     * @return progress between 0 and 1.
+     */
+    public double getProgress() {
+      return this.totalBytes <= 0L ? 1.0D : Math.min(1.0D, (double) this.sentBytes / this.totalBytes);
+    }
+
+    /**
+     * obtains the rate.
+     *
+     * @return smoothed rate in bytes per second.
+     */
+    public double getRate() {
+      return this.rate;
+    }
+
+    /**
+     * obtains the sent bytes.
+     *
+     * @return sent bytes.
+     */
+    public long getSentBytes() {
+      return this.sentBytes;
+    }
+
+    /**
+     * obtains the total bytes.
+     *
+     * @return total bytes.
+     */
+    public long getTotalBytes() {
+      return this.totalBytes;
+    }
+
+    /**
+     * obtains the weight.
+     *
+     * @return weight.
+     */
+    public int getWeight() {
+      return this.weight;
+    }
+
+    /**
+     * sets the weight of the download in the bandwidth share.
+     *
+     * @param weight the weight to set.
+     */
+    public void setWeight(final int weight) {
+      this.weight = Math.max(1, weight);
+    }
+
+    /**
+     * checks if the download is over.
+     *
+     * @return {@code true} if the download is cancelled, the connection closed or unpinned the snapshot.
+     */
+    private boolean isDone() {
+      return this.cancelled || this.connection.getConnection().isClosed() ||
+        this.connection.getPackSnapshot().orElse(null) != this.snapshot;
+    }
+  }
+
+  /**
+   * a class that represents the chunk requests.
+   */
+  private static final class Request {
+
+    /**
+     * the chunk index.
+     */
+    private final int chunkIndex;
+
+    /**
+     * the key.
+     */
+    @NotNull
+    private final String key;
+
+    /**
+     * ctor.
+     *
+     * @param chunkIndex the chunk index.
+     * @param key the key.
+     */
+    private Request(final int chunkIndex, @NotNull final String key) {
+      this.chunkIndex = chunkIndex;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return this == obj ||
+        obj instanceof Request && this.chunkIndex == ((Request) obj).chunkIndex && this.key.equals(((Request) obj).key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.chunkIndex, this.key);
+    }
+  }
+}
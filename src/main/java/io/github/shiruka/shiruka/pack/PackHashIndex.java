@@ -0,0 +1,206 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.pack;
+
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that persists the pack hashes next to the packs, so the unchanged packs are not hashed again on restarts.
+ * <p>
+ * the entries are keyed by the absolute path of the pack file and they are valid as long as the size and the last
+ * modified time of the file stay the same.
+ */
+public final class PackHashIndex {
+
+  /**
+   * the encoding of the hashes.
+   */
+  private static final BaseEncoding ENCODING = BaseEncoding.base16().lowerCase();
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger("PackHashIndex");
+
+  /**
+   * the entries.
+   */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * the index file.
+   */
+  @NotNull
+  private final Path file;
+
+  /**
+   * if the entries changed since loaded.
+   */
+  private volatile boolean dirty;
+
+  /**
+   * ctor.
+   *
+   * @param file the index file.
+   */
+  public PackHashIndex(@NotNull final Path file) {
+    this.file = file;
+    if (Files.notExists(file)) {
+      return;
+    }
+    try (final var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+      lines.forEach(line -> {
+        final var split = line.split(" ", 4);
+        if (split.length != 4) {
+          return;
+        }
+        try {
+          this.entries.put(split[3], new Entry(PackHashIndex.ENCODING.decode(split[0]), Long.parseLong(split[1]),
+            Long.parseLong(split[2])));
+        } catch (final IllegalArgumentException ignored) {
+          // ignored.
+        }
+      });
+    } catch (final IOException | RuntimeException e) {
+      PackHashIndex.LOGGER.warn("Failed to read pack hash index {}", file, e);
+    }
+  }
+
+  /**
+   * obtains the hash of the given pack file if it's not changed since it's indexed.
+   *
+   * @param pack the pack file to get.
+   *
+   * @return the hash or {@link Optional#empty()} if the file is not indexed or changed.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  @NotNull
+  public Optional<byte[]> get(@NotNull final Path pack) throws IOException {
+    final var entry = this.entries.get(PackHashIndex.key(pack));
+    if (entry == null ||
+      entry.size != Files.size(pack) ||
+      entry.lastModified != Files.getLastModifiedTime(pack).toMillis()) {
+      return Optional.empty();
+    }
+    return Optional.of(entry.hash.clone());
+  }
+
+  /**
+   * indexes the hash of the given pack file.
+   *
+   * @param pack the pack file to put.
+   * @param hash the hash of the pack file.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  public void put(@NotNull final Path pack, final byte[] hash) throws IOException {
+    this.entries.put(PackHashIndex.key(pack), new Entry(hash.clone(), Files.size(pack),
+      Files.getLastModifiedTime(pack).toMillis()));
+    this.dirty = true;
+  }
+
+  /**
+   * writes the index file if any entry changed, only the entries of the existing files are kept.
+   */
+  public void save() {
+    if (!this.dirty) {
+      return;
+    }
+    this.entries.keySet().removeIf(key -> Files.notExists(Paths.get(key)));
+    final var content = this.entries.entrySet().stream()
+      .map(entry -> String.format("%s %d %d %s", PackHashIndex.ENCODING.encode(entry.getValue().hash),
+        entry.getValue().size, entry.getValue().lastModified, entry.getKey()))
+      .collect(Collectors.joining("\n"));
+    try {
+      final var temp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+      Files.writeString(temp, content, StandardCharsets.UTF_8);
+      Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      this.dirty = false;
+    } catch (final IOException e) {
+      PackHashIndex.LOGGER.warn("Failed to write pack hash index {}", this.file, e);
+    }
+  }
+
+  /**
+   * creates the key of the given pack file.
+   *
+   * @param pack the pack file to create.
+   *
+   * @return the key.
+   */
+  @NotNull
+  private static String key(@NotNull final Path pack) {
+    return pack.toAbsolutePath().normalize().toString();
+  }
+
+  /**
+   * a class that represents index entries.
+   */
+  private static final class Entry {
+
+    /**
+     * the hash.
+     */
+    private final byte[] hash;
+
+    /**
+     * the last modified time.
+     */
+    private final long lastModified;
+
+    /**
+     * the size.
+     */
+    private final long size;
+
+    /**
+     * ctor.
+     *
+     * @param hash the hash.
+     * @param size the size.
+     * @param lastModified the last modified time.
+     */
+    private Entry(final byte[] hash, final long size, final long lastModified) {
+      this.hash = hash;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
+}
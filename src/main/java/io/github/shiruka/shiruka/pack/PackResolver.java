@@ -0,0 +1,245 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.pack;
+
+import io.github.shiruka.api.pack.Pack;
+import io.github.shiruka.api.pack.PackManifest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that resolves the dependencies of the packs as a graph and orders them topologically.
+ * <p>
+ * a dependency is satisfied by a pack that has the same major version and a version that is not lower than the
+ * required one.
+ */
+final class PackResolver {
+
+  /**
+   * the version number pattern.
+   */
+  private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+  /**
+   * ctor.
+   */
+  private PackResolver() {
+  }
+
+  /**
+   * resolves the given manifests.
+   *
+   * @param manifests the manifests to resolve.
+   * @param loaded the packs that are already loaded.
+   *
+   * @return the resolution result.
+   */
+  @NotNull
+  static Result resolve(@NotNull final Map<UUID, PackManifest> manifests, @NotNull final Map<UUID, Pack> loaded) {
+    final var dependents = new HashMap<UUID, List<UUID>>();
+    final var inDegrees = new HashMap<UUID, Integer>();
+    final var failures = new LinkedHashMap<PackManifest, String>();
+    final var failed = new ArrayDeque<UUID>();
+    manifests.forEach((uuid, manifest) -> {
+      var inDegree = 0;
+      for (final var dependency : manifest.getDependencies()) {
+        final var dependencyId = dependency.getUuid();
+        if (dependencyId == null) {
+          continue;
+        }
+        final var required = String.valueOf(dependency.getVersion());
+        final var candidate = manifests.get(dependencyId);
+        @Nullable final String found;
+        if (candidate != null) {
+          found = String.valueOf(candidate.getHeader().getVersion());
+        } else if (loaded.containsKey(dependencyId)) {
+          found = String.valueOf(loaded.get(dependencyId).getVersion());
+        } else {
+          found = null;
+        }
+        if (found == null || !PackResolver.satisfies(required, found)) {
+          failures.putIfAbsent(manifest, String.format("missing dependency %s:%s%s", dependencyId, required,
+            found == null ? "" : " (found " + found + ")"));
+          continue;
+        }
+        if (candidate != null) {
+          dependents.computeIfAbsent(dependencyId, key -> new ArrayList<>()).add(uuid);
+          inDegree++;
+        }
+      }
+      inDegrees.put(uuid, inDegree);
+      if (failures.containsKey(manifest)) {
+        failed.add(uuid);
+      }
+    });
+    while (!failed.isEmpty()) {
+      final var uuid = failed.poll();
+      inDegrees.remove(uuid);
+      final var manifest = manifests.get(uuid);
+      for (final var dependent : dependents.getOrDefault(uuid, Collections.emptyList())) {
+        final var dependentManifest = manifests.get(dependent);
+        if (!failures.containsKey(dependentManifest)) {
+          failures.put(dependentManifest, String.format("depends on %s which could not be loaded",
+            PackResolver.name(manifest)));
+          failed.add(dependent);
+        }
+      }
+    }
+    final var ordered = new ArrayList<PackManifest>(inDegrees.size());
+    final var ready = new ArrayDeque<UUID>();
+    inDegrees.forEach((uuid, inDegree) -> {
+      if (inDegree == 0) {
+        ready.add(uuid);
+      }
+    });
+    while (!ready.isEmpty()) {
+      final var uuid = ready.poll();
+      inDegrees.remove(uuid);
+      ordered.add(manifests.get(uuid));
+      for (final var dependent : dependents.getOrDefault(uuid, Collections.emptyList())) {
+        final var inDegree = inDegrees.computeIfPresent(dependent, (key, value) -> value - 1);
+        if (inDegree != null && inDegree == 0) {
+          ready.add(dependent);
+        }
+      }
+    }
+    inDegrees.keySet().forEach(uuid ->
+      failures.put(manifests.get(uuid), "part of or depends on a dependency cycle"));
+    return new Result(ordered, failures);
+  }
+
+  /**
+   * obtains the display name of the given manifest.
+   *
+   * @param manifest the manifest to get.
+   *
+   * @return display name.
+   */
+  @NotNull
+  static String name(@NotNull final PackManifest manifest) {
+    return manifest.getHeader().getName() + ":" + manifest.getHeader().getVersion();
+  }
+
+  /**
+   * parses the numbers of the given version.
+   *
+   * @param version the version to parse.
+   *
+   * @return version numbers.
+   */
+  private static int[] parse(@NotNull final String version) {
+    final var matcher = PackResolver.NUMBER.matcher(version);
+    final var numbers = new ArrayList<Integer>(3);
+    while (matcher.find()) {
+      numbers.add(Integer.parseInt(matcher.group()));
+    }
+    return numbers.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * checks if the found version satisfies the required version.
+   *
+   * @param required the required version.
+   * @param found the found version.
+   *
+   * @return {@code true} if the found version has the same major version and it's not lower than required.
+   */
+  private static boolean satisfies(@NotNull final String required, @NotNull final String found) {
+    final var requiredNumbers = PackResolver.parse(required);
+    if (requiredNumbers.length == 0) {
+      return true;
+    }
+    final var foundNumbers = PackResolver.parse(found);
+    if (foundNumbers.length == 0 || foundNumbers[0] != requiredNumbers[0]) {
+      return false;
+    }
+    for (var index = 1; index < requiredNumbers.length; index++) {
+      final var number = index < foundNumbers.length ? foundNumbers[index] : 0;
+      if (number != requiredNumbers[index]) {
+        return number > requiredNumbers[index];
+      }
+    }
+    return true;
+  }
+
+  /**
+   * a class that represents resolution results.
+   */
+  static final class Result {
+
+    /**
+     * the manifests that could not be resolved and the reasons.
+     */
+    @NotNull
+    private final Map<PackManifest, String> failures;
+
+    /**
+     * the resolved manifests that are ordered by their dependencies.
+     */
+    @NotNull
+    private final List<PackManifest> ordered;
+
+    /**
+     * ctor.
+     *
+     * @param ordered the resolved manifests.
+     * @param failures the failures.
+     */
+    private Result(@NotNull final List<PackManifest> ordered, @NotNull final Map<PackManifest, String> failures) {
+      this.ordered = Collections.unmodifiableList(ordered);
+      this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * obtains the manifests that could not be resolved and the reasons.
+     *
+     * @return failures.
+     */
+    @NotNull
+    Map<PackManifest, String> getFailures() {
+      return this.failures;
+    }
+
+    /**
+     * obtains the resolved manifests that are ordered by their dependencies.
+     *
+     * @return ordered manifests.
+     */
+    @NotNull
+    List<PackManifest> getOrdered() {
+      return this.ordered;
+    }
+  }
+}
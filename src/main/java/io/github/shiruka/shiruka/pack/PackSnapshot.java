@@ -0,0 +1,390 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.pack;
+
+import io.github.shiruka.api.pack.Pack;
+import io.github.shiruka.api.pack.ResourcePackType;
+import io.github.shiruka.shiruka.concurrent.PoolSpec;
+import io.github.shiruka.shiruka.concurrent.ServerThreadPool;
+import io.github.shiruka.shiruka.network.packet.PreparedBatch;
+import io.github.shiruka.shiruka.network.packets.PacketOutPackInfo;
+import io.github.shiruka.shiruka.network.packets.PacketOutPackStack;
+import io.github.shiruka.shiruka.pack.pack.ResourcePack;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents an immutable generation of the loaded packs with their prepared downloads.
+ * <p>
+ * the pack manager holds a reference to its current snapshot and the downloads pin the snapshot that they started
+ * with, so a reload swaps the snapshot atomically and the old one is freed after its last download finished.
+ */
+public final class PackSnapshot {
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger("PackSnapshot");
+
+  /**
+   * the chunk cache.
+   */
+  private final PackChunkCache chunkCache = new PackChunkCache();
+
+  /**
+   * the packs info packet.
+   */
+  @NotNull
+  private final PacketOutPackInfo packInfo;
+
+  /**
+   * the pack stack packet.
+   */
+  @NotNull
+  private final PacketOutPackStack packStack;
+
+  /**
+   * the packs.
+   */
+  @NotNull
+  private final Map<String, Pack> packs;
+
+  /**
+   * the packs by id.
+   */
+  @NotNull
+  private final Map<UUID, Pack> packsById;
+
+  /**
+   * the prepared packs info batch.
+   */
+  @NotNull
+  private final PreparedBatch preparedPackInfo;
+
+  /**
+   * the prepared pack stack batch.
+   */
+  @NotNull
+  private final PreparedBatch preparedPackStack;
+
+  /**
+   * the prepared packs.
+   */
+  private final Map<String, PreparedPack> preparedPacks = new ConcurrentHashMap<>();
+
+  /**
+   * the prepared packs by id.
+   */
+  private final Map<UUID, PreparedPack> preparedPacksById = new ConcurrentHashMap<>();
+
+  /**
+   * the reference count.
+   */
+  private final AtomicInteger references = new AtomicInteger(1);
+
+  /**
+   * ctor.
+   *
+   * @param packs the packs.
+   * @param packsById the packs by id.
+   * @param mustAccept if the clients must accept the packs.
+   */
+  private PackSnapshot(@NotNull final Map<String, Pack> packs, @NotNull final Map<UUID, Pack> packsById,
+                       final boolean mustAccept) {
+    this.packs = Collections.unmodifiableMap(new HashMap<>(packs));
+    this.packsById = Collections.unmodifiableMap(new HashMap<>(packsById));
+    this.packInfo = new PacketOutPackInfo(Collections.emptyList(),
+      mustAccept,
+      new ObjectArrayList<>(this.packs.values().stream()
+        .filter(pack -> pack.getType() != ResourcePackType.BEHAVIOR)
+        .map(pack ->
+          new PacketOutPackInfo.Entry("", "", pack.getId().toString(), pack.getSize(), pack.getVersion().toString(),
+            false, false, ""))
+        .collect(Collectors.toList())),
+      false);
+    this.packStack = new PacketOutPackStack(
+      Collections.emptyList(),
+      Collections.emptyList(),
+      true,
+      mustAccept,
+      "*",
+      this.packs.values().stream()
+        .filter(pack -> pack.getType() != ResourcePackType.BEHAVIOR)
+        .map(pack ->
+          new PacketOutPackStack.Entry(pack.getId().toString(), pack.getVersion().toString(), ""))
+        .collect(Collectors.toList()));
+    this.preparedPackInfo = PreparedBatch.of(Deflater.DEFAULT_COMPRESSION, this.packInfo);
+    try {
+      this.preparedPackStack = PreparedBatch.of(Deflater.DEFAULT_COMPRESSION, this.packStack);
+    } catch (final RuntimeException e) {
+      this.preparedPackInfo.release();
+      throw e;
+    }
+  }
+
+  /**
+   * creates a snapshot of the given packs, hashes, maps and prepares the downloads of them.
+   *
+   * @param packs the packs.
+   * @param packsById the packs by id.
+   * @param mustAccept if the clients must accept the packs.
+   * @param hashIndex the hash index to load and store the pack hashes.
+   *
+   * @return a new snapshot.
+   */
+  @NotNull
+  static PackSnapshot build(@NotNull final Map<String, Pack> packs, @NotNull final Map<UUID, Pack> packsById,
+                            final boolean mustAccept, @Nullable final PackHashIndex hashIndex) {
+    final var snapshot = new PackSnapshot(packs, packsById, mustAccept);
+    try {
+      snapshot.hash(hashIndex);
+      snapshot.packs.forEach((key, pack) -> {
+        try {
+          snapshot.chunkCache.map(key, pack.getLoader().getPreparedFile().join());
+        } catch (final IOException | RuntimeException e) {
+          PackSnapshot.LOGGER.error(String.format("Failed to map %s", pack.getLoader().getLocation()), e);
+        }
+      });
+      snapshot.prepare();
+    } catch (final RuntimeException e) {
+      snapshot.free();
+      throw e;
+    }
+    return snapshot;
+  }
+
+  /**
+   * creates an empty snapshot.
+   *
+   * @return a new empty snapshot.
+   */
+  @NotNull
+  static PackSnapshot empty() {
+    return new PackSnapshot(Collections.emptyMap(), Collections.emptyMap(), false);
+  }
+
+  /**
+   * obtains the chunk cache.
+   *
+   * @return chunk cache.
+   */
+  @NotNull
+  public PackChunkCache getChunkCache() {
+    return this.chunkCache;
+  }
+
+  /**
+   * obtains the pack.
+   *
+   * @param key the key of the pack which is its unique id and version joined with {@code _}.
+   *
+   * @return pack.
+   */
+  @NotNull
+  public Optional<Pack> getPack(@NotNull final String key) {
+    return Optional.ofNullable(this.packs.get(key));
+  }
+
+  /**
+   * obtains the pack.
+   *
+   * @param uniqueId the unique id of the pack.
+   *
+   * @return pack.
+   */
+  @NotNull
+  public Optional<Pack> getPackByUniqueId(@NotNull final UUID uniqueId) {
+    return Optional.ofNullable(this.packsById.get(uniqueId));
+  }
+
+  /**
+   * obtains the packs info packet.
+   *
+   * @return packs info packet.
+   */
+  @NotNull
+  public PacketOutPackInfo getPackInfo() {
+    return this.packInfo;
+  }
+
+  /**
+   * obtains the pack stack packet.
+   *
+   * @return pack stack packet.
+   */
+  @NotNull
+  public PacketOutPackStack getPackStack() {
+    return this.packStack;
+  }
+
+  /**
+   * obtains the prepared pack.
+   *
+   * @param key the key of the pack which is its unique id and version joined with {@code _}.
+   *
+   * @return prepared pack.
+   */
+  @NotNull
+  public Optional<PreparedPack> getPreparedPack(@NotNull final String key) {
+    return Optional.ofNullable(this.preparedPacks.get(key));
+  }
+
+  /**
+   * obtains the prepared pack.
+   *
+   * @param uniqueId the unique id of the pack.
+   *
+   * @return prepared pack.
+   */
+  @NotNull
+  public Optional<PreparedPack> getPreparedPackByUniqueId(@NotNull final UUID uniqueId) {
+    return Optional.ofNullable(this.preparedPacksById.get(uniqueId));
+  }
+
+  /**
+   * obtains the prepared packs info batch.
+   *
+   * @return prepared packs info batch.
+   */
+  @NotNull
+  public PreparedBatch getPreparedPackInfo() {
+    return this.preparedPackInfo;
+  }
+
+  /**
+   * obtains the prepared pack stack batch.
+   *
+   * @return prepared pack stack batch.
+   */
+  @NotNull
+  public PreparedBatch getPreparedPackStack() {
+    return this.preparedPackStack;
+  }
+
+  /**
+   * releases a reference of the snapshot and frees the snapshot when it was the last one.
+   */
+  public void release() {
+    if (this.references.decrementAndGet() != 0) {
+      return;
+    }
+    this.free();
+    for (final var pack : this.packs.values()) {
+      try {
+        pack.close();
+      } catch (final Exception e) {
+        PackSnapshot.LOGGER.error(String.format("Failed to close %s", pack.getLoader().getLocation()), e);
+      }
+    }
+  }
+
+  /**
+   * adds a reference to the snapshot unless it's already freed.
+   *
+   * @return {@code true} if the reference added.
+   */
+  boolean retain() {
+    while (true) {
+      final var current = this.references.get();
+      if (current == 0) {
+        return false;
+      }
+      if (this.references.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * releases the prepared batches and the mappings without closing the packs.
+   */
+  private void free() {
+    this.preparedPacks.values().forEach(PreparedPack::release);
+    this.preparedPacks.clear();
+    this.preparedPacksById.clear();
+    this.preparedPackInfo.release();
+    this.preparedPackStack.release();
+    this.chunkCache.clear();
+  }
+
+  /**
+   * loads or computes the hashes of the resource packs in parallel and persists them to the hash index.
+   *
+   * @param index the hash index to load and store the pack hashes.
+   */
+  private void hash(@Nullable final PackHashIndex index) {
+    final var pool = ServerThreadPool.forSpec(PoolSpec.CHUNKS);
+    final var futures = this.packs.values().stream()
+      .filter(ResourcePack.class::isInstance)
+      .map(ResourcePack.class::cast)
+      .map(pack -> CompletableFuture.runAsync(() -> pack.loadHash(index), pool)
+        .exceptionally(throwable -> {
+          PackSnapshot.LOGGER.error(String.format("Failed to hash %s", pack.getLoader().getLocation()), throwable);
+          return null;
+        }))
+      .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(futures).join();
+    if (index != null) {
+      index.save();
+    }
+  }
+
+  /**
+   * prepares the downloads of the resource packs in parallel.
+   */
+  private void prepare() {
+    final var pool = ServerThreadPool.forSpec(PoolSpec.CHUNKS);
+    final var futures = this.packs.entrySet().stream()
+      .filter(entry -> entry.getValue().getType() != ResourcePackType.BEHAVIOR)
+      .map(entry -> CompletableFuture.runAsync(() -> {
+        final var pack = entry.getValue();
+        final var prepared = PreparedPack.prepare(entry.getKey(), pack, this.chunkCache,
+          Deflater.DEFAULT_COMPRESSION);
+        this.preparedPacks.put(entry.getKey(), prepared);
+        this.preparedPacksById.put(pack.getId(), prepared);
+      }, pool).exceptionally(throwable -> {
+        PackSnapshot.LOGGER.error(String.format("Failed to prepare %s", entry.getValue().getLoader().getLocation()),
+          throwable);
+        return null;
+      }))
+      .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(futures).join();
+  }
+}
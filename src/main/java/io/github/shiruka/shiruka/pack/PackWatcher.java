@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.pack;
+
+import io.github.shiruka.shiruka.concurrent.PoolSpec;
+import io.github.shiruka.shiruka.concurrent.ServerThreadPool;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that watches the packs directory and runs a reload after the changes settle down.
+ * <p>
+ * the hidden files, such as the hash index, are ignored since the reloads write them.
+ */
+final class PackWatcher implements Closeable {
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger("PackWatcher");
+
+  /**
+   * the time to wait without any change before reloading.
+   */
+  private static final long QUIET_PERIOD_MS = 2000L;
+
+  /**
+   * the watched directories by their keys.
+   */
+  private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+  /**
+   * the reload to run.
+   */
+  @NotNull
+  private final Runnable reload;
+
+  /**
+   * the watch service.
+   */
+  @NotNull
+  private final WatchService service;
+
+  /**
+   * ctor.
+   *
+   * @param directory the directory to watch.
+   * @param reload the reload to run.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  PackWatcher(@NotNull final Path directory, @NotNull final Runnable reload) throws IOException {
+    this.reload = reload;
+    this.service = directory.getFileSystem().newWatchService();
+    this.register(directory);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.service.close();
+  }
+
+  /**
+   * starts watching on the packs pool.
+   */
+  void start() {
+    ServerThreadPool.forSpec(PoolSpec.PACKS).execute(this::run);
+  }
+
+  /**
+   * handles the events of the given key.
+   *
+   * @param key the key to handle.
+   *
+   * @return {@code true} if a pack file changed.
+   */
+  private boolean handle(@NotNull final WatchKey key) {
+    final var directory = this.directories.get(key);
+    var changed = false;
+    for (final var event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+        changed = true;
+        continue;
+      }
+      final var name = (Path) event.context();
+      if (name.toString().startsWith(".")) {
+        continue;
+      }
+      changed = true;
+      final var path = directory.resolve(name);
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+        try {
+          this.register(path);
+        } catch (final IOException e) {
+          PackWatcher.LOGGER.warn("Failed to watch {}", path, e);
+        }
+      }
+    }
+    if (!key.reset()) {
+      this.directories.remove(key);
+    }
+    return changed;
+  }
+
+  /**
+   * registers the given directory and its sub directories.
+   *
+   * @param directory the directory to register.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  private void register(@NotNull final Path directory) throws IOException {
+    try (final var stream = Files.walk(directory)) {
+      for (final var path : (Iterable<Path>) stream.filter(Files::isDirectory)::iterator) {
+        this.directories.put(path.register(this.service, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), path);
+      }
+    }
+  }
+
+  /**
+   * waits for the changes and runs the reload after they settle down until the watcher closed.
+   */
+  private void run() {
+    try {
+      while (true) {
+        var changed = this.handle(this.service.take());
+        WatchKey key;
+        while ((key = this.service.poll(PackWatcher.QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null) {
+          changed |= this.handle(key);
+        }
+        if (changed) {
+          this.reload.run();
+        }
+      }
+    } catch (final ClosedWatchServiceException | InterruptedException ignored) {
+      // closed.
+    } catch (final RuntimeException e) {
+      PackWatcher.LOGGER.error("Pack watcher stopped", e);
+    }
+  }
+}
@@ -0,0 +1,381 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.pack;
+
+import com.google.common.io.BaseEncoding;
+import io.github.shiruka.api.pack.Pack;
+import io.github.shiruka.shiruka.network.packet.PreparedBatch;
+import io.github.shiruka.shiruka.network.packets.PacketOutResourcePackChunkData;
+import io.github.shiruka.shiruka.network.packets.PacketOutResourcePackDataInfo;
+import io.github.shiruka.shiruka.network.util.Misc;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that contains the prepared download batches of a pack.
+ * <p>
+ * every chunk batch is framed and compressed once when the pack is prepared and written to a file in the cache
+ * directory next to the offsets of the batches. the file is kept for the next starts while the hash of the pack stays
+ * the same, and it's mapped in segments of whole batches, so the downloads only slice the mapping and don't compress
+ * anything or hold the batches on the heap.
+ */
+public final class PreparedPack {
+
+  /**
+   * the cache path.
+   */
+  private static final Path CACHE_PATH = Misc.HOME_PATH.resolve("cache").resolve("chunks");
+
+  /**
+   * the hash encoding of the file names.
+   */
+  private static final BaseEncoding ENCODING = BaseEncoding.base16().lowerCase();
+
+  /**
+   * the header size without the offsets.
+   */
+  private static final int HEADER_SIZE = 12;
+
+  /**
+   * the logger.
+   */
+  private static final Logger LOGGER = LogManager.getLogger("PreparedPack");
+
+  /**
+   * the magic of the chunk files.
+   */
+  private static final int MAGIC = 0x53504331;
+
+  /**
+   * the segment of each chunk.
+   */
+  @NotNull
+  private final int[] chunkSegments;
+
+  /**
+   * the data info batch.
+   */
+  @NotNull
+  private final PreparedBatch dataInfo;
+
+  /**
+   * the file offsets of the chunks and the end of the last chunk.
+   */
+  @NotNull
+  private final long[] offsets;
+
+  /**
+   * the file offsets of the segments.
+   */
+  @NotNull
+  private final long[] segmentOffsets;
+
+  /**
+   * the mapped segments.
+   */
+  @NotNull
+  private final ByteBuf[] segments;
+
+  /**
+   * ctor.
+   *
+   * @param dataInfo the data info batch.
+   * @param offsets the file offsets of the chunks and the end of the last chunk.
+   * @param chunkSegments the segment of each chunk.
+   * @param segmentOffsets the file offsets of the segments.
+   * @param segments the mapped segments.
+   */
+  private PreparedPack(@NotNull final PreparedBatch dataInfo, @NotNull final long[] offsets,
+                       @NotNull final int[] chunkSegments, @NotNull final long[] segmentOffsets,
+                       @NotNull final ByteBuf[] segments) {
+    this.dataInfo = dataInfo;
+    this.offsets = offsets;
+    this.chunkSegments = chunkSegments;
+    this.segmentOffsets = segmentOffsets;
+    this.segments = segments;
+  }
+
+  /**
+   * prepares the given pack, reuses its chunk file if it's prepared before.
+   *
+   * @param key the key of the pack which is its unique id and version joined with {@code _}.
+   * @param pack the pack to prepare.
+   * @param chunkCache the chunk cache that has the pack mapped.
+   * @param level the compression level.
+   *
+   * @return a new prepared pack.
+   *
+   * @throws UncheckedIOException if an I/O error has occurred.
+   */
+  @NotNull
+  public static PreparedPack prepare(@NotNull final String key, @NotNull final Pack pack,
+                                     @NotNull final PackChunkCache chunkCache, final int level) {
+    final var chunkCount = PackChunkCache.getChunkCount(pack.getSize());
+    final var name = key + "-" + PreparedPack.ENCODING.encode(pack.getHash(), 0, 8) + ".chunks";
+    final var file = PreparedPack.CACHE_PATH.resolve(name);
+    final var dataInfo = PreparedBatch.of(level, new PacketOutResourcePackDataInfo(pack));
+    try {
+      var offsets = PreparedPack.readOffsets(file, chunkCount, level);
+      if (offsets == null) {
+        Files.createDirectories(PreparedPack.CACHE_PATH);
+        final var temp = PreparedPack.CACHE_PATH.resolve(name + ".tmp");
+        offsets = PreparedPack.write(temp, key, pack, chunkCache, chunkCount, level);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      PreparedPack.deleteStale(key, name);
+      return PreparedPack.map(file, dataInfo, offsets);
+    } catch (final IOException e) {
+      dataInfo.release();
+      throw new UncheckedIOException(e);
+    } catch (final RuntimeException e) {
+      dataInfo.release();
+      throw e;
+    }
+  }
+
+  /**
+   * deletes the chunk files of the older versions of the given pack.
+   *
+   * @param key the key of the pack which is its unique id and version joined with {@code _}.
+   * @param name the file name to keep.
+   */
+  private static void deleteStale(@NotNull final String key, @NotNull final String name) {
+    try (final var stream = Files.newDirectoryStream(PreparedPack.CACHE_PATH, key + "-*.chunks")) {
+      for (final var path : stream) {
+        if (!path.getFileName().toString().equals(name)) {
+          Files.deleteIfExists(path);
+        }
+      }
+    } catch (final IOException e) {
+      PreparedPack.LOGGER.debug("Failed to delete the old chunk files of {}", key, e);
+    }
+  }
+
+  /**
+   * maps the given chunk file in segments that hold whole batches.
+   *
+   * @param file the file to map.
+   * @param dataInfo the data info batch.
+   * @param offsets the file offsets of the chunks and the end of the last chunk.
+   *
+   * @return a new prepared pack.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  @NotNull
+  private static PreparedPack map(@NotNull final Path file, @NotNull final PreparedBatch dataInfo,
+                                  @NotNull final long[] offsets) throws IOException {
+    final var chunkCount = offsets.length - 1;
+    final var chunkSegments = new int[chunkCount];
+    final var segmentOffsets = new long[Math.max(1, chunkCount)];
+    var segmentCount = 0;
+    for (var index = 0; index < chunkCount; index++) {
+      if (segmentCount == 0 ||
+        offsets[index + 1] - segmentOffsets[segmentCount - 1] > PackChunkCache.SEGMENT_SIZE) {
+        segmentOffsets[segmentCount++] = offsets[index];
+      }
+      chunkSegments[index] = segmentCount - 1;
+    }
+    final var segments = new ByteBuf[segmentCount];
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      for (var index = 0; index < segmentCount; index++) {
+        final var start = segmentOffsets[index];
+        final var end = index + 1 < segmentCount ? segmentOffsets[index + 1] : offsets[chunkCount];
+        segments[index] = Unpooled.wrappedBuffer(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+      }
+    } catch (final IOException | RuntimeException e) {
+      for (final var segment : segments) {
+        if (segment != null) {
+          segment.release();
+        }
+      }
+      throw e;
+    }
+    return new PreparedPack(dataInfo, offsets, chunkSegments, Arrays.copyOf(segmentOffsets, segmentCount),
+      segments);
+  }
+
+  /**
+   * reads the chunk offsets of the given file if the file is complete and prepared with the given level.
+   *
+   * @param file the file to read.
+   * @param chunkCount the chunk count of the pack.
+   * @param level the compression level.
+   *
+   * @return the file offsets of the chunks and the end of the last chunk or {@code null} if the file has to be
+   *   written again.
+   */
+  @Nullable
+  private static long[] readOffsets(@NotNull final Path file, final int chunkCount, final int level) {
+    if (Files.notExists(file)) {
+      return null;
+    }
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var header = ByteBuffer.allocate(PreparedPack.HEADER_SIZE + Long.BYTES * (chunkCount + 1));
+      while (header.hasRemaining()) {
+        if (channel.read(header) == -1) {
+          return null;
+        }
+      }
+      header.flip();
+      if (header.getInt() != PreparedPack.MAGIC || header.getInt() != level || header.getInt() != chunkCount) {
+        return null;
+      }
+      final var offsets = new long[chunkCount + 1];
+      var previous = (long) header.capacity();
+      for (var index = 0; index < offsets.length; index++) {
+        offsets[index] = header.getLong();
+        if (offsets[index] < previous) {
+          return null;
+        }
+        previous = offsets[index];
+      }
+      return offsets[chunkCount] == channel.size() ? offsets : null;
+    } catch (final IOException e) {
+      PreparedPack.LOGGER.debug("Failed to read the chunk file {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * prepares all the chunks of the given pack and writes them to the given file.
+   *
+   * @param file the file to write.
+   * @param key the key of the pack which is its unique id and version joined with {@code _}.
+   * @param pack the pack to prepare.
+   * @param chunkCache the chunk cache that has the pack mapped.
+   * @param chunkCount the chunk count of the pack.
+   * @param level the compression level.
+   *
+   * @return the file offsets of the chunks and the end of the last chunk.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  @NotNull
+  private static long[] write(@NotNull final Path file, @NotNull final String key, @NotNull final Pack pack,
+                              @NotNull final PackChunkCache chunkCache, final int chunkCount, final int level)
+    throws IOException {
+    final var offsets = new long[chunkCount + 1];
+    final var header = ByteBuffer.allocate(PreparedPack.HEADER_SIZE + Long.BYTES * offsets.length);
+    try (final var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING)) {
+      var position = (long) header.capacity();
+      for (var index = 0; index < chunkCount; index++) {
+        final var chunk = chunkCache.getChunk(key, index)
+          .orElseThrow(() -> new IllegalStateException(String.format("%s is not mapped", key)));
+        final var batch = PreparedBatch.of(level, new PacketOutResourcePackChunkData(index, chunk, pack.getId(),
+          pack.getVersion().toString(), (long) PackChunkCache.CHUNK_SIZE * index));
+        offsets[index] = position;
+        final var buffer = batch.getBuffer();
+        try {
+          while (buffer.isReadable()) {
+            position += buffer.readBytes(channel, position, buffer.readableBytes());
+          }
+        } finally {
+          buffer.release();
+          batch.release();
+        }
+      }
+      offsets[chunkCount] = position;
+      header.putInt(PreparedPack.MAGIC).putInt(level).putInt(chunkCount);
+      for (final var offset : offsets) {
+        header.putLong(offset);
+      }
+      header.flip();
+      var headerPosition = 0L;
+      while (header.hasRemaining()) {
+        headerPosition += channel.write(header, headerPosition);
+      }
+      channel.force(false);
+    }
+    return offsets;
+  }
+
+  /**
+   * obtains the chunk batch.
+   * <p>
+   * the returned batch is a slice of the mapped file that holds its own reference, so it must be released after
+   * sending.
+   *
+   * @param index the chunk index to get.
+   *
+   * @return a retained chunk batch or {@link Optional#empty()} if the index is out of the pack.
+   */
+  @NotNull
+  public Optional<PreparedBatch> getChunk(final int index) {
+    if (index < 0 || index >= this.chunkSegments.length) {
+      return Optional.empty();
+    }
+    final var segment = this.chunkSegments[index];
+    final var offset = this.offsets[index] - this.segmentOffsets[segment];
+    final var length = this.offsets[index + 1] - this.offsets[index];
+    return Optional.of(PreparedBatch.wrap(this.segments[segment].retainedSlice((int) offset, (int) length)));
+  }
+
+  /**
+   * obtains the chunk count.
+   *
+   * @return chunk count.
+   */
+  public int getChunkCount() {
+    return this.chunkSegments.length;
+  }
+
+  /**
+   * obtains the data info batch.
+   *
+   * @return data info batch.
+   */
+  @NotNull
+  public PreparedBatch getDataInfo() {
+    return this.dataInfo;
+  }
+
+  /**
+   * releases the data info batch and the mapped segments, the chunk batches that are still being sent keep their
+   * segments until they're released.
+   */
+  public void release() {
+    for (final var segment : this.segments) {
+      segment.release();
+    }
+    this.dataInfo.release();
+  }
+}
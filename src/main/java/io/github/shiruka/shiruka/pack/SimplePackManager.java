@@ -28,23 +28,29 @@ package io.github.shiruka.shiruka.pack;
 import com.google.common.base.Preconditions;
 import io.github.shiruka.api.pack.*;
 import io.github.shiruka.api.text.TranslatedText;
+import io.github.shiruka.shiruka.concurrent.PoolSpec;
+import io.github.shiruka.shiruka.concurrent.ServerThreadPool;
 import io.github.shiruka.shiruka.config.ServerConfig;
-import io.github.shiruka.shiruka.network.packets.PacketOutPackInfo;
-import io.github.shiruka.shiruka.network.packets.PacketOutPackStack;
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * a simple implementation for {@link PackManager}.
+ * <p>
+ * the packs are served from a {@link PackSnapshot} that is built when the registration closed. if the hot reload is
+ * enabled, the packs directory is watched and every change builds a new snapshot in the background which replaces
+ * the current one atomically.
  */
 public final class SimplePackManager implements PackManager {
 
@@ -53,11 +59,21 @@ public final class SimplePackManager implements PackManager {
    */
   private static final Logger LOGGER = LogManager.getLogger("SimplePackManager");
 
+  /**
+   * the hash index file name.
+   */
+  private static final String HASH_INDEX_FILE = ".hash-index";
+
   /**
    * the manifest path.
    */
   private static final Path MANIFEST_PATH = Paths.get("manifest.json");
 
+  /**
+   * the loaded pack directories.
+   */
+  private final List<Path> directories = new ArrayList<>();
+
   /**
    * the loaders.
    */
@@ -69,65 +85,83 @@ public final class SimplePackManager implements PackManager {
   private final EnumMap<PackManifest.PackType, Pack.Factory> packFactories = new EnumMap<>(PackManifest.PackType.class);
 
   /**
-   * the packs info packet.
+   * the loaded pack paths.
    */
-  private final AtomicReference<PacketOutPackInfo> packInfo = new AtomicReference<>(new PacketOutPackInfo(
-    new ObjectArrayList<>(), false, new ObjectArrayList<>(), false));
+  private final List<Path> paths = new ArrayList<>();
 
   /**
-   * the pack stack packet.
+   * the current snapshot.
    */
-  private final AtomicReference<PacketOutPackStack> packStack = new AtomicReference<>(new PacketOutPackStack(
-    new ObjectArrayList<>(), new ObjectArrayList<>(), false, false, "", new ObjectArrayList<>()));
+  private final AtomicReference<PackSnapshot> snapshot = new AtomicReference<>(PackSnapshot.empty());
 
   /**
-   * the packs.
+   * the packs that are loaded until the registration closed.
    */
-  private final Map<String, Pack> packs = new HashMap<>();
+  private Map<String, Pack> packs = new HashMap<>();
 
   /**
-   * the packs by id.
+   * the packs by id that are loaded until the registration closed.
    */
-  private final Map<UUID, Pack> packsById = new HashMap<>();
+  private Map<UUID, Pack> packsById = new HashMap<>();
 
   /**
    * the closed.
    */
   private volatile boolean closed;
 
+  /**
+   * the download scheduler.
+   */
+  @Nullable
+  private volatile PackDownloadScheduler downloadScheduler;
+
+  /**
+   * the hash index.
+   */
+  @Nullable
+  private volatile PackHashIndex hashIndex;
+
+  /**
+   * the watcher.
+   */
+  @Nullable
+  private PackWatcher watcher;
+
   @Override
-  public void close() throws IOException {
-    for (final var pack : this.packs.values()) {
-      pack.close();
+  public synchronized void close() throws IOException {
+    if (this.watcher != null) {
+      this.watcher.close();
+      this.watcher = null;
+    }
+    if (this.downloadScheduler != null) {
+      this.downloadScheduler.close();
+      this.downloadScheduler = null;
     }
+    this.snapshot.get().release();
   }
 
   @Override
-  public void closeRegistration() {
+  public synchronized void closeRegistration() {
     this.checkClosed();
-    final var mustAccept = (boolean) ServerConfig.FORCE_RESOURCES.getValue()
-      .orElse(false);
-    this.packInfo.set(new PacketOutPackInfo(Collections.emptyList(),
-      mustAccept,
-      new ObjectArrayList<>(this.packs.values().stream()
-        .filter(pack -> pack.getType() != ResourcePackType.BEHAVIOR)
-        .map(pack ->
-          new PacketOutPackInfo.Entry("", "", pack.getId().toString(), pack.getSize(), pack.getVersion().toString(),
-            false, false, ""))
-        .collect(Collectors.toList())),
-      false));
-    this.packStack.set(new PacketOutPackStack(
-      Collections.emptyList(),
-      Collections.emptyList(),
-      true,
-      mustAccept,
-      "*",
-      this.packs.values().stream()
-        .filter(pack -> pack.getType() != ResourcePackType.BEHAVIOR)
-        .map(pack ->
-          new PacketOutPackStack.Entry(pack.getId().toString(), pack.getVersion().toString(), ""))
-        .collect(Collectors.toList())));
+    this.swap(PackSnapshot.build(this.packs, this.packsById, SimplePackManager.mustAccept(), this.hashIndex));
+    this.packs = Collections.emptyMap();
+    this.packsById = Collections.emptyMap();
     this.closed = true;
+    final var bandwidth = ServerConfig.PACK_DOWNLOAD_BANDWIDTH.getValue().orElse(0) * 1024L;
+    if (bandwidth > 0L) {
+      this.downloadScheduler = new PackDownloadScheduler(bandwidth);
+    }
+    if (!ServerConfig.PACK_HOT_RELOAD.getValue().orElse(false) || this.directories.isEmpty()) {
+      return;
+    }
+    final var directory = this.directories.get(0);
+    try {
+      this.watcher = new PackWatcher(directory, this::reload);
+      this.watcher.start();
+      SimplePackManager.LOGGER.info("Watching {} to reload packs", directory);
+    } catch (final IOException e) {
+      SimplePackManager.LOGGER.error(String.format("Failed to watch %s", directory), e);
+    }
   }
 
   @NotNull
@@ -159,30 +193,176 @@ public final class SimplePackManager implements PackManager {
   @NotNull
   @Override
   public Optional<Pack> getPack(@NotNull final String s) {
-    return Optional.ofNullable(this.packs.get(s));
+    if (!this.closed) {
+      return Optional.ofNullable(this.packs.get(s));
+    }
+    return this.snapshot.get().getPack(s);
   }
 
   @NotNull
   @Override
   public Optional<Pack> getPackByUniqueId(@NotNull final UUID uuid) {
-    return Optional.ofNullable(this.packsById.get(uuid));
+    if (!this.closed) {
+      return Optional.ofNullable(this.packsById.get(uuid));
+    }
+    return this.snapshot.get().getPackByUniqueId(uuid);
   }
 
   @NotNull
   @Override
   public Object getPackInfo() {
-    return this.packInfo.get();
+    return this.snapshot.get().getPackInfo();
   }
 
   @NotNull
   @Override
   public Object getPackStack() {
-    return this.packStack.get();
+    return this.snapshot.get().getPackStack();
   }
 
   @Override
   public void loadPack(@NotNull final Path path) {
     this.checkClosed();
+    this.paths.add(path);
+    this.loadPack(path, this.packs, this.packsById);
+  }
+
+  @Override
+  public void loadPacks(@NotNull final Path directory) {
+    this.checkClosed();
+    Preconditions.checkArgument(Files.isDirectory(directory), "%s is not a directory", directory);
+    if (this.hashIndex == null) {
+      this.hashIndex = new PackHashIndex(directory.resolve(SimplePackManager.HASH_INDEX_FILE));
+    }
+    this.directories.add(directory);
+    this.loadPacks(directory, this.packs, this.packsById);
+  }
+
+  @Override
+  public void registerLoader(@NotNull final Class<? extends PackLoader> cls,
+                             @NotNull final PackLoader.Factory factory) {
+    Preconditions.checkArgument(this.loaderFactories.putIfAbsent(cls, factory) == null,
+      "The pack loader factory is already registered!");
+  }
+
+  @Override
+  public void registerPack(@NotNull final PackManifest.PackType type, @NotNull final Pack.Factory factory) {
+    Preconditions.checkArgument(this.packFactories.putIfAbsent(type, factory) == null,
+      "The pack factory is already registered!");
+  }
+
+  /**
+   * acquires the current snapshot.
+   * <p>
+   * the snapshot stays usable, even if it's replaced by a reload, until {@link PackSnapshot#release()} is called.
+   *
+   * @return the current snapshot.
+   */
+  @NotNull
+  public PackSnapshot acquire() {
+    while (true) {
+      final var current = this.snapshot.get();
+      if (current.retain()) {
+        return current;
+      }
+    }
+  }
+
+  /**
+   * obtains the download scheduler.
+   *
+   * @return the download scheduler or {@link Optional#empty()} if the registration is not closed yet or the pack
+   *   downloads have no bandwidth cap.
+   */
+  @NotNull
+  public Optional<PackDownloadScheduler> getDownloadScheduler() {
+    return Optional.ofNullable(this.downloadScheduler);
+  }
+
+  /**
+   * reloads all the packs from the loaded directories and paths and replaces the current snapshot.
+   * <p>
+   * the downloads that are already started keep the snapshot they started with.
+   */
+  public synchronized void reload() {
+    if (!this.closed) {
+      return;
+    }
+    final var start = System.nanoTime();
+    final var packs = new HashMap<String, Pack>();
+    final var packsById = new HashMap<UUID, Pack>();
+    try {
+      this.directories.forEach(directory -> this.loadPacks(directory, packs, packsById));
+      this.paths.forEach(path -> this.loadPack(path, packs, packsById));
+      this.swap(PackSnapshot.build(packs, packsById, SimplePackManager.mustAccept(), this.hashIndex));
+      SimplePackManager.LOGGER.info("Reloaded {} packs in {} ms", packs.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } catch (final RuntimeException e) {
+      SimplePackManager.LOGGER.error("Failed to reload packs", e);
+      for (final var pack : packs.values()) {
+        try {
+          pack.close();
+        } catch (final Exception ignored) {
+          // ignored.
+        }
+      }
+    }
+  }
+
+  /**
+   * closes the given loader that is replaced or not used.
+   *
+   * @param loader the loader to close.
+   */
+  private static void closeLoader(@NotNull final PackLoader loader) {
+    try {
+      loader.close();
+    } catch (final Exception e) {
+      SimplePackManager.LOGGER.debug("Failed to close the loader", e);
+    }
+  }
+
+  /**
+   * checks if the clients must accept the packs.
+   *
+   * @return {@code true} if the resources are forced.
+   */
+  private static boolean mustAccept() {
+    return ServerConfig.FORCE_RESOURCES.getValue().orElse(false);
+  }
+
+  /**
+   * checks if the resource pack manager closed.
+   *
+   * @throws IllegalStateException if {@link #closed} is true.
+   */
+  private void checkClosed() {
+    Preconditions.checkState(!this.closed, "PackManager registration is closed!");
+  }
+
+  /**
+   * opens the loader and parses the manifest of the given pack path.
+   *
+   * @param path the path to discover.
+   *
+   * @return the loader and the manifest or {@link Optional#empty()} if the path is not a pack.
+   */
+  @NotNull
+  private Optional<Map.Entry<PackLoader, PackManifest>> discover(@NotNull final Path path) {
+    return this.getLoader(path)
+      .flatMap(loader -> this.getManifest(loader)
+        .map(manifest -> Map.entry(loader, manifest)));
+  }
+
+  /**
+   * loads the pack at the given path into the given maps.
+   *
+   * @param path the path to load.
+   * @param packs the packs to put.
+   * @param packsById the packs by id to put.
+   */
+  private void loadPack(@NotNull final Path path, @NotNull final Map<String, Pack> packs,
+                        @NotNull final Map<UUID, Pack> packsById) {
     final var loaderOptional = this.getLoader(path);
     Preconditions.checkState(loaderOptional.isPresent(), "No suitable loader found for pack!");
     final var loader = loaderOptional.get();
@@ -194,103 +374,83 @@ public final class SimplePackManager implements PackManager {
     Preconditions.checkNotNull(factory, "Unsupported pack type %s", module.getType());
     final var uuid = manifest.getHeader().getUuid();
     final var pack = factory.create(loader, manifest, module);
-    this.packs.put(uuid + "_" + manifest.getHeader().getVersion(), pack);
-    this.packsById.put(uuid, pack);
+    packs.put(uuid + "_" + manifest.getHeader().getVersion(), pack);
+    packsById.put(uuid, pack);
     loader.getPreparedFile();
   }
 
-  @Override
-  public void loadPacks(@NotNull final Path directory) {
-    this.checkClosed();
-    Preconditions.checkArgument(Files.isDirectory(directory), "%s is not a directory", directory);
-    final var loaders = new ArrayList<PackLoader>();
+  /**
+   * loads the packs in the given directory into the given maps.
+   *
+   * @param directory the directory to load.
+   * @param packs the packs to put.
+   * @param packsById the packs by id to put.
+   */
+  private void loadPacks(@NotNull final Path directory, @NotNull final Map<String, Pack> packs,
+                         @NotNull final Map<UUID, Pack> packsById) {
+    final var start = System.nanoTime();
+    final var entries = new ArrayList<Path>();
     try (final var stream = Files.newDirectoryStream(directory)) {
-      for (final var entry : stream) {
-        final var loader = this.getLoader(entry);
-        if (loader.isEmpty()) {
-          continue;
-        }
-        loaders.add(loader.get());
-      }
+      stream.forEach(entries::add);
     } catch (final IOException e) {
       SimplePackManager.LOGGER.error("", e);
     }
+    final var pool = ServerThreadPool.forSpec(PoolSpec.CHUNKS);
+    final var discovered = entries.stream()
+      .map(entry -> CompletableFuture.supplyAsync(() -> this.discover(entry), pool))
+      .collect(Collectors.toList());
     final var manifestMap = new HashMap<UUID, PackManifest>();
     final var loaderMap = new HashMap<UUID, PackLoader>();
-    loaders.forEach(loader -> {
-      final var optional = this.getManifest(loader);
-      if (optional.isEmpty()) {
-        return;
-      }
-      final var manifest = optional.get();
-      final var uuid = manifest.getHeader().getUuid();
-      manifestMap.put(uuid, manifest);
-      loaderMap.put(uuid, loader);
-    });
-    loaders.clear();
-    final var missingDependencies = new ArrayList<PackManifest>();
-    var missingDependency = false;
-    do {
-      missingDependency = false;
-      final var iterator = manifestMap.values().iterator();
-      while (iterator.hasNext()) {
-        final var manifest = iterator.next();
-        for (final var dependency : manifest.getDependencies()) {
-          final var uuid = dependency.getUuid();
-          if (manifestMap.containsKey(uuid) || this.packsById.containsKey(uuid)) {
-            continue;
-          }
-          // @todo #1:15m Check version.
-          iterator.remove();
-          missingDependencies.add(manifest);
-          missingDependency = true;
-          break;
+    discovered.stream()
+      .map(CompletableFuture::join)
+      .flatMap(Optional::stream)
+      .forEach(entry -> {
+        final var uuid = entry.getValue().getHeader().getUuid();
+        final var duplicate = loaderMap.put(uuid, entry.getKey());
+        if (duplicate != null) {
+          SimplePackManager.LOGGER.warn("Pack {} is found both in {} and {}, the latter is used", uuid,
+            duplicate.getLocation(), entry.getKey().getLocation());
+          SimplePackManager.closeLoader(duplicate);
         }
-      }
-    } while (missingDependency);
-    if (!missingDependencies.isEmpty()) {
-      final var joiner = new StringJoiner(", ");
-      missingDependencies.stream()
-        .map(pack -> pack.getHeader().getName() + ":" + pack.getHeader().getVersion())
-        .forEach(joiner::add);
-      SimplePackManager.LOGGER.error("Could not load packs due to missing dependencies {}", joiner);
-    }
-    for (final var manifest : manifestMap.values()) {
+        manifestMap.put(uuid, entry.getValue());
+      });
+    final var discoveredAt = System.nanoTime();
+    final var result = PackResolver.resolve(manifestMap, packsById);
+    result.getFailures().forEach((manifest, reason) -> {
+      SimplePackManager.LOGGER.error("Could not load pack {}: {}", PackResolver.name(manifest), reason);
+      SimplePackManager.closeLoader(loaderMap.get(manifest.getHeader().getUuid()));
+    });
+    final var resolvedAt = System.nanoTime();
+    var loaded = 0;
+    for (final var manifest : result.getOrdered()) {
       final var loader = loaderMap.get(manifest.getHeader().getUuid());
       final var module = manifest.getModules().get(0);
       final var factory = this.packFactories.get(module.getType());
       if (factory == null) {
         SimplePackManager.LOGGER.warn("Unsupported pack type {}", module.getType());
+        SimplePackManager.closeLoader(loader);
         continue;
       }
       final var uuid = manifest.getHeader().getUuid();
       final var pack = factory.create(loader, manifest, module);
-      this.packs.put(uuid + "_" + manifest.getHeader().getVersion(), pack);
-      this.packsById.put(uuid, pack);
+      packs.put(uuid + "_" + manifest.getHeader().getVersion(), pack);
+      packsById.put(uuid, pack);
       loader.getPreparedFile();
+      loaded++;
     }
-    SimplePackManager.LOGGER.debug(TranslatedText.get("shiruka.resources.success", manifestMap.size()));
-  }
-
-  @Override
-  public void registerLoader(@NotNull final Class<? extends PackLoader> cls,
-                             @NotNull final PackLoader.Factory factory) {
-    Preconditions.checkArgument(this.loaderFactories.putIfAbsent(cls, factory) == null,
-      "The pack loader factory is already registered!");
-  }
-
-  @Override
-  public void registerPack(@NotNull final PackManifest.PackType type, @NotNull final Pack.Factory factory) {
-    Preconditions.checkArgument(this.packFactories.putIfAbsent(type, factory) == null,
-      "The pack factory is already registered!");
+    final var end = System.nanoTime();
+    SimplePackManager.LOGGER.debug(TranslatedText.get("shiruka.resources.success", loaded));
+    SimplePackManager.LOGGER.info("Loaded {} packs in {} ms (discovery: {} ms, resolution: {} ms, creation: {} ms)",
+      loaded, TimeUnit.NANOSECONDS.toMillis(end - start), TimeUnit.NANOSECONDS.toMillis(discoveredAt - start),
+      TimeUnit.NANOSECONDS.toMillis(resolvedAt - discoveredAt), TimeUnit.NANOSECONDS.toMillis(end - resolvedAt));
   }
 
   /**
-   * checks if the resource pack manager closed.
+   * replaces the current snapshot with the given one and releases the reference of the old one.
    *
-   * @throws IllegalStateException if {@link #closed} is true.
+   * @param snapshot the snapshot to set.
    */
-  private void checkClosed() {
-    Preconditions.checkState(!this.closed, "PackManager registration is closed!");
+  private void swap(@NotNull final PackSnapshot snapshot) {
+    this.snapshot.getAndSet(snapshot).release();
   }
 }
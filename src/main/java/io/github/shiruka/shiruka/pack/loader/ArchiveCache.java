@@ -0,0 +1,503 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.pack.loader;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import io.github.shiruka.shiruka.concurrent.PoolSpec;
+import io.github.shiruka.shiruka.concurrent.ServerThreadPool;
+import io.github.shiruka.shiruka.network.util.Misc;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that keeps the prepared archives of the directory packs on disk.
+ * <p>
+ * every archive has a manifest of the relative paths, sizes and last modified times of the files that it contains.
+ * an unchanged directory reuses its archive as it is, a changed directory only compresses the changed files in
+ * parallel and copies the compressed data of the other files from the previous archive. the changed files are
+ * compressed a few ahead of the writer, which writes each of them as soon as it's ready and drops its data, so only
+ * the files in the window are kept in memory.
+ */
+final class ArchiveCache {
+
+  /**
+   * the cache path.
+   */
+  private static final Path CACHE_PATH = Misc.HOME_PATH.resolve("cache").resolve("packs");
+
+  /**
+   * the central directory header size without the name.
+   */
+  private static final int CENTRAL_HEADER_SIZE = 46;
+
+  /**
+   * the dos date of the entries which is 1980-01-01, so the archives do not depend on the time they're created.
+   */
+  private static final int DOS_DATE = 0x21;
+
+  /**
+   * the end of central directory record size.
+   */
+  private static final int END_SIZE = 22;
+
+  /**
+   * the general purpose flag that marks the names as utf-8.
+   */
+  private static final int FLAG_UTF8 = 0x0800;
+
+  /**
+   * the compression level.
+   */
+  private static final int LEVEL = Deflater.BEST_SPEED;
+
+  /**
+   * the local file header size without the name.
+   */
+  private static final int LOCAL_HEADER_SIZE = 30;
+
+  /**
+   * the deflated compression method.
+   */
+  private static final int METHOD_DEFLATED = 8;
+
+  /**
+   * the stored compression method.
+   */
+  private static final int METHOD_STORED = 0;
+
+  /**
+   * the pool to compress the files.
+   */
+  private static final PoolSpec POOL = PoolSpec.CHUNKS;
+
+  /**
+   * the zip version that is needed to extract the entries.
+   */
+  private static final int VERSION = 20;
+
+  /**
+   * ctor.
+   */
+  private ArchiveCache() {
+  }
+
+  /**
+   * prepares the archive of the given directory.
+   *
+   * @param directory the directory to prepare.
+   *
+   * @return the path of the prepared archive.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  @NotNull
+  static Path prepare(@NotNull final Path directory) throws IOException {
+    Files.createDirectories(ArchiveCache.CACHE_PATH);
+    final var key = directory.getFileName() + "-" + Hashing.sha256()
+      .hashString(directory.toAbsolutePath().normalize().toString(), StandardCharsets.UTF_8)
+      .toString().substring(0, 16);
+    final var archive = ArchiveCache.CACHE_PATH.resolve(key + ".zip");
+    final var manifest = ArchiveCache.CACHE_PATH.resolve(key + ".manifest");
+    final var files = ArchiveCache.scan(directory);
+    final var cached = ArchiveCache.readManifest(manifest, archive);
+    final var changed = files.stream()
+      .filter(file -> !file.matches(cached.get(file.name)))
+      .collect(Collectors.toList());
+    if (changed.isEmpty() && cached.size() == files.size()) {
+      return archive;
+    }
+    final var temp = ArchiveCache.CACHE_PATH.resolve(key + ".zip.tmp");
+    ArchiveCache.write(temp, files, changed, cached, cached.isEmpty() ? null : archive);
+    Files.deleteIfExists(manifest);
+    Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    ArchiveCache.writeManifest(manifest, files);
+    return archive;
+  }
+
+  /**
+   * reads and compresses the given entry.
+   *
+   * @param entry the entry to compress.
+   *
+   * @throws UncheckedIOException if an I/O error has occurred.
+   */
+  private static void compress(@NotNull final Entry entry) {
+    final byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(Objects.requireNonNull(entry.file, "file"));
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    final var crc = new CRC32();
+    crc.update(bytes);
+    final var deflater = new Deflater(ArchiveCache.LEVEL, true);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      final var output = new byte[bytes.length];
+      var length = 0;
+      while (!deflater.finished() && length < output.length) {
+        length += deflater.deflate(output, length, output.length - length);
+      }
+      if (deflater.finished() && length < bytes.length) {
+        entry.method = ArchiveCache.METHOD_DEFLATED;
+        entry.data = length == output.length ? output : Arrays.copyOf(output, length);
+      } else {
+        entry.method = ArchiveCache.METHOD_STORED;
+        entry.data = bytes;
+      }
+    } finally {
+      deflater.end();
+    }
+    entry.crc = crc.getValue();
+    entry.compressedSize = entry.data.length;
+    entry.size = bytes.length;
+  }
+
+  /**
+   * creates a little-endian header buffer.
+   *
+   * @param size the size of the header.
+   *
+   * @return a new header buffer.
+   */
+  @NotNull
+  private static ByteBuffer header(final int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * puts the fields that both of the local and the central headers have.
+   *
+   * @param header the header to put.
+   * @param entry the entry to put.
+   * @param name the encoded name of the entry.
+   */
+  private static void putEntry(@NotNull final ByteBuffer header, @NotNull final Entry entry, final byte[] name) {
+    header.putShort((short) ArchiveCache.FLAG_UTF8);
+    header.putShort((short) entry.method);
+    header.putShort((short) 0);
+    header.putShort((short) ArchiveCache.DOS_DATE);
+    header.putInt((int) entry.crc);
+    header.putInt((int) entry.compressedSize);
+    header.putInt((int) entry.size);
+    header.putShort((short) name.length);
+    header.putShort((short) 0);
+  }
+
+  /**
+   * reads the manifest of the cached archive.
+   *
+   * @param manifest the manifest to read.
+   * @param archive the cached archive.
+   *
+   * @return the cached entries by name, empty if the archive or the manifest does not exist.
+   */
+  @NotNull
+  private static Map<String, Entry> readManifest(@NotNull final Path manifest, @NotNull final Path archive) {
+    final var entries = new HashMap<String, Entry>();
+    if (Files.notExists(manifest) || Files.notExists(archive)) {
+      return entries;
+    }
+    try (final var lines = Files.lines(manifest, StandardCharsets.UTF_8)) {
+      lines.forEach(line -> {
+        final var split = line.split(" ", 7);
+        final var entry = new Entry(split[6], null, Long.parseLong(split[0]), Long.parseLong(split[1]));
+        entry.crc = Long.parseLong(split[2]);
+        entry.compressedSize = Long.parseLong(split[3]);
+        entry.method = Integer.parseInt(split[4]);
+        entry.offset = Long.parseLong(split[5]);
+        entries.put(entry.name, entry);
+      });
+    } catch (final IOException | RuntimeException e) {
+      entries.clear();
+    }
+    return entries;
+  }
+
+  /**
+   * scans the regular files of the given directory in the name order.
+   *
+   * @param directory the directory to scan.
+   *
+   * @return the entries of the files.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  @NotNull
+  private static List<Entry> scan(@NotNull final Path directory) throws IOException {
+    final var entries = new ArrayList<Entry>();
+    try (final var stream = Files.walk(directory)) {
+      for (final var file : (Iterable<Path>) stream.filter(Files::isRegularFile)::iterator) {
+        final var name = directory.relativize(file).toString().replace(File.separatorChar, '/');
+        entries.add(new Entry(name, file, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+      }
+    }
+    entries.sort((first, second) -> first.name.compareTo(second.name));
+    return entries;
+  }
+
+  /**
+   * flips and writes the given buffer fully.
+   *
+   * @param channel the channel to write.
+   * @param buffer the buffer to write.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  private static void write(@NotNull final FileChannel channel, @NotNull final ByteBuffer buffer)
+    throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * writes the archive.
+   *
+   * @param target the target to write.
+   * @param entries the entries to write.
+   * @param changed the changed entries to compress, in the same order as the entries.
+   * @param cached the cached entries by name.
+   * @param previous the previous archive to copy the unchanged entries from.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  private static void write(@NotNull final Path target, @NotNull final List<Entry> entries,
+                            @NotNull final List<Entry> changed, @NotNull final Map<String, Entry> cached,
+                            @Nullable final Path previous) throws IOException {
+    final var pool = ServerThreadPool.forSpec(ArchiveCache.POOL);
+    final var window = Math.max(1, ArchiveCache.POOL.getMaxThreads()) * 2;
+    final var compressing = new ArrayDeque<CompletableFuture<Void>>();
+    final var toCompress = changed.iterator();
+    try (final var out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING);
+         final var old = previous == null ? null : FileChannel.open(previous, StandardOpenOption.READ)) {
+      var position = 0L;
+      for (final var entry : entries) {
+        final var name = entry.name.getBytes(StandardCharsets.UTF_8);
+        final var cachedEntry = cached.get(entry.name);
+        @Nullable final Entry reused = entry.matches(cachedEntry) ? cachedEntry : null;
+        if (reused == null) {
+          while (compressing.size() < window && toCompress.hasNext()) {
+            final var next = toCompress.next();
+            compressing.add(CompletableFuture.runAsync(() -> ArchiveCache.compress(next), pool));
+          }
+          try {
+            Objects.requireNonNull(compressing.poll(), "compressing").join();
+          } catch (final CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+              throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+          }
+        } else {
+          entry.crc = reused.crc;
+          entry.compressedSize = reused.compressedSize;
+          entry.method = reused.method;
+        }
+        final var header = ArchiveCache.header(ArchiveCache.LOCAL_HEADER_SIZE + name.length);
+        header.putInt(0x04034b50);
+        header.putShort((short) ArchiveCache.VERSION);
+        ArchiveCache.putEntry(header, entry, name);
+        header.put(name);
+        ArchiveCache.write(out, header);
+        final var dataOffset = position + ArchiveCache.LOCAL_HEADER_SIZE + name.length;
+        if (reused != null) {
+          Preconditions.checkState(old != null, "Previous archive is not open!");
+          final var source = reused.offset + ArchiveCache.LOCAL_HEADER_SIZE + name.length;
+          var transferred = 0L;
+          while (transferred < entry.compressedSize) {
+            transferred += old.transferTo(source + transferred, entry.compressedSize - transferred, out);
+          }
+        } else {
+          final var data = ByteBuffer.wrap(Objects.requireNonNull(entry.data, "data"));
+          while (data.hasRemaining()) {
+            out.write(data);
+          }
+          entry.data = null;
+        }
+        entry.offset = position;
+        position = dataOffset + entry.compressedSize;
+        Preconditions.checkState(position < 0xffffffffL, "Pack archive is bigger than 4 GiB!");
+      }
+      final var centralOffset = position;
+      for (final var entry : entries) {
+        final var name = entry.name.getBytes(StandardCharsets.UTF_8);
+        final var header = ArchiveCache.header(ArchiveCache.CENTRAL_HEADER_SIZE + name.length);
+        header.putInt(0x02014b50);
+        header.putShort((short) ArchiveCache.VERSION);
+        header.putShort((short) ArchiveCache.VERSION);
+        ArchiveCache.putEntry(header, entry, name);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putInt(0);
+        header.putInt((int) entry.offset);
+        header.put(name);
+        ArchiveCache.write(out, header);
+        position += ArchiveCache.CENTRAL_HEADER_SIZE + name.length;
+      }
+      Preconditions.checkState(entries.size() < 0xffff, "Pack archive has too many entries!");
+      final var end = ArchiveCache.header(ArchiveCache.END_SIZE);
+      end.putInt(0x06054b50);
+      end.putShort((short) 0);
+      end.putShort((short) 0);
+      end.putShort((short) entries.size());
+      end.putShort((short) entries.size());
+      end.putInt((int) (position - centralOffset));
+      end.putInt((int) centralOffset);
+      end.putShort((short) 0);
+      ArchiveCache.write(out, end);
+    } finally {
+      compressing.forEach(future -> future.cancel(false));
+    }
+  }
+
+  /**
+   * writes the manifest of the given entries.
+   *
+   * @param manifest the manifest to write.
+   * @param entries the entries to write.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  private static void writeManifest(@NotNull final Path manifest, @NotNull final List<Entry> entries)
+    throws IOException {
+    final var content = entries.stream()
+      .map(entry -> String.format("%d %d %d %d %d %d %s", entry.size, entry.lastModified, entry.crc,
+        entry.compressedSize, entry.method, entry.offset, entry.name))
+      .collect(Collectors.joining("\n"));
+    final var temp = manifest.resolveSibling(manifest.getFileName() + ".tmp");
+    Files.writeString(temp, content, StandardCharsets.UTF_8);
+    Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * a class that represents archive entries.
+   */
+  private static final class Entry {
+
+    /**
+     * the file, null for the cached entries.
+     */
+    @Nullable
+    private final Path file;
+
+    /**
+     * the last modified time of the file.
+     */
+    private final long lastModified;
+
+    /**
+     * the name of the entry.
+     */
+    @NotNull
+    private final String name;
+
+    /**
+     * the compressed size.
+     */
+    private long compressedSize;
+
+    /**
+     * the crc-32 of the file.
+     */
+    private long crc;
+
+    /**
+     * the compressed data, only set for the changed entries from their compression until they're written.
+     */
+    @Nullable
+    private byte[] data;
+
+    /**
+     * the compression method.
+     */
+    private int method;
+
+    /**
+     * the local header offset in the archive.
+     */
+    private long offset;
+
+    /**
+     * the size of the file.
+     */
+    private long size;
+
+    /**
+     * ctor.
+     *
+     * @param name the name.
+     * @param file the file.
+     * @param size the size.
+     * @param lastModified the last modified time.
+     */
+    private Entry(@NotNull final String name, @Nullable final Path file, final long size, final long lastModified) {
+      this.name = name;
+      this.file = file;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    /**
+     * checks if the given cached entry has the same file state.
+     *
+     * @param cached the cached entry to check.
+     *
+     * @return {@code true} if the file did not change since the entry cached.
+     */
+    private boolean matches(@Nullable final Entry cached) {
+      return cached != null && cached.size == this.size && cached.lastModified == this.lastModified;
+    }
+  }
+}
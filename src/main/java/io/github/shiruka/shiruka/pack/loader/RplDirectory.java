@@ -26,19 +26,16 @@
 package io.github.shiruka.shiruka.pack.loader;
 
 import io.github.shiruka.api.pack.PackLoader;
+import io.github.shiruka.shiruka.concurrent.PoolSpec;
+import io.github.shiruka.shiruka.concurrent.ServerThreadPool;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -52,11 +49,6 @@ public final class RplDirectory implements PackLoader {
    */
   public static final Factory FACTORY = new DirectoryFactory();
 
-  /**
-   * the temp files.
-   */
-  private static final List<Path> TEMP_FILES = new ArrayList<>();
-
   /**
    * the path.
    */
@@ -117,26 +109,11 @@ public final class RplDirectory implements PackLoader {
     if (this.preparedFile == null) {
       this.preparedFile = CompletableFuture.supplyAsync(() -> {
         try {
-          final var temp = Files.createTempFile("temp", String.valueOf(System.currentTimeMillis()));
-          try (final var out = Files.newOutputStream(temp);
-               final var zipOut = new ZipOutputStream(out)) {
-            this.forEachIn(Paths.get(""), true, entry -> {
-              try {
-                final var zipEntry = new ZipEntry(entry.toString());
-                zipOut.putNextEntry(zipEntry);
-                Files.copy(entry, zipOut);
-                zipOut.closeEntry();
-              } catch (final IOException ignored) {
-                // ignored.
-              }
-            });
-          }
-          RplDirectory.TEMP_FILES.add(temp);
-          return temp;
+          return ArchiveCache.prepare(this.path);
         } catch (final IOException e) {
           throw new CompletionException(e);
         }
-      });
+      }, ServerThreadPool.forSpec(PoolSpec.CHUNKS));
     }
     return this.preparedFile;
   }
@@ -155,13 +132,7 @@ public final class RplDirectory implements PackLoader {
 
   @Override
   public void shutdown() {
-    RplDirectory.TEMP_FILES.forEach(temp -> {
-      try {
-        Files.deleteIfExists(temp);
-      } catch (final IOException ignored) {
-        // ignored.
-      }
-    });
+    // ignored.
   }
 
   /**
@@ -31,11 +31,9 @@ import java.io.InputStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
-import java.nio.file.Paths;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,6 +42,9 @@ import org.jetbrains.annotations.Nullable;
 
 /**
  * a simple zip implementation for {@link PackLoader}.
+ * <p>
+ * the central directory is read into a {@link ZipIndex} once, so the asset lookups and the directory walks don't
+ * enumerate the archive.
  */
 public final class RplZip implements PackLoader {
 
@@ -52,6 +53,12 @@ public final class RplZip implements PackLoader {
    */
   public static final Factory FACTORY = new ZipFactory();
 
+  /**
+   * the index.
+   */
+  @NotNull
+  private final ZipIndex index;
+
   /**
    * the path.
    */
@@ -75,10 +82,18 @@ public final class RplZip implements PackLoader {
    *
    * @param path tha path.
    * @param zipFile the zip file.
+   *
+   * @throws IOException if an I/O error has occurred.
    */
-  private RplZip(@NotNull final Path path, @NotNull final ZipFile zipFile) {
+  private RplZip(@NotNull final Path path, @NotNull final ZipFile zipFile) throws IOException {
     this.path = path;
     this.zipFile = zipFile;
+    try {
+      this.index = ZipIndex.read(path, zipFile);
+    } catch (final IOException e) {
+      zipFile.close();
+      throw e;
+    }
   }
 
   /**
@@ -94,32 +109,30 @@ public final class RplZip implements PackLoader {
 
   @Override
   public void close() throws IOException {
+    this.index.close();
     this.zipFile.close();
   }
 
   @Override
   public void forEachIn(@NotNull final Path path, final boolean recurse, @NotNull final Consumer<Path> consumer) {
-    final var entries = this.zipFile.entries();
-    while (entries.hasMoreElements()) {
-      final var entry = entries.nextElement();
-      final var entryPath = Paths.get(entry.getName());
-      if (entryPath.getParent().equals(path)) {
-        consumer.accept(entryPath);
-      }
-      if (entry.isDirectory()) {
-        this.forEachIn(entryPath, true, consumer);
-      }
+    final var node = this.index.find(path);
+    if (node != null && node.isDirectory()) {
+      this.forEachIn(node, recurse, consumer);
     }
   }
 
   @NotNull
   @Override
   public Optional<InputStream> getAsset(@NotNull final Path path) throws IOException {
-    final var entry = this.entry(path);
-    if (entry == null) {
+    final var node = this.index.find(path);
+    if (node == null || node.isDirectory() || node.getEntry() == null) {
       return Optional.empty();
     }
-    return Optional.ofNullable(this.zipFile.getInputStream(entry));
+    final var mapped = this.index.openMapped(node);
+    if (mapped.isPresent()) {
+      return mapped;
+    }
+    return Optional.ofNullable(this.zipFile.getInputStream(node.getEntry()));
   }
 
   @NotNull
@@ -139,14 +152,14 @@ public final class RplZip implements PackLoader {
 
   @Override
   public boolean hasAsset(@NotNull final Path path) {
-    final var entry = this.entry(path);
-    return entry != null && !entry.isDirectory();
+    final var node = this.index.find(path);
+    return node != null && !node.isDirectory();
   }
 
   @Override
   public boolean hasFolder(@NotNull final Path path) {
-    final var entry = this.entry(path);
-    return entry != null && entry.isDirectory();
+    final var node = this.index.find(path);
+    return node != null && node.isDirectory();
   }
 
   @Override
@@ -155,15 +168,21 @@ public final class RplZip implements PackLoader {
   }
 
   /**
-   * obtains the zip entry.
-   *
-   * @param path the path to get.
+   * walks the children of the given directory node.
    *
-   * @return zip entry.
+   * @param node the node to walk.
+   * @param recurse the recurse to walk the sub directories.
+   * @param consumer the consumer to accept.
    */
-  @Nullable
-  private ZipEntry entry(@NotNull final Path path) {
-    return this.zipFile.getEntry(path.toString());
+  private void forEachIn(@NotNull final ZipIndex.Node node, final boolean recurse,
+                         @NotNull final Consumer<Path> consumer) {
+    for (final var child : node.getChildren()) {
+      if (child.isDirectory() && recurse) {
+        this.forEachIn(child, true, consumer);
+      } else {
+        consumer.accept(child.getPath());
+      }
+    }
   }
 
   /**
@@ -0,0 +1,447 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.pack.loader;
+
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that keeps the central directory of a zip archive as a path tree.
+ * <p>
+ * the tree is built once when the archive opened, so the lookups walk the path components instead of scanning the
+ * whole archive. the stored entries are served straight from a read-only mapping of the archive.
+ */
+final class ZipIndex {
+
+  /**
+   * the central directory header signature.
+   */
+  private static final int CENTRAL_HEADER = 0x02014b50;
+
+  /**
+   * the central directory header size.
+   */
+  private static final int CENTRAL_HEADER_SIZE = 46;
+
+  /**
+   * the end of central directory record signature.
+   */
+  private static final int END = 0x06054b50;
+
+  /**
+   * the end of central directory record size.
+   */
+  private static final int END_SIZE = 22;
+
+  /**
+   * the local file header signature.
+   */
+  private static final int LOCAL_HEADER = 0x04034b50;
+
+  /**
+   * the local file header size.
+   */
+  private static final int LOCAL_HEADER_SIZE = 30;
+
+  /**
+   * the maximum archive comment length.
+   */
+  private static final int MAXIMUM_COMMENT = 0xffff;
+
+  /**
+   * the stored compression method.
+   */
+  private static final int METHOD_STORED = 0;
+
+  /**
+   * the zip64 marker of the 32-bit fields.
+   */
+  private static final long ZIP64_MARKER = 0xffffffffL;
+
+  /**
+   * the root node.
+   */
+  @NotNull
+  private final Node root;
+
+  /**
+   * the read-only mapping of the archive, null if the archive has no stored entry, can't be mapped or is closed.
+   */
+  @Nullable
+  private volatile ByteBuffer mapped;
+
+  /**
+   * ctor.
+   *
+   * @param root the root node.
+   * @param mapped the mapped archive.
+   */
+  private ZipIndex(@NotNull final Node root, @Nullable final ByteBuffer mapped) {
+    this.root = root;
+    this.mapped = mapped;
+  }
+
+  /**
+   * reads the central directory of the given archive.
+   *
+   * @param path the path of the archive.
+   * @param zipFile the zip file of the archive.
+   *
+   * @return a new zip index instance.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  @NotNull
+  static ZipIndex read(@NotNull final Path path, @NotNull final ZipFile zipFile) throws IOException {
+    final var root = new Node(Paths.get(""), null, true);
+    var stored = false;
+    try {
+      final var entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        final var entry = entries.nextElement();
+        final var name = entry.getName();
+        stored |= !entry.isDirectory() && entry.getMethod() == ZipEntry.STORED && entry.getSize() > 0L;
+        var node = root;
+        var start = 0;
+        while (node != null && start < name.length()) {
+          var end = name.indexOf('/', start);
+          if (end == -1) {
+            end = name.length();
+          }
+          if (end > start) {
+            final var last = end == name.length() || end == name.length() - 1;
+            node = node.child(name.substring(start, end), last ? entry : null, !last || entry.isDirectory());
+          }
+          start = end + 1;
+        }
+      }
+    } catch (final RuntimeException e) {
+      throw new IOException(String.format("Invalid archive %s", path), e);
+    }
+    if (!stored) {
+      return new ZipIndex(root, null);
+    }
+    ByteBuffer mapped;
+    try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final var size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        mapped = null;
+      } else {
+        final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        mapped = ZipIndex.locateStored(buffer, root) ? buffer : null;
+      }
+    } catch (final RuntimeException e) {
+      // a malformed central directory only costs the mapping, the entries are still read through the zip file.
+      mapped = null;
+    }
+    return new ZipIndex(root, mapped);
+  }
+
+  /**
+   * drops the mapping of the archive, the opened streams keep it until they are closed.
+   */
+  void close() {
+    this.mapped = null;
+  }
+
+  /**
+   * finds the node of the given path.
+   *
+   * @param path the path to find.
+   *
+   * @return the node or {@code null} if the archive does not contain the path.
+   */
+  @Nullable
+  Node find(@NotNull final Path path) {
+    var node = this.root;
+    for (final var name : path) {
+      final var value = name.toString();
+      if (value.isEmpty()) {
+        continue;
+      }
+      node = node.children.get(value);
+      if (node == null) {
+        return null;
+      }
+    }
+    return node;
+  }
+
+  /**
+   * opens the stored entry of the given node from the mapped archive.
+   *
+   * @param node the node to open.
+   *
+   * @return an input stream over the mapped entry or {@link Optional#empty()} if the entry is not stored or the
+   *   archive is not mapped.
+   */
+  @NotNull
+  Optional<InputStream> openMapped(@NotNull final Node node) {
+    final var mapped = this.mapped;
+    if (mapped == null || node.dataOffset == -1 || node.entry == null) {
+      return Optional.empty();
+    }
+    final var offset = (int) node.dataOffset;
+    final var slice = mapped.duplicate()
+      .position(offset)
+      .limit(offset + (int) node.entry.getSize())
+      .slice();
+    return Optional.of(new ByteBufInputStream(Unpooled.wrappedBuffer(slice), true));
+  }
+
+  /**
+   * finds the data offsets of the stored entries through the central directory of the mapped archive.
+   *
+   * @param buffer the mapped archive.
+   * @param root the root node.
+   *
+   * @return {@code true} if the central directory could be read.
+   */
+  private static boolean locateStored(@NotNull final ByteBuffer buffer, @NotNull final Node root) {
+    final var limit = buffer.limit();
+    var end = -1;
+    for (var index = limit - ZipIndex.END_SIZE;
+         index >= Math.max(0, limit - ZipIndex.END_SIZE - ZipIndex.MAXIMUM_COMMENT); index--) {
+      if (buffer.getInt(index) == ZipIndex.END) {
+        end = index;
+        break;
+      }
+    }
+    if (end == -1) {
+      return false;
+    }
+    final var count = Short.toUnsignedInt(buffer.getShort(end + 10));
+    final var directory = Integer.toUnsignedLong(buffer.getInt(end + 16));
+    if (count == 0xffff || directory == ZipIndex.ZIP64_MARKER) {
+      return false;
+    }
+    var position = directory;
+    for (var index = 0; index < count; index++) {
+      if (position + ZipIndex.CENTRAL_HEADER_SIZE > limit) {
+        return false;
+      }
+      final var header = (int) position;
+      if (buffer.getInt(header) != ZipIndex.CENTRAL_HEADER) {
+        return false;
+      }
+      final var method = Short.toUnsignedInt(buffer.getShort(header + 10));
+      final var compressedSize = Integer.toUnsignedLong(buffer.getInt(header + 20));
+      final var size = Integer.toUnsignedLong(buffer.getInt(header + 24));
+      final var nameLength = Short.toUnsignedInt(buffer.getShort(header + 28));
+      final var extraLength = Short.toUnsignedInt(buffer.getShort(header + 30));
+      final var commentLength = Short.toUnsignedInt(buffer.getShort(header + 32));
+      final var local = Integer.toUnsignedLong(buffer.getInt(header + 42));
+      if (position + ZipIndex.CENTRAL_HEADER_SIZE + nameLength > limit) {
+        return false;
+      }
+      if (method == ZipIndex.METHOD_STORED && compressedSize == size && local != ZipIndex.ZIP64_MARKER) {
+        final var name = new byte[nameLength];
+        buffer.duplicate().position(header + ZipIndex.CENTRAL_HEADER_SIZE).get(name);
+        final var node = root.find(new String(name, StandardCharsets.UTF_8));
+        if (node != null && !node.directory) {
+          node.dataOffset = ZipIndex.dataOffset(buffer, local, size);
+        }
+      }
+      position += ZipIndex.CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+    }
+    return true;
+  }
+
+  /**
+   * obtains the offset of the data that follows the given local file header.
+   *
+   * @param buffer the mapped archive.
+   * @param local the local file header offset.
+   * @param size the size of the data.
+   *
+   * @return the data offset or -1 if the local file header is not valid.
+   */
+  private static long dataOffset(@NotNull final ByteBuffer buffer, final long local, final long size) {
+    if (local + ZipIndex.LOCAL_HEADER_SIZE > buffer.limit()) {
+      return -1;
+    }
+    final var header = (int) local;
+    if (buffer.getInt(header) != ZipIndex.LOCAL_HEADER) {
+      return -1;
+    }
+    final var offset = local + ZipIndex.LOCAL_HEADER_SIZE +
+      Short.toUnsignedInt(buffer.getShort(header + 26)) + Short.toUnsignedInt(buffer.getShort(header + 28));
+    return offset + size > buffer.limit() ? -1 : offset;
+  }
+
+  /**
+   * a class that represents the nodes of the path tree.
+   */
+  static final class Node {
+
+    /**
+     * the children, keyed by their names.
+     */
+    @NotNull
+    private final Map<String, Node> children;
+
+    /**
+     * if the node is a directory.
+     */
+    private final boolean directory;
+
+    /**
+     * the path of the node.
+     */
+    @NotNull
+    private final Path path;
+
+    /**
+     * the data offset of the stored entry in the archive, -1 if the entry can't be mapped.
+     */
+    private long dataOffset = -1;
+
+    /**
+     * the zip entry, null for the directories that are not in the archive explicitly.
+     */
+    @Nullable
+    private ZipEntry entry;
+
+    /**
+     * ctor.
+     *
+     * @param path the path.
+     * @param entry the entry.
+     * @param directory the directory.
+     */
+    private Node(@NotNull final Path path, @Nullable final ZipEntry entry, final boolean directory) {
+      this.path = path;
+      this.entry = entry;
+      this.directory = directory;
+      this.children = directory ? new LinkedHashMap<>() : Collections.emptyMap();
+    }
+
+    /**
+     * obtains the children.
+     *
+     * @return children.
+     */
+    @NotNull
+    Collection<Node> getChildren() {
+      return Collections.unmodifiableCollection(this.children.values());
+    }
+
+    /**
+     * obtains the entry.
+     *
+     * @return entry.
+     */
+    @Nullable
+    ZipEntry getEntry() {
+      return this.entry;
+    }
+
+    /**
+     * obtains the path.
+     *
+     * @return path.
+     */
+    @NotNull
+    Path getPath() {
+      return this.path;
+    }
+
+    /**
+     * checks if the node is a directory.
+     *
+     * @return {@code true} if the node is a directory.
+     */
+    boolean isDirectory() {
+      return this.directory;
+    }
+
+    /**
+     * obtains or creates the child that has the given name.
+     *
+     * @param name the name to get.
+     * @param entry the entry of the child.
+     * @param directory if the child is a directory.
+     *
+     * @return child node or {@code null} if the node is a file or the child exists as the other kind, e.g. an
+     *   archive that has both {@code foo} and {@code foo/bar}.
+     */
+    @Nullable
+    private Node child(@NotNull final String name, @Nullable final ZipEntry entry, final boolean directory) {
+      if (!this.directory) {
+        return null;
+      }
+      final var child = this.children.computeIfAbsent(name, key ->
+        new Node(this.path.resolve(key), entry, directory));
+      if (child.directory != directory) {
+        return null;
+      }
+      if (entry != null && child.entry == null) {
+        child.entry = entry;
+      }
+      return child;
+    }
+
+    /**
+     * finds the node of the given entry name.
+     *
+     * @param name the entry name to find.
+     *
+     * @return the node or {@code null} if the tree does not contain the name.
+     */
+    @Nullable
+    private Node find(@NotNull final String name) {
+      var node = this;
+      for (final var part : name.split("/")) {
+        if (part.isEmpty()) {
+          continue;
+        }
+        node = node.children.get(part);
+        if (node == null) {
+          return null;
+        }
+      }
+      return node;
+    }
+  }
+}
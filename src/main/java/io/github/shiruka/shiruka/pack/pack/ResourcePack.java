@@ -29,9 +29,16 @@ import io.github.shiruka.api.pack.Pack;
 import io.github.shiruka.api.pack.PackLoader;
 import io.github.shiruka.api.pack.PackManifest;
 import io.github.shiruka.api.pack.ResourcePackType;
-import java.nio.file.Files;
+import io.github.shiruka.shiruka.pack.PackHashIndex;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * a class that represents resource packs.
@@ -43,6 +50,11 @@ public final class ResourcePack implements Pack {
    */
   public static final Factory FACTORY = new ResourcePackFactory();
 
+  /**
+   * the buffer size to read the pack file while hashing.
+   */
+  private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
   /**
    * the loader.
    */
@@ -58,7 +70,7 @@ public final class ResourcePack implements Pack {
   /**
    * the hash.
    */
-  private byte[] hash;
+  private volatile byte[] hash;
 
   /**
    * ctor.
@@ -71,15 +83,37 @@ public final class ResourcePack implements Pack {
     this.manifest = manifest;
   }
 
+  /**
+   * computes the sha-256 hash of the given file by streaming it.
+   *
+   * @param file the file to hash.
+   *
+   * @return the hash.
+   *
+   * @throws IOException if an I/O error has occurred.
+   */
+  private static byte[] digest(@NotNull final Path file) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var buffer = ByteBuffer.allocateDirect(ResourcePack.HASH_BUFFER_SIZE);
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+      }
+    }
+    return digest.digest();
+  }
+
   @Override
   public byte[] getHash() {
     if (this.hash == null) {
-      try {
-        this.hash = MessageDigest.getInstance("SHA-256")
-          .digest(Files.readAllBytes(this.loader.getPreparedFile().join()));
-      } catch (final Exception e) {
-        throw new IllegalStateException("Unable to get hash of pack!", e);
-      }
+      this.loadHash(null);
     }
     return this.hash.clone();
   }
@@ -102,6 +136,36 @@ public final class ResourcePack implements Pack {
     return ResourcePackType.RESOURCE;
   }
 
+  /**
+   * loads the hash of the prepared pack file from the given index or computes it if the file changed.
+   *
+   * @param index the index to load and store the hash.
+   *
+   * @throws IllegalStateException if the hash could not be computed.
+   */
+  public synchronized void loadHash(@Nullable final PackHashIndex index) {
+    if (this.hash != null) {
+      return;
+    }
+    try {
+      final var file = this.loader.getPreparedFile().join();
+      if (index != null) {
+        final var indexed = index.get(file);
+        if (indexed.isPresent()) {
+          this.hash = indexed.get();
+          return;
+        }
+      }
+      final var digest = ResourcePack.digest(file);
+      if (index != null) {
+        index.put(file, digest);
+      }
+      this.hash = digest;
+    } catch (final Exception e) {
+      throw new IllegalStateException("Unable to get hash of pack!", e);
+    }
+  }
+
   /**
    * a class that represents resource pack factories.
    */
@@ -27,19 +27,28 @@ package io.github.shiruka.shiruka.scheduler;
 
 import io.github.shiruka.api.scheduler.Scheduler;
 import io.github.shiruka.api.scheduler.Task;
-import it.unimi.dsi.fastutil.objects.Object2LongMap;
-import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
-import java.lang.management.ManagementFactory;
-import java.util.*;
+import io.github.shiruka.shiruka.concurrent.PoolSpec;
+import io.github.shiruka.shiruka.config.ServerConfig;
+import java.nio.file.Paths;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * a simple implementation for {@link Scheduler}.
+ * <p>
+ * every thread that runs async tasks owns a slot that shows its running task and when the task started. the slots are
+ * written with volatile stores only and a watchdog samples them periodically to report the stuck tasks.
  */
 public final class SimpleScheduler implements Scheduler {
 
@@ -49,9 +58,9 @@ public final class SimpleScheduler implements Scheduler {
   private static final Logger LOGGER = LogManager.getLogger("SimpleScheduler");
 
   /**
-   * the already alerted.
+   * the completed async task count.
    */
-  private final Set<Thread> alreadyAlerted = new HashSet<>();
+  private final LongAdder completedTasks = new LongAdder();
 
   /**
    * the executor service.
@@ -60,14 +69,34 @@ public final class SimpleScheduler implements Scheduler {
   private final ScheduledExecutorService executorService;
 
   /**
-   * the running threads.
+   * the slot of the current thread.
    */
-  private final Map<Thread, Runnable> threadRunnableMap = new HashMap<>();
+  private final ThreadLocal<WorkerSlot> slot;
 
   /**
-   * the threads.
+   * the slots of the threads that have run async tasks.
    */
-  private final Object2LongMap<Thread> threads = new Object2LongOpenHashMap<>();
+  private final Queue<WorkerSlot> slots = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the total count of the stuck task reports.
+   */
+  private final LongAdder stuckReports = new LongAdder();
+
+  /**
+   * the time in nanoseconds that a task can run before it's reported as stuck.
+   */
+  private final long stuckThreshold;
+
+  /**
+   * the running async task count of the last watchdog check.
+   */
+  private volatile int runningTasks;
+
+  /**
+   * the stuck async task count of the last watchdog check.
+   */
+  private volatile int stuckTasks;
 
   /**
    * ctor.
@@ -76,36 +105,88 @@ public final class SimpleScheduler implements Scheduler {
    */
   public SimpleScheduler(@NotNull final ScheduledExecutorService executorService) {
     this.executorService = executorService;
-    final var mxBean = ManagementFactory.getThreadMXBean();
-    this.executorService.scheduleWithFixedDelay(() -> {
-      final var current = System.currentTimeMillis();
-      synchronized (this.threads) {
-        final var threadSet = (Object2LongMap.FastEntrySet<Thread>) this.threads.object2LongEntrySet();
-        final var threadIterator = threadSet.fastIterator();
-        while (threadIterator.hasNext()) {
-          final var entry = threadIterator.next();
-          final var diff = current - entry.getLongValue();
-          if (diff <= TimeUnit.SECONDS.toMillis(10)) {
-            continue;
-          }
-          final var key = entry.getKey();
-          var threadInfo = mxBean.getThreadInfo(key.getId());
-          final var state = threadInfo.getThreadState();
-          if (this.alreadyAlerted.contains(key) ||
-            state != Thread.State.WAITING &&
-              state != Thread.State.TIMED_WAITING &&
-              state != Thread.State.BLOCKED) {
-            continue;
-          }
-          SimpleScheduler.LOGGER.warn("Following runnable is blocking the scheduler loops: {}",
-            this.threadRunnableMap.get(key).getClass().getName());
-          threadInfo = mxBean.getThreadInfo(key.getId(), Integer.MAX_VALUE);
-          Arrays.stream(threadInfo.getStackTrace())
-            .forEach(element -> SimpleScheduler.LOGGER.warn("  {}", element));
-          this.alreadyAlerted.add(key);
-        }
+    this.slot = ThreadLocal.withInitial(() -> {
+      final var slot = new WorkerSlot(Thread.currentThread());
+      this.slots.add(slot);
+      return slot;
+    });
+    this.stuckThreshold = TimeUnit.MILLISECONDS.toNanos(
+      ServerConfig.SCHEDULER_STUCK_THRESHOLD.getValue().orElse(10000));
+    final var period = ServerConfig.SCHEDULER_WATCHDOG_PERIOD.getValue().orElse(1000);
+    if (period > 0) {
+      this.startWatchdog(TimeUnit.MILLISECONDS.toNanos(period));
+    }
+  }
+
+  /**
+   * finds the owner of the given task from the jar file that its class loaded from.
+   *
+   * @param task the task to find.
+   *
+   * @return the jar file name of the task or {@code null} if it's unknown.
+   */
+  @Nullable
+  private static String owner(@NotNull final Runnable task) {
+    try {
+      final var source = task.getClass().getProtectionDomain().getCodeSource();
+      if (source == null || source.getLocation() == null) {
+        return null;
       }
-    }, 10, 10, TimeUnit.MILLISECONDS);
+      final var fileName = Paths.get(source.getLocation().toURI()).getFileName();
+      return fileName == null ? null : fileName.toString();
+    } catch (final Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * passes the given task to the given executor, the task is watched like the scheduled async tasks.
+   *
+   * @param task the task to pass.
+   * @param executor the executor that queues the task and returns {@code false} if it's rejected.
+   *
+   * @return {@code true} if the executor accepted the task.
+   */
+  public boolean execute(@NotNull final AsyncTask task, @NotNull final Predicate<Runnable> executor) {
+    final var future = new FutureTask<>(this.wrapRunnable(task), null);
+    task.setFuture(future);
+    return executor.test(future);
+  }
+
+  /**
+   * obtains the completed async task count.
+   *
+   * @return completed task count.
+   */
+  public long getCompletedTaskCount() {
+    return this.completedTasks.sum();
+  }
+
+  /**
+   * obtains the running async task count of the last watchdog check.
+   *
+   * @return running task count.
+   */
+  public int getRunningTaskCount() {
+    return this.runningTasks;
+  }
+
+  /**
+   * obtains the total count of the stuck task reports.
+   *
+   * @return stuck report count.
+   */
+  public long getStuckReportCount() {
+    return this.stuckReports.sum();
+  }
+
+  /**
+   * obtains the stuck async task count of the last watchdog check.
+   *
+   * @return stuck task count.
+   */
+  public int getStuckTaskCount() {
+    return this.stuckTasks;
   }
 
   @NotNull
@@ -158,6 +239,80 @@ public final class SimpleScheduler implements Scheduler {
     return this.scheduleAsync(runnable, delay, -1, timeUnit);
   }
 
+  /**
+   * reports the given stuck task.
+   *
+   * @param slot the slot of the task.
+   * @param task the task to report.
+   * @param elapsed the elapsed time of the task in nanoseconds.
+   */
+  private void report(@NotNull final WorkerSlot slot, @NotNull final Runnable task, final long elapsed) {
+    this.stuckReports.increment();
+    final var owner = SimpleScheduler.owner(task);
+    SimpleScheduler.LOGGER.warn("Following runnable of {} is blocking the scheduler loops for {}ms ({}): {}",
+      owner == null ? "an unknown owner" : owner, TimeUnit.NANOSECONDS.toMillis(elapsed),
+      slot.thread.getState(), task.getClass().getName());
+    for (final var element : slot.thread.getStackTrace()) {
+      SimpleScheduler.LOGGER.warn("  {}", element);
+    }
+  }
+
+  /**
+   * starts a thread that checks the slots periodically until the executor service shuts down.
+   * <p>
+   * the watchdog has its own thread, so it still reports when all the threads of the executor service are stuck.
+   *
+   * @param period the period in nanoseconds.
+   */
+  private void startWatchdog(final long period) {
+    final var watchdog = PoolSpec.SCHEDULER_WATCHDOG.newThread(() -> {
+      while (!Thread.currentThread().isInterrupted() && !this.executorService.isShutdown()) {
+        LockSupport.parkNanos(period);
+        try {
+          this.watch();
+        } catch (final Exception e) {
+          SimpleScheduler.LOGGER.error("Failed to watch the scheduler", e);
+        }
+      }
+    });
+    watchdog.setDaemon(true);
+    watchdog.start();
+  }
+
+  /**
+   * checks the slots and reports the tasks that run longer than the threshold once.
+   */
+  private void watch() {
+    final var now = System.nanoTime();
+    var running = 0;
+    var stuck = 0;
+    final var iterator = this.slots.iterator();
+    while (iterator.hasNext()) {
+      final var slot = iterator.next();
+      if (!slot.thread.isAlive()) {
+        iterator.remove();
+        continue;
+      }
+      final var task = slot.task;
+      final var start = slot.start;
+      if (task == null || slot.task != task) {
+        continue;
+      }
+      running++;
+      final var elapsed = now - start;
+      if (elapsed < this.stuckThreshold) {
+        continue;
+      }
+      stuck++;
+      if (slot.reportedStart != start) {
+        slot.reportedStart = start;
+        this.report(slot, task, elapsed);
+      }
+    }
+    this.runningTasks = running;
+    this.stuckTasks = stuck;
+  }
+
   /**
    * wraps the given task into a runnable.
    *
@@ -168,17 +323,52 @@ public final class SimpleScheduler implements Scheduler {
   @NotNull
   private Runnable wrapRunnable(@NotNull final AsyncTask task) {
     return () -> {
-      final var val = System.currentTimeMillis();
-      synchronized (this.threads) {
-        this.threadRunnableMap.put(Thread.currentThread(), task.getTask());
-        this.threads.put(Thread.currentThread(), val);
-      }
-      task.run();
-      synchronized (this.threads) {
-        this.threads.remove(Thread.currentThread(), val);
-        this.threadRunnableMap.remove(Thread.currentThread(), task.getTask());
-        this.alreadyAlerted.remove(Thread.currentThread());
+      final var slot = this.slot.get();
+      slot.start = System.nanoTime();
+      slot.task = task.getTask();
+      try {
+        task.run();
+      } finally {
+        slot.task = null;
+        this.completedTasks.increment();
       }
     };
   }
+
+  /**
+   * a class that represents the running task of a thread.
+   */
+  private static final class WorkerSlot {
+
+    /**
+     * the thread.
+     */
+    @NotNull
+    private final Thread thread;
+
+    /**
+     * the start time of the reported task, only used by the watchdog.
+     */
+    private long reportedStart;
+
+    /**
+     * the start time of the running task.
+     */
+    private volatile long start;
+
+    /**
+     * the running task, {@code null} if the thread is idle.
+     */
+    @Nullable
+    private volatile Runnable task;
+
+    /**
+     * ctor.
+     *
+     * @param thread the thread.
+     */
+    private WorkerSlot(@NotNull final Thread thread) {
+      this.thread = thread;
+    }
+  }
 }
@@ -26,9 +26,11 @@
 package io.github.shiruka.shiruka.scheduler;
 
 import io.github.shiruka.api.scheduler.Task;
+import io.github.shiruka.shiruka.concurrent.ShirukaTick;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -37,6 +39,8 @@ import org.jetbrains.annotations.Nullable;
 
 /**
  * a class that represents sync tasks.
+ * <p>
+ * the delays and the periods are rounded up to whole ticks.
  */
 public final class SyncTask implements Task, Runnable {
 
@@ -45,12 +49,35 @@ public final class SyncTask implements Task, Runnable {
    */
   private static final Logger LOGGER = LogManager.getLogger("SyncTask");
 
+  /**
+   * if the task is cancelled or completed.
+   */
+  private final AtomicBoolean cancelled = new AtomicBoolean();
+
   /**
    * the task.
    */
   @NotNull
   private final Runnable task;
 
+  /**
+   * the next task in the same wheel slot.
+   */
+  @Nullable
+  SyncTask next;
+
+  /**
+   * the previous task in the same wheel slot.
+   */
+  @Nullable
+  SyncTask previous;
+
+  /**
+   * the wheel slot that contains the task, used to remove the task without searching it.
+   */
+  @Nullable
+  SyncTaskManager.Slot slot;
+
   /**
    * the complete handler list.
    */
@@ -58,18 +85,18 @@ public final class SyncTask implements Task, Runnable {
   private List<Runnable> completeHandlers;
 
   /**
-   * the exception handler.
+   * the tick of the next execution.
    */
-  @Nullable
-  private Predicate<Exception> exceptionHandler;
+  private long deadline;
 
   /**
-   * the next execution.
+   * the exception handler.
    */
-  private long nextExecution;
+  @Nullable
+  private Predicate<Exception> exceptionHandler;
 
   /**
-   * the period.
+   * the period in ticks.
    */
   private long period;
 
@@ -84,16 +111,34 @@ public final class SyncTask implements Task, Runnable {
   public SyncTask(@NotNull final Runnable task, final long delay,
                   final long period, @NotNull final TimeUnit unit) {
     this.task = task;
-    this.period = period >= 0 ? unit.toMillis(period) : -1;
-    this.nextExecution = delay >= 0 ? System.currentTimeMillis() + unit.toMillis(delay) : -1;
+    this.period = period >= 0 ? SyncTask.toTicks(period, unit) : -1;
+    if (delay < 0) {
+      this.deadline = -1;
+    } else {
+      final var ticks = SyncTask.toTicks(delay, unit);
+      final var current = SyncTaskManager.getCurrentTick();
+      this.deadline = ticks > Long.MAX_VALUE - current ? Long.MAX_VALUE : current + ticks;
+    }
+  }
+
+  /**
+   * converts the given time to ticks by rounding up.
+   *
+   * @param time the time to convert.
+   * @param unit the unit of the time.
+   *
+   * @return tick count.
+   */
+  private static long toTicks(final long time, @NotNull final TimeUnit unit) {
+    final var nanos = unit.toNanos(time);
+    return nanos / ShirukaTick.TICK_NANOS + (nanos % ShirukaTick.TICK_NANOS == 0 ? 0 : 1);
   }
 
   @Override
   public void cancel() {
-    this.period = -1;
-    this.nextExecution = -1;
-    this.fireCompleteHandlers();
-    SyncTaskManager.removeTask(this);
+    if (this.complete()) {
+      SyncTaskManager.removeTask(this);
+    }
   }
 
   @Override
@@ -110,12 +155,12 @@ public final class SyncTask implements Task, Runnable {
   }
 
   /**
-   * obtains the next execution.
+   * obtains the tick of the next execution.
    *
-   * @return next execution.
+   * @return the tick of the next execution, -1 if the task is never executed.
    */
-  public long getNextExecution() {
-    return this.nextExecution;
+  public long getDeadline() {
+    return this.deadline;
   }
 
   /**
@@ -128,6 +173,15 @@ public final class SyncTask implements Task, Runnable {
     return this.task;
   }
 
+  /**
+   * checks if the task is cancelled or completed.
+   *
+   * @return {@code true} if the task will not be executed again.
+   */
+  public boolean isCancelled() {
+    return this.cancelled.get();
+  }
+
   @Override
   public void run() {
     try {
@@ -142,12 +196,27 @@ public final class SyncTask implements Task, Runnable {
       }
     }
     if (this.period > 0) {
-      this.nextExecution = System.currentTimeMillis() + this.period;
+      this.deadline = SyncTaskManager.getCurrentTick() + this.period;
     } else {
-      this.cancel();
+      this.complete();
     }
   }
 
+  /**
+   * marks the task as completed and fires the complete handlers.
+   *
+   * @return {@code false} if the task is completed already.
+   */
+  private boolean complete() {
+    if (!this.cancelled.compareAndSet(false, true)) {
+      return false;
+    }
+    this.period = -1;
+    this.deadline = -1;
+    this.fireCompleteHandlers();
+    return true;
+  }
+
   /**
    * fires the complete handlers.
    */
@@ -25,21 +25,65 @@
 
 package io.github.shiruka.shiruka.scheduler;
 
-import java.util.Comparator;
-import java.util.Objects;
-import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * a class that represents sync task managers.
+ * <p>
+ * the tasks are kept in a hierarchical timing wheel that advances once every tick. each level has 64 slots and each
+ * slot of a level covers all the slots of the level below, so adding, running and removing a task takes constant time
+ * regardless of the task count. the tasks that are further than the wheels can cover wait in an overflow slot.
+ * <p>
+ * the wheels are only touched by the main thread. other threads pass the tasks to add and remove through a lock-free
+ * queue which is drained at the beginning of every tick.
  */
 public final class SyncTaskManager {
 
   /**
-   * the task list.
+   * the level count of the wheel.
    */
-  private static final PriorityQueue<SyncTaskHolder> TASKS = new PriorityQueue<>(
-    Comparator.comparingLong(o -> o.execution));
+  private static final int LEVELS = 4;
+
+  /**
+   * the tasks that are beyond the last level.
+   */
+  private static final Slot OVERFLOW = new Slot();
+
+  /**
+   * the tasks that wait to be added or removed in the next tick.
+   */
+  private static final Queue<SyncTask> PENDING = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the bit count of the slot indexes of a level.
+   */
+  private static final int SLOT_BITS = 6;
+
+  /**
+   * the slot mask of a level.
+   */
+  private static final int SLOT_MASK = (1 << SyncTaskManager.SLOT_BITS) - 1;
+
+  /**
+   * the slots of the levels.
+   */
+  private static final Slot[][] WHEELS = new Slot[SyncTaskManager.LEVELS][SyncTaskManager.SLOT_MASK + 1];
+
+  /**
+   * the current tick.
+   */
+  private static volatile long currentTick;
+
+  static {
+    for (final var wheel : SyncTaskManager.WHEELS) {
+      for (var index = 0; index < wheel.length; index++) {
+        wheel[index] = new Slot();
+      }
+    }
+  }
 
   /**
    * ctor.
@@ -48,116 +92,201 @@ public final class SyncTaskManager {
   }
 
   /**
-   * adds the given task to the {@link #TASKS}.
+   * adds the given task to the wheel in the next tick.
    *
    * @param task the task to add.
    */
   public static void addTask(@NotNull final SyncTask task) {
-    if (task.getNextExecution() == -1) {
+    if (task.getDeadline() == -1) {
       return;
     }
-    synchronized (SyncTaskManager.TASKS) {
-      SyncTaskManager.TASKS.add(new SyncTaskHolder(task.getNextExecution(), task));
-    }
+    SyncTaskManager.PENDING.offer(task);
   }
 
   /**
-   * updates and run all tasks which should be run.
+   * obtains the current tick.
    *
-   * @param currentMillis the current millis to update.
-   */
-  public static void update(final long currentMillis) {
-    synchronized (SyncTaskManager.TASKS) {
-      while (SyncTaskManager.TASKS.peek() != null &&
-        SyncTaskManager.TASKS.peek().execution < currentMillis) {
-        final var holder = SyncTaskManager.TASKS.poll();
-        if (holder == null) {
-          return;
-        }
-        final var task = holder.task;
-        if (task.getNextExecution() == -1) {
-          continue;
-        }
+   * @return current tick.
+   */
+  public static long getCurrentTick() {
+    return SyncTaskManager.currentTick;
+  }
+
+  /**
+   * runs the tasks of the current tick and advances the wheel.
+   * <p>
+   * this method must be called by the main thread once every tick.
+   */
+  public static void update() {
+    SyncTaskManager.drain();
+    final var tick = SyncTaskManager.currentTick;
+    var task = SyncTaskManager.WHEELS[0][(int) tick & SyncTaskManager.SLOT_MASK].detach();
+    while (task != null) {
+      final var next = task.next;
+      task.next = null;
+      if (!task.isCancelled()) {
         task.run();
-        if (task.getNextExecution() > currentMillis) {
-          SyncTaskManager.TASKS.add(new SyncTaskHolder(task.getNextExecution(), task));
+        if (!task.isCancelled()) {
+          SyncTaskManager.insert(task);
         }
       }
+      task = next;
     }
+    final var nextTick = tick + 1;
+    SyncTaskManager.currentTick = nextTick;
+    SyncTaskManager.cascade(nextTick);
   }
 
   /**
-   * removes the given task from {@link #TASKS}.
+   * removes the given task from the wheel in the next tick.
    *
    * @param task the task to remove.
    */
   static void removeTask(@NotNull final SyncTask task) {
-    synchronized (SyncTaskManager.TASKS) {
-      SyncTaskManager.TASKS.remove(new SyncTaskHolder(-1, task));
+    SyncTaskManager.PENDING.offer(task);
+  }
+
+  /**
+   * moves the tasks of the higher level slots that begin at the given tick to the lower levels.
+   *
+   * @param tick the tick to cascade.
+   */
+  private static void cascade(final long tick) {
+    if ((tick & ((1L << SyncTaskManager.SLOT_BITS * SyncTaskManager.LEVELS) - 1)) == 0) {
+      SyncTaskManager.reinsert(SyncTaskManager.OVERFLOW);
+    }
+    for (var level = SyncTaskManager.LEVELS - 1; level > 0; level--) {
+      final var shift = SyncTaskManager.SLOT_BITS * level;
+      if ((tick & ((1L << shift) - 1)) == 0) {
+        SyncTaskManager.reinsert(SyncTaskManager.WHEELS[level][(int) (tick >>> shift) & SyncTaskManager.SLOT_MASK]);
+      }
+    }
+  }
+
+  /**
+   * adds and removes the pending tasks.
+   */
+  private static void drain() {
+    SyncTask task;
+    while ((task = SyncTaskManager.PENDING.poll()) != null) {
+      final var slot = task.slot;
+      if (task.isCancelled()) {
+        if (slot != null) {
+          slot.remove(task);
+        }
+      } else if (slot == null) {
+        SyncTaskManager.insert(task);
+      }
+    }
+  }
+
+  /**
+   * inserts the given task into the slot of its deadline.
+   *
+   * @param task the task to insert.
+   */
+  private static void insert(@NotNull final SyncTask task) {
+    final var current = SyncTaskManager.currentTick;
+    final var deadline = Math.max(task.getDeadline(), current);
+    for (var level = 0; level < SyncTaskManager.LEVELS; level++) {
+      final var shift = SyncTaskManager.SLOT_BITS * level;
+      if (deadline >>> shift + SyncTaskManager.SLOT_BITS == current >>> shift + SyncTaskManager.SLOT_BITS) {
+        SyncTaskManager.WHEELS[level][(int) (deadline >>> shift) & SyncTaskManager.SLOT_MASK].add(task);
+        return;
+      }
+    }
+    SyncTaskManager.OVERFLOW.add(task);
+  }
+
+  /**
+   * inserts the tasks of the given slot again.
+   *
+   * @param slot the slot to reinsert.
+   */
+  private static void reinsert(@NotNull final Slot slot) {
+    var task = slot.detach();
+    while (task != null) {
+      final var next = task.next;
+      task.next = null;
+      if (!task.isCancelled()) {
+        SyncTaskManager.insert(task);
+      }
+      task = next;
     }
   }
 
   /**
-   * a class that represents a sync task holders.
+   * a class that represents doubly linked task lists of the wheel.
    */
-  private static final class SyncTaskHolder {
+  static final class Slot {
 
     /**
-     * the execution.
+     * the first task.
      */
-    private final long execution;
+    @Nullable
+    private SyncTask head;
 
     /**
-     * the task.
+     * the last task.
      */
-    @NotNull
-    private final SyncTask task;
+    @Nullable
+    private SyncTask tail;
 
     /**
-     * ctor.
+     * adds the given task to the end.
      *
-     * @param execution the execution.
-     * @param task the task.
+     * @param task the task to add.
      */
-    SyncTaskHolder(final long execution, @NotNull final SyncTask task) {
-      this.execution = execution;
-      this.task = task;
+    private void add(@NotNull final SyncTask task) {
+      task.slot = this;
+      task.previous = this.tail;
+      task.next = null;
+      if (this.tail == null) {
+        this.head = task;
+      } else {
+        this.tail.next = task;
+      }
+      this.tail = task;
     }
 
     /**
-     * obtains the execution.
+     * removes all the tasks and detaches them from the slot.
+     * <p>
+     * the tasks stay linked with {@link SyncTask#next} until they're handled.
      *
-     * @return execution.
+     * @return the first task.
      */
-    public long getExecution() {
-      return this.execution;
+    @Nullable
+    private SyncTask detach() {
+      final var head = this.head;
+      this.head = null;
+      this.tail = null;
+      for (var task = head; task != null; task = task.next) {
+        task.slot = null;
+        task.previous = null;
+      }
+      return head;
     }
 
     /**
-     * obtains the task.
+     * removes the given task.
      *
-     * @return task.
+     * @param task the task to remove.
      */
-    @NotNull
-    public SyncTask getTask() {
-      return this.task;
-    }
-
-    @Override
-    public int hashCode() {
-      return Objects.hash(this.task);
-    }
-
-    @Override
-    public boolean equals(final Object obj) {
-      if (this == obj) {
-        return true;
+    private void remove(@NotNull final SyncTask task) {
+      if (task.previous == null) {
+        this.head = task.next;
+      } else {
+        task.previous.next = task.next;
       }
-      if (obj == null || this.getClass() != obj.getClass()) {
-        return false;
+      if (task.next == null) {
+        this.tail = task.previous;
+      } else {
+        task.next.previous = task.previous;
       }
-      final var that = (SyncTaskHolder) obj;
-      return Objects.equals(this.task, that.task);
+      task.slot = null;
+      task.previous = null;
+      task.next = null;
     }
   }
 }
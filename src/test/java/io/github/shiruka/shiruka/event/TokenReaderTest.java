@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+final class TokenReaderTest {
+
+  /**
+   * creates a new reader for a token that has the given json payload.
+   *
+   * @param json the json payload.
+   *
+   * @return a new token reader instance.
+   */
+  @NotNull
+  private static TokenReader reader(@NotNull final String json) {
+    final var encoder = Base64.getEncoder();
+    return TokenReader.of(encoder.encodeToString("{}".getBytes(StandardCharsets.UTF_8)) + '.' +
+      encoder.encodeToString(json.getBytes(StandardCharsets.UTF_8)) + ".signature");
+  }
+
+  @Test
+  void escapes() {
+    final var reader = TokenReaderTest.reader(
+      "{\"a\\tb\": \"x\\\"y\\\\z\\n\\u0041\\/\", \"plain\": \"value\", \"bytes\": \"1\\u00322\"}");
+    reader.beginObject();
+    assertEquals("a\tb", reader.nextName());
+    assertEquals("x\"y\\z\nA/", reader.nextString());
+    assertTrue(reader.hasNext());
+    assertEquals("plain", reader.nextName());
+    final var plain = reader.nextBytes();
+    assertEquals("value", StandardCharsets.UTF_8.decode(plain).toString());
+    assertTrue(reader.hasNext());
+    assertEquals("bytes", reader.nextName());
+    assertEquals("122", StandardCharsets.UTF_8.decode(reader.nextBytes()).toString());
+    assertFalse(reader.hasNext());
+    reader.endObject();
+  }
+
+  @Test
+  void literals() {
+    final var reader = TokenReaderTest.reader("{\"i\":-12,\"l\":1614000000000,\"f\":1.5,\"b\":true}");
+    reader.beginObject();
+    assertEquals("i", reader.nextName());
+    assertEquals(-12, reader.nextInt());
+    assertTrue(reader.hasNext());
+    assertEquals("l", reader.nextName());
+    assertEquals(1614000000000L, reader.nextLong());
+    assertTrue(reader.hasNext());
+    assertEquals("f", reader.nextName());
+    assertEquals(1.5F, reader.nextFloat());
+    assertTrue(reader.hasNext());
+    assertEquals("b", reader.nextName());
+    assertTrue(reader.nextBoolean());
+    assertFalse(reader.hasNext());
+    reader.endObject();
+  }
+
+  @Test
+  void skipValue() {
+    final var reader = TokenReaderTest.reader(
+      "{\"skip\": {\"n\": [1, \"a,]}\\\"\", {\"b\": true}, []], \"m\": null}, \"scalar\": \"x\\\\\", \"keep\": 5}");
+    reader.beginObject();
+    assertEquals("skip", reader.nextName());
+    reader.skipValue();
+    assertTrue(reader.hasNext());
+    assertEquals("scalar", reader.nextName());
+    reader.skipValue();
+    assertTrue(reader.hasNext());
+    assertEquals("keep", reader.nextName());
+    assertEquals(5, reader.nextInt());
+    assertFalse(reader.hasNext());
+    reader.endObject();
+  }
+
+  @Test
+  void truncated() {
+    assertThrows(IllegalArgumentException.class, () -> TokenReader.of("token"));
+    final var string = TokenReaderTest.reader("{\"a\":\"abc");
+    string.beginObject();
+    assertEquals("a", string.nextName());
+    assertThrows(IllegalArgumentException.class, string::nextString);
+    final var escape = TokenReaderTest.reader("{\"a\":\"abc\\u00");
+    escape.beginObject();
+    assertEquals("a", escape.nextName());
+    assertThrows(IllegalArgumentException.class, escape::nextString);
+    final var array = TokenReaderTest.reader("{\"a\":[1,{\"b\":\"c\"}");
+    array.beginObject();
+    assertEquals("a", array.nextName());
+    assertThrows(IllegalArgumentException.class, array::skipValue);
+    final var object = TokenReaderTest.reader("{\"a\":1");
+    object.beginObject();
+    assertEquals("a", object.nextName());
+    assertEquals(1, object.nextInt());
+    assertThrows(IllegalArgumentException.class, object::hasNext);
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.network;
+
+import io.github.shiruka.shiruka.concurrent.PoolSpec;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a loopback benchmark that compares the received packets per second and the receiver cpu time per packet of the
+ * datagram transports.
+ * <p>
+ * the arguments are the transport ids to compare, e.g. {@code epoll io_uring}, all the available transports are
+ * compared if there is no argument. the packet size, the sender count and the measured seconds can be set with the
+ * {@code size}, {@code senders} and {@code seconds} system properties.
+ */
+public final class NetTransportBenchmark {
+
+  /**
+   * the packet size.
+   */
+  private static final int PACKET_SIZE = Integer.getInteger("size", 1200);
+
+  /**
+   * the measured seconds.
+   */
+  private static final long SECONDS = Long.getLong("seconds", 10L);
+
+  /**
+   * the sender count.
+   */
+  private static final int SENDERS = Integer.getInteger("senders", 4);
+
+  /**
+   * the warm up seconds.
+   */
+  private static final long WARM_UP_SECONDS = 2L;
+
+  /**
+   * ctor.
+   */
+  private NetTransportBenchmark() {
+  }
+
+  /**
+   * runs the benchmark.
+   *
+   * @param args the transport ids to compare.
+   *
+   * @throws InterruptedException if interrupted while measuring.
+   */
+  public static void main(final String[] args) throws InterruptedException {
+    final List<NetTransport> transports;
+    if (args.length == 0) {
+      transports = Arrays.stream(NetTransport.values())
+        .filter(NetTransport::isAvailable)
+        .collect(Collectors.toList());
+    } else {
+      transports = Arrays.stream(args)
+        .map(id -> NetTransport.fromId(id).orElseThrow(() ->
+          new IllegalArgumentException(String.format("Unknown transport %s", id))))
+        .collect(Collectors.toList());
+    }
+    System.out.printf("%-10s %15s %15s%n", "transport", "packets/s", "cpu ns/packet");
+    for (final var transport : transports) {
+      if (!transport.isAvailable()) {
+        System.out.printf("%-10s %31s%n", transport.getId(), "not available");
+        continue;
+      }
+      NetTransportBenchmark.run(transport);
+    }
+  }
+
+  /**
+   * sends the packets from the given channel as fast as it can write them.
+   *
+   * @param channel the channel to send.
+   * @param target the target to send.
+   * @param payload the payload to send.
+   */
+  private static void flood(@NotNull final Channel channel, @NotNull final InetSocketAddress target,
+                            @NotNull final ByteBuf payload) {
+    if (!channel.isActive()) {
+      return;
+    }
+    while (channel.isWritable()) {
+      channel.write(new DatagramPacket(payload.retainedDuplicate(), target), channel.voidPromise());
+    }
+    channel.flush();
+    channel.eventLoop().execute(() -> NetTransportBenchmark.flood(channel, target, payload));
+  }
+
+  /**
+   * measures the given transport.
+   *
+   * @param transport the transport to measure.
+   *
+   * @throws InterruptedException if interrupted while measuring.
+   */
+  private static void run(@NotNull final NetTransport transport) throws InterruptedException {
+    final var received = new LongAdder();
+    final var receiverGroup = transport.createGroup(1, PoolSpec.UNCAUGHT_FACTORY);
+    final var senderGroup = transport.createGroup(NetTransportBenchmark.SENDERS, PoolSpec.UNCAUGHT_FACTORY);
+    final var payload = Unpooled.directBuffer(NetTransportBenchmark.PACKET_SIZE)
+      .writeZero(NetTransportBenchmark.PACKET_SIZE);
+    final var channels = new ArrayList<Channel>();
+    try {
+      final var bootstrap = new Bootstrap()
+        .group(receiverGroup)
+        .channel(transport.getChannel())
+        .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+          @Override
+          protected void channelRead0(final ChannelHandlerContext ctx, final DatagramPacket msg) {
+            received.increment();
+          }
+        });
+      transport.configure(bootstrap);
+      final var receiver = bootstrap.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+        .sync()
+        .channel();
+      channels.add(receiver);
+      final var receiverThread = receiver.eventLoop().submit(() -> Thread.currentThread().getId()).sync().getNow();
+      final var target = (InetSocketAddress) receiver.localAddress();
+      for (var index = 0; index < NetTransportBenchmark.SENDERS; index++) {
+        final var sender = new Bootstrap()
+          .group(senderGroup)
+          .channel(transport.getChannel())
+          .handler(new ChannelInboundHandlerAdapter())
+          .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+          .sync()
+          .channel();
+        channels.add(sender);
+        sender.eventLoop().execute(() -> NetTransportBenchmark.flood(sender, target, payload));
+      }
+      TimeUnit.SECONDS.sleep(NetTransportBenchmark.WARM_UP_SECONDS);
+      final var threads = ManagementFactory.getThreadMXBean();
+      final var startPackets = received.sum();
+      final var startCpu = threads.getThreadCpuTime(receiverThread);
+      final var start = System.nanoTime();
+      TimeUnit.SECONDS.sleep(NetTransportBenchmark.SECONDS);
+      final var packets = received.sum() - startPackets;
+      final var cpu = threads.getThreadCpuTime(receiverThread) - startCpu;
+      final var elapsed = System.nanoTime() - start;
+      System.out.printf("%-10s %15.0f %15.1f%n", transport.getId(),
+        packets * 1.0E9D / elapsed, packets == 0L ? 0.0D : (double) cpu / packets);
+    } finally {
+      channels.forEach(channel -> channel.close().syncUninterruptibly());
+      NetTransportBenchmark.shutdown(senderGroup);
+      NetTransportBenchmark.shutdown(receiverGroup);
+      payload.release();
+    }
+  }
+
+  /**
+   * shuts the given group down and waits for it.
+   *
+   * @param group the group to shut down.
+   */
+  private static void shutdown(@NotNull final EventLoopGroup group) {
+    group.shutdownGracefully(0L, 1L, TimeUnit.SECONDS).syncUninterruptibly();
+  }
+}
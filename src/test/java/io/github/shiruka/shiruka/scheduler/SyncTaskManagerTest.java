@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Shiru ka
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.github.shiruka.shiruka.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.shiruka.shiruka.concurrent.ShirukaTick;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+final class SyncTaskManagerTest {
+
+  /**
+   * creates and adds a new task that runs after the given tick count.
+   *
+   * @param task the task to run.
+   * @param ticks the delay in ticks.
+   * @param period the period in ticks.
+   *
+   * @return the added task.
+   */
+  @NotNull
+  private static SyncTask schedule(@NotNull final Runnable task, final long ticks, final long period) {
+    final var syncTask = new SyncTask(task, ticks * ShirukaTick.TICK_NANOS, period * ShirukaTick.TICK_NANOS,
+      TimeUnit.NANOSECONDS);
+    SyncTaskManager.addTask(syncTask);
+    return syncTask;
+  }
+
+  /**
+   * runs the wheel until the given task is completed or the given tick count passes.
+   *
+   * @param task the task to wait.
+   * @param ticks the maximum tick count.
+   */
+  private static void updateUntilCompleted(@NotNull final SyncTask task, final long ticks) {
+    for (var tick = 0L; tick < ticks && !task.isCancelled(); tick++) {
+      SyncTaskManager.update();
+    }
+  }
+
+  @Test
+  void cancelDetached() {
+    final var runs = new AtomicInteger();
+    final var second = new SyncTask[1];
+    final var first = SyncTaskManagerTest.schedule(() -> second[0].cancel(), 3, -1);
+    second[0] = SyncTaskManagerTest.schedule(runs::incrementAndGet, 3, -1);
+    SyncTaskManagerTest.updateUntilCompleted(first, 10);
+    assertTrue(first.isCancelled());
+    assertTrue(second[0].isCancelled());
+    for (var tick = 0; tick < 10; tick++) {
+      SyncTaskManager.update();
+    }
+    assertEquals(0, runs.get());
+  }
+
+  @Test
+  void cancelOnce() {
+    final var completions = new AtomicInteger();
+    final var task = SyncTaskManagerTest.schedule(() -> {
+    }, 5, -1);
+    task.onComplete(completions::incrementAndGet);
+    task.cancel();
+    task.cancel();
+    SyncTaskManager.update();
+    assertTrue(task.isCancelled());
+    assertEquals(1, completions.get());
+  }
+
+  @Test
+  void cancelPeriodicWhileRunning() {
+    final var runs = new AtomicInteger();
+    final var task = new SyncTask[1];
+    task[0] = SyncTaskManagerTest.schedule(() -> {
+      if (runs.incrementAndGet() == 3) {
+        task[0].cancel();
+      }
+    }, 1, 1);
+    for (var tick = 0; tick < 20; tick++) {
+      SyncTaskManager.update();
+    }
+    assertEquals(3, runs.get());
+    assertTrue(task[0].isCancelled());
+  }
+
+  @Test
+  void cascade() {
+    final var delays = new long[]{1, 63, 64, 65, 4095, 4096, 4097, 300_000};
+    for (final var delay : delays) {
+      final var ranAt = new AtomicLong(-1);
+      final var task = SyncTaskManagerTest.schedule(() -> ranAt.set(SyncTaskManager.getCurrentTick()), delay, -1);
+      final var deadline = task.getDeadline();
+      SyncTaskManagerTest.updateUntilCompleted(task, delay + 2);
+      assertEquals(deadline, ranAt.get(), "delay " + delay);
+    }
+  }
+
+  @Test
+  void overflow() {
+    final var delay = (1L << 24) + 100;
+    final var ranAt = new AtomicLong(-1);
+    final var task = SyncTaskManagerTest.schedule(() -> ranAt.set(SyncTaskManager.getCurrentTick()), delay, -1);
+    final var deadline = task.getDeadline();
+    SyncTaskManagerTest.updateUntilCompleted(task, delay + 2);
+    assertEquals(deadline, ranAt.get());
+  }
+
+  @Test
+  void period() {
+    final var ticks = new long[4];
+    final var runs = new AtomicInteger();
+    final var task = SyncTaskManagerTest.schedule(() -> {
+      final var run = runs.getAndIncrement();
+      if (run < ticks.length) {
+        ticks[run] = SyncTaskManager.getCurrentTick();
+      }
+    }, 2, 100);
+    for (var tick = 0; tick < 400 && runs.get() < ticks.length; tick++) {
+      SyncTaskManager.update();
+    }
+    task.cancel();
+    assertEquals(ticks.length, runs.get());
+    for (var index = 1; index < ticks.length; index++) {
+      assertEquals(100, ticks[index] - ticks[index - 1]);
+    }
+  }
+}